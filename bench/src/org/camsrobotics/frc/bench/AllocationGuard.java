@@ -0,0 +1,43 @@
+package org.camsrobotics.frc.bench;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Fails a benchmark iteration if the code under test allocates. Start it in
+ * an iteration setup, count each call, and check it in the iteration
+ * teardown; the check fails if the thread allocated a byte or more per call
+ * on average.
+ */
+final class AllocationGuard {
+	private final String m_name;
+	private long m_calls;
+	private long m_allocated;
+
+	/**
+	 * @param name What is being measured, for the failure message
+	 */
+	AllocationGuard(String name)	{
+		m_name = name;
+	}
+
+	void start()	{
+		m_calls = 0;
+		m_allocated = allocatedBytes();
+	}
+
+	void call()	{
+		m_calls++;
+	}
+
+	void check()	{
+		long bytes = allocatedBytes() - m_allocated;
+		if(m_calls > 0 && bytes >= m_calls)	{
+			throw new IllegalStateException(m_name + " allocated " + bytes + " bytes in " + m_calls + " calls");
+		}
+	}
+
+	private static long allocatedBytes()	{
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -0,0 +1,124 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.kauailabs.nav6.frc.IMUOrientation;
+import com.kauailabs.nav6.frc.IMUOrientationState;
+
+/**
+ * Compares the lock-free orientation snapshot against synchronized access,
+ * with one thread publishing updates (like the IMU serial thread) while
+ * others read (like the control loop and dashboard).
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class IMUOrientationBenchmark {
+	/**
+	 * Orientation published under a monitor, as IMUAdvanced did before the
+	 * sequence lock
+	 */
+	static class SynchronizedOrientation	{
+		private float m_yaw, m_pitch, m_roll, m_compass;
+		private float m_qw, m_qx, m_qy, m_qz;
+		private float m_accelX, m_accelY, m_accelZ;
+		private double m_timestamp;
+
+		synchronized void set(float value)	{
+			m_yaw = value;
+			m_pitch = value;
+			m_roll = value;
+			m_compass = value;
+			m_qw = value;
+			m_qx = value;
+			m_qy = value;
+			m_qz = value;
+			m_accelX = value;
+			m_accelY = value;
+			m_accelZ = value;
+			m_timestamp = value;
+		}
+
+		synchronized void read(IMUOrientation dest)	{
+			dest.yaw = m_yaw;
+			dest.pitch = m_pitch;
+			dest.roll = m_roll;
+			dest.compass_heading = m_compass;
+			dest.quaternion_w = m_qw;
+			dest.quaternion_x = m_qx;
+			dest.quaternion_y = m_qy;
+			dest.quaternion_z = m_qz;
+			dest.world_linear_accel_x = m_accelX;
+			dest.world_linear_accel_y = m_accelY;
+			dest.world_linear_accel_z = m_accelZ;
+			dest.timestamp = m_timestamp;
+		}
+	}
+
+	/**
+	 * Per-reader snapshot, reused across invocations
+	 */
+	@State(Scope.Thread)
+	public static class Snapshot	{
+		IMUOrientation orientation = new IMUOrientation();
+	}
+
+	private IMUOrientationState m_seqlock;
+	private SynchronizedOrientation m_synchronized;
+	private float m_value;
+
+	@Setup
+	public void setup()	{
+		m_seqlock = new IMUOrientationState();
+		m_synchronized = new SynchronizedOrientation();
+	}
+
+	@Benchmark
+	@Group("seqlock")
+	@GroupThreads(1)
+	public void seqlockWrite()	{
+		m_value += 0.01f;
+		m_seqlock.beginUpdate();
+		m_seqlock.setYawPitchRoll(m_value, m_value, m_value, m_value);
+		m_seqlock.setQuaternion(m_value, m_value, m_value, m_value);
+		m_seqlock.setWorldLinearAccel(m_value, m_value, m_value);
+		m_seqlock.setTimestamp(m_value);
+		m_seqlock.endUpdate();
+	}
+
+	@Benchmark
+	@Group("seqlock")
+	@GroupThreads(3)
+	public float seqlockRead(Snapshot snapshot)	{
+		m_seqlock.read(snapshot.orientation);
+		return snapshot.orientation.yaw;
+	}
+
+	@Benchmark
+	@Group("synchronized")
+	@GroupThreads(1)
+	public void synchronizedWrite()	{
+		m_value += 0.01f;
+		m_synchronized.set(m_value);
+	}
+
+	@Benchmark
+	@Group("synchronized")
+	@GroupThreads(3)
+	public float synchronizedRead(Snapshot snapshot)	{
+		m_synchronized.read(snapshot.orientation);
+		return snapshot.orientation.yaw;
+	}
+}
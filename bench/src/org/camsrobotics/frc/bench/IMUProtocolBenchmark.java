@@ -0,0 +1,101 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.kauailabs.nav6.IMUProtocol;
+
+/**
+ * Decode cost of each nav6 update packet type. The packets sit at a non-zero
+ * offset, as they do in the IMU receive buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class IMUProtocolBenchmark {
+	private static final int OFFSET = 5;
+
+	private byte[] m_ypr = new byte[64];
+	private byte[] m_quaternion = new byte[64];
+	private byte[] m_gyro = new byte[64];
+	private IMUProtocol.YPRUpdate m_yprUpdate = new IMUProtocol.YPRUpdate();
+	private IMUProtocol.QuaternionUpdate m_quaternionUpdate = new IMUProtocol.QuaternionUpdate();
+	private IMUProtocol.GyroUpdate m_gyroUpdate = new IMUProtocol.GyroUpdate();
+
+	@Setup
+	public void setup()	{
+		byte[] packet = new byte[64];
+
+		int length = IMUProtocol.encodeYPRUpdate(packet, -123.45f, 4.5f, -0.75f, 271.1f);
+		System.arraycopy(packet, 0, m_ypr, OFFSET, length);
+
+		IMUProtocol.QuaternionUpdate q = new IMUProtocol.QuaternionUpdate();
+		q.q1 = 16000;
+		q.q2 = -1200;
+		q.q3 = 850;
+		q.q4 = 3100;
+		q.accel_x = 120;
+		q.accel_y = -340;
+		q.accel_z = 16384;
+		q.mag_x = 210;
+		q.mag_y = -95;
+		q.mag_z = 400;
+		q.temp_c = 31.25f;
+		length = IMUProtocol.encodeQuaternionUpdate(packet, q);
+		System.arraycopy(packet, 0, m_quaternion, OFFSET, length);
+
+		IMUProtocol.GyroUpdate g = new IMUProtocol.GyroUpdate();
+		g.gyro_x = 12;
+		g.gyro_y = -40;
+		g.gyro_z = 1500;
+		g.accel_x = 120;
+		g.accel_y = -340;
+		g.accel_z = 16384;
+		g.mag_x = 210;
+		g.mag_y = -95;
+		g.mag_z = 400;
+		g.temp_c = 31.25f;
+		length = IMUProtocol.encodeGyroUpdate(packet, g);
+		System.arraycopy(packet, 0, m_gyro, OFFSET, length);
+	}
+
+	@Benchmark
+	public float decodeYPRUpdate()	{
+		IMUProtocol.decodeYPRUpdate(m_ypr, OFFSET, m_ypr.length - OFFSET, m_yprUpdate);
+		return m_yprUpdate.yaw;
+	}
+
+	@Benchmark
+	public short decodeQuaternionUpdate()	{
+		IMUProtocol.decodeQuaternionUpdate(m_quaternion, OFFSET, m_quaternion.length - OFFSET, m_quaternionUpdate);
+		return m_quaternionUpdate.q1;
+	}
+
+	@Benchmark
+	public short decodeGyroUpdate()	{
+		IMUProtocol.decodeGyroUpdate(m_gyro, OFFSET, m_gyro.length - OFFSET, m_gyroUpdate);
+		return m_gyroUpdate.gyro_z;
+	}
+
+	@Benchmark
+	public float decodeProtocolFloat()	{
+		return IMUProtocol.decodeProtocolFloat(m_ypr, OFFSET + 2);
+	}
+
+	/**
+	 * The String-based float parse the decoders used previously, as a baseline
+	 */
+	@Benchmark
+	public float decodeProtocolFloatString()	{
+		return Float.parseFloat(new String(m_ypr, OFFSET + 2, 7));
+	}
+}
@@ -0,0 +1,102 @@
+package org.camsrobotics.frc.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.kauailabs.nav6.IMUProtocol;
+import com.kauailabs.nav6.frc.IMUAdvanced;
+import com.kauailabs.nav6.frc.IMUOrientation;
+
+/**
+ * Cost of the quaternion orientation math, run over the packet corpus in
+ * nav6-quaternion-corpus.txt.
+ *
+ * Setup checks every corpus packet against its recorded expected output
+ * bit for bit, and aborts the run if any value differs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class IMUQuaternionBenchmark {
+	static final String CORPUS = "nav6-quaternion-corpus.txt";
+	static final int PACKET_LENGTH = 51;
+
+	private IMUProtocol.QuaternionUpdate[] m_updates;
+	private float[] m_yawOffsets;
+	private short[] m_accelRanges;
+	private IMUOrientation m_result = new IMUOrientation();
+	private int m_index = 0;
+
+	@Setup
+	public void setup() throws IOException	{
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				IMUQuaternionBenchmark.class.getResourceAsStream(CORPUS), "US-ASCII"));
+		try	{
+			String line;
+			while((line = reader.readLine()) != null)	{
+				if(line.length() > 0 && !line.startsWith("#"))	{
+					lines.add(line);
+				}
+			}
+		}	finally	{
+			reader.close();
+		}
+
+		m_updates = new IMUProtocol.QuaternionUpdate[lines.size()];
+		m_yawOffsets = new float[lines.size()];
+		m_accelRanges = new short[lines.size()];
+		byte[] packet = new byte[PACKET_LENGTH + 2];
+
+		for(int i = 0; i < lines.size(); i++)	{
+			String line = lines.get(i);
+			for(int j = 0; j < PACKET_LENGTH; j++)	{
+				packet[j] = (byte) line.charAt(j);
+			}
+			packet[PACKET_LENGTH] = '\r';
+			packet[PACKET_LENGTH + 1] = '\n';
+
+			m_updates[i] = new IMUProtocol.QuaternionUpdate();
+			if(IMUProtocol.decodeQuaternionUpdate(packet, 0, packet.length, m_updates[i]) == 0)	{
+				throw new IllegalStateException("Corpus line " + i + " is not a valid quaternion packet");
+			}
+
+			String[] fields = line.substring(PACKET_LENGTH).trim().split("\\s+");
+			m_yawOffsets[i] = Float.parseFloat(fields[0]);
+			m_accelRanges[i] = Short.parseShort(fields[1]);
+
+			IMUAdvanced.calculateOrientation(m_updates[i], m_yawOffsets[i], m_accelRanges[i], m_result);
+			float[] actual = {m_result.yaw, m_result.pitch, m_result.roll, m_result.compass_heading,
+					m_result.world_linear_accel_x, m_result.world_linear_accel_y, m_result.world_linear_accel_z};
+			for(int j = 0; j < actual.length; j++)	{
+				int expected = (int) Long.parseLong(fields[2 + j], 16);
+				if(Float.floatToRawIntBits(actual[j]) != expected)	{
+					throw new IllegalStateException("Corpus line " + i + " value " + j + ": expected "
+							+ Float.intBitsToFloat(expected) + ", got " + actual[j]);
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public float calculateOrientation()	{
+		int i = m_index;
+		IMUAdvanced.calculateOrientation(m_updates[i], m_yawOffsets[i], m_accelRanges[i], m_result);
+		m_index = (i + 1 == m_updates.length) ? 0 : i + 1;
+		return m_result.world_linear_accel_x;
+	}
+}
@@ -0,0 +1,37 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.sim.NerdySimulator;
+import org.camsrobotics.frc.sim.SimRobot;
+
+/**
+ * Cost of a whole NerdyBot.run() iteration on simulated hardware, driven by
+ * the simulator's joystick pattern.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyBotBenchmark {
+	private NerdySimulator m_simulator;
+
+	@Setup
+	public void setup()	{
+		m_simulator = new NerdySimulator(new SimRobot(), NerdySimulator.kDefaultPeriod);
+	}
+
+	@Benchmark
+	public void run()	{
+		m_simulator.run(1);
+	}
+}
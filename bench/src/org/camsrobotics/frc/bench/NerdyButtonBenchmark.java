@@ -0,0 +1,89 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.sim.SimStick;
+import org.camsrobotics.frc.util.NerdyButton;
+import org.camsrobotics.frc.util.NerdyJoystick;
+
+/**
+ * Cost of one control cycle of button processing for the robot's 14 buttons:
+ * a read and edge check per button, against one sample per joystick and bit
+ * tests on its edge masks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyButtonBenchmark {
+	static final int PATTERN_LENGTH = 1024;
+	// Stick and button of each of Robot's buttons
+	static final int[] STICKS	= {0, 0, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2};
+	static final int[] PORTS	= {7, 4, 3, 4, 5, 6, 11, 12, 2, 1, 7, 8, 10, 9};
+
+	private SimStick[] m_sticks = {new SimStick(), new SimStick(), new SimStick()};
+	private NerdyJoystick[] m_joys = new NerdyJoystick[3];
+	private NerdyButton[] m_buttons = new NerdyButton[STICKS.length];
+	private boolean[] m_current = new boolean[STICKS.length];
+	private boolean[] m_last = new boolean[STICKS.length];
+	private int[] m_pattern = new int[PATTERN_LENGTH];
+	private int m_index = 0;
+
+	@Setup
+	public void setup()	{
+		for(int i = 0; i < m_joys.length; i++)	{
+			m_joys[i] = new NerdyJoystick(m_sticks[i]);
+		}
+		for(int i = 0; i < STICKS.length; i++)	{
+			m_buttons[i] = m_joys[STICKS[i]].getButton(PORTS[i]);
+		}
+		// A few buttons change state every few cycles
+		for(int i = 0; i < PATTERN_LENGTH; i++)	{
+			m_pattern[i] = (i / 7 % 2 == 0 ? 1 << 2 : 0) | (i / 13 % 2 == 0 ? 1 << 10 : 0) | (i / 29 % 2 == 0 ? 1 << 6 : 0);
+		}
+	}
+
+	private void press()	{
+		int buttons = m_pattern[m_index++ & (PATTERN_LENGTH - 1)];
+		m_sticks[0].setButtons(buttons);
+		m_sticks[2].setButtons(buttons);
+	}
+
+	@Benchmark
+	public int perButton()	{
+		press();
+		int pressed = 0;
+		for(int i = 0; i < STICKS.length; i++)	{
+			m_last[i] = m_current[i];
+			m_current[i] = m_joys[STICKS[i]].getRawButton(PORTS[i]);
+			if(m_current[i] && !m_last[i])	{
+				pressed++;
+			}
+		}
+		return pressed;
+	}
+
+	@Benchmark
+	public int bitmask()	{
+		press();
+		for(int i = 0; i < m_joys.length; i++)	{
+			m_joys[i].update();
+		}
+		int pressed = 0;
+		for(int i = 0; i < STICKS.length; i++)	{
+			if(m_buttons[i].wasPressed())	{
+				pressed++;
+			}
+		}
+		return pressed;
+	}
+}
@@ -0,0 +1,52 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.sim.SimRobot;
+
+/**
+ * Cost of one control cycle through the robot's binding table, with no
+ * buttons down, and with buttons pressed and released along a fixed pattern.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyControlsBenchmark {
+	static final int PATTERN_LENGTH = 1024;
+
+	@Param({"idle", "pressing"})
+	public String buttons;
+
+	private SimRobot m_sim;
+	private int[] m_pattern = new int[PATTERN_LENGTH];
+	private int m_index = 0;
+
+	@Setup
+	public void setup()	{
+		m_sim = new SimRobot();
+		if(buttons.equals("pressing"))	{
+			// Intake held in and out, and the intake opened and closed
+			for(int i = 0; i < PATTERN_LENGTH; i++)	{
+				m_pattern[i] = (i / 50 % 3 == 0 ? 1 << 10 : 0) | (i / 50 % 3 == 1 ? 1 << 11 : 0)
+						| (i % 64 == 0 ? 1 << 4 : 0) | (i % 64 == 32 ? 1 << 5 : 0);
+			}
+		}
+	}
+
+	@Benchmark
+	public void run()	{
+		m_sim.articStick.setButtons(m_pattern[m_index++ & (PATTERN_LENGTH - 1)]);
+		m_sim.controls.run();
+	}
+}
@@ -0,0 +1,53 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.util.NerdyCurve;
+
+/**
+ * Cost of shaping one axis value: the precomputed table against computing
+ * the deadband and expo curve directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyCurveBenchmark {
+	static final int PATTERN_LENGTH = 1024;
+
+	@Param({"0", "2"})
+	public double expo;
+
+	private NerdyCurve m_curve;
+	private double[] m_pattern = new double[PATTERN_LENGTH];
+	private int m_index = 0;
+
+	@Setup
+	public void setup()	{
+		m_curve = new NerdyCurve(0.08, expo, 0);
+		// A stick swept back and forth, through the deadband
+		for(int i = 0; i < PATTERN_LENGTH; i++)	{
+			m_pattern[i] = Math.sin(2 * Math.PI * i / PATTERN_LENGTH);
+		}
+	}
+
+	@Benchmark
+	public double table()	{
+		return m_curve.shape(m_pattern[m_index++ & (PATTERN_LENGTH - 1)]);
+	}
+
+	@Benchmark
+	public double direct()	{
+		return m_curve.compute(m_pattern[m_index++ & (PATTERN_LENGTH - 1)]);
+	}
+}
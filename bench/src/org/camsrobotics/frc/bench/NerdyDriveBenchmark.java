@@ -0,0 +1,97 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.camsrobotics.frc.sim.SimRobot;
+import org.camsrobotics.frc.util.NerdyJoystick;
+
+/**
+ * Cost of one NerdyDrive.run() iteration on simulated hardware, with the
+ * joysticks moving along a fixed pattern so every input differs.
+ *
+ * Each drive iteration also steps the physics model, so the gyro heading
+ * changes; the physics benchmark measures that step alone.
+ *
+ * The drive loop must not allocate: each iteration fails if run() allocated
+ * a byte or more per call on average.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyDriveBenchmark {
+	static final int PATTERN_LENGTH = 1024;
+	static final double PERIOD = 0.005;
+
+	@Param({"robotCentric", "fieldCentric"})
+	public String mode;
+
+	private SimRobot m_sim;
+	private double[] m_strafe = new double[PATTERN_LENGTH];
+	private double[] m_forward = new double[PATTERN_LENGTH];
+	private double[] m_rotate = new double[PATTERN_LENGTH];
+	private int m_index = 0;
+	private AllocationGuard m_guard = new AllocationGuard("Drive loop");
+
+	@Setup
+	public void setup()	{
+		m_sim = new SimRobot();
+		if(mode.equals("robotCentric"))	{
+			m_sim.drive.robotCentric();
+		}	else	{
+			m_sim.drive.fieldCentric();
+		}
+
+		for(int i = 0; i < PATTERN_LENGTH; i++)	{
+			double t = 2 * Math.PI * i / PATTERN_LENGTH;
+			m_strafe[i] = 0.8 * Math.sin(3 * t);
+			m_forward[i] = -0.8 * Math.cos(2 * t);
+			m_rotate[i] = 0.5 * Math.sin(t);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setupIteration()	{
+		m_guard.start();
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDownIteration()	{
+		m_guard.check();
+	}
+
+	@Benchmark
+	public double run()	{
+		m_guard.call();
+		int i = m_index;
+		m_sim.leftStick.setAxis(NerdyJoystick.kXAxis, m_strafe[i]);
+		m_sim.leftStick.setAxis(NerdyJoystick.kYAxis, m_forward[i]);
+		m_sim.rightStick.setAxis(NerdyJoystick.kXAxis, m_rotate[i]);
+		m_index = (i + 1) & (PATTERN_LENGTH - 1);
+
+		m_sim.drive.run();
+		m_sim.step(PERIOD);
+		return m_sim.ftLeftDrive.get();
+	}
+
+	/**
+	 * The physics step alone, as a baseline for run()
+	 */
+	@Benchmark
+	public double physics()	{
+		m_sim.step(PERIOD);
+		return m_sim.physics.getHeading();
+	}
+}
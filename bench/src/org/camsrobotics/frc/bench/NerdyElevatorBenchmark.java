@@ -0,0 +1,74 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.sim.SimRobot;
+import org.camsrobotics.frc.util.NerdyJoystick;
+
+/**
+ * Cost of one NerdyElevator.run() iteration on simulated hardware, in each
+ * elevator mode. The autostack modes run their sequences closed loop against
+ * the physics model, and start over whenever a sequence finishes, so the
+ * average covers every step of the sequence that the elevator reaches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyElevatorBenchmark {
+	static final int PATTERN_LENGTH = 1024;
+	static final double PERIOD = 0.01;
+
+	@Param({"manual", "autoStack", "autoDrive", "command"})
+	public String mode;
+
+	private SimRobot m_sim;
+	private double[] m_stick = new double[PATTERN_LENGTH];
+	private int m_index = 0;
+
+	@Setup
+	public void setup()	{
+		m_sim = new SimRobot();
+		m_sim.articStick.setAxis(NerdyJoystick.kThrottleAxis, 1);
+		for(int i = 0; i < PATTERN_LENGTH; i++)	{
+			m_stick[i] = -0.8 * Math.sin(2 * Math.PI * i / PATTERN_LENGTH);
+		}
+		if(mode.equals("command"))	{
+			m_sim.elevator.command(24);
+		}	else	{
+			restart();
+		}
+	}
+
+	private void restart()	{
+		if(mode.equals("autoStack"))	{
+			m_sim.elevator.stackToStack();
+		}	else if(mode.equals("autoDrive"))	{
+			m_sim.elevator.stackToStack2();
+		}
+	}
+
+	@Benchmark
+	public double run()	{
+		int i = m_index;
+		m_sim.articStick.setAxis(NerdyJoystick.kYAxis, m_stick[i]);
+		m_index = (i + 1) & (PATTERN_LENGTH - 1);
+
+		m_sim.elevator.run();
+		m_sim.step(PERIOD);
+		if(!m_sim.elevator.isAutoStacking())	{
+			restart();
+		}
+		return m_sim.elevatorMotor.get();
+	}
+}
@@ -0,0 +1,104 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.sim.SimRobot;
+import org.camsrobotics.frc.util.NerdyJoystick;
+import org.camsrobotics.frc.util.NerdyMath;
+
+/**
+ * Cost of one field centric drive iteration, without the physics step:
+ * NerdyDrive's vector rotation against the earlier formulation, which took
+ * an atan2, two sin/cos pairs and allocated three arrays. Run with -prof gc
+ * for the bytes per call.
+ *
+ * Both read the same joysticks and gyro and drive the same drivebase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyFieldCentricBenchmark {
+	static final int PATTERN_LENGTH = 1024;
+
+	private SimRobot m_sim;
+	private double[] m_strafe = new double[PATTERN_LENGTH];
+	private double[] m_forward = new double[PATTERN_LENGTH];
+	private double[] m_rotate = new double[PATTERN_LENGTH];
+	private double[] m_yaw = new double[PATTERN_LENGTH];
+	private int m_index = 0;
+
+	@Setup
+	public void setup()	{
+		m_sim = new SimRobot();
+		m_sim.drive.fieldCentric();
+
+		for(int i = 0; i < PATTERN_LENGTH; i++)	{
+			double t = 2 * Math.PI * i / PATTERN_LENGTH;
+			m_strafe[i] = 0.8 * Math.sin(3 * t);
+			m_forward[i] = -0.8 * Math.cos(2 * t);
+			m_rotate[i] = 0.5 * Math.sin(t);
+			m_yaw[i] = 180 * Math.sin(5 * t);
+		}
+	}
+
+	private void move()	{
+		int i = m_index;
+		m_sim.leftStick.setAxis(NerdyJoystick.kXAxis, m_strafe[i]);
+		m_sim.leftStick.setAxis(NerdyJoystick.kYAxis, m_forward[i]);
+		m_sim.rightStick.setAxis(NerdyJoystick.kXAxis, m_rotate[i]);
+		m_sim.gyro.setReading(m_yaw[i], 0);
+		m_index = (i + 1) & (PATTERN_LENGTH - 1);
+	}
+
+	@Benchmark
+	public double rotation()	{
+		move();
+		m_sim.drive.run();
+		return m_sim.ftLeftDrive.get();
+	}
+
+	/**
+	 * The field centric drive before the vector rotation
+	 */
+	@Benchmark
+	public double legacy()	{
+		move();
+		NerdyJoystick leftJoy = m_sim.leftJoy;
+		double leftX = leftJoy.getX();
+		double leftY = leftJoy.getTrueY();
+		double rightX = m_sim.rightJoy.getX();
+
+		double gyroAngle = -m_sim.gyro.getYaw();
+		double gyroAngleRads = NerdyMath.degToRads(gyroAngle);
+
+		double desiredAngle = leftJoy.getAngleRad();
+		double relativeAngle = (-(gyroAngleRads) + (desiredAngle) + (Math.PI/2)) % (2*Math.PI);
+
+		double forward = Math.sin(relativeAngle);
+		double strafe = Math.cos(relativeAngle);
+
+		double unscaledJoy[] = {Math.sin(desiredAngle), Math.cos(desiredAngle)};
+		double maxJoy[] = NerdyMath.normalize(unscaledJoy, true);
+		double scalar = NerdyMath.threshold(((leftY * leftY) + (leftX * leftX)) / ((maxJoy[0] * maxJoy[0]) + (maxJoy[1] * maxJoy[1])), -1, 1);
+		double rotate = rightX/2;
+		double ftLeft = (forward + strafe)*scalar + rotate;
+		double ftRight = (-forward + strafe)*scalar + rotate;
+		double bkLeft = (forward - strafe)*scalar + rotate;
+		double bkRight = (-forward - strafe)*scalar + rotate;
+		double unnormalizedValues[] = {ftLeft, ftRight, bkLeft, bkRight};
+		double output[] = NerdyMath.normalize(unnormalizedValues, false);
+
+		m_sim.drivebase.drive(output[0], output[1], output[2], output[3]);
+		return m_sim.ftLeftDrive.get();
+	}
+}
@@ -0,0 +1,68 @@
+package org.camsrobotics.frc.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.camsrobotics.frc.log.NerdyFlightRecorder;
+import org.camsrobotics.frc.sim.SimRobot;
+
+/**
+ * Control thread cost of NerdyFlightRecorder.sample() on simulated hardware.
+ *
+ * Each iteration is a batch of BATCH samples into a fresh recorder whose ring
+ * holds the whole batch, so no sample takes the dropped-record path however
+ * far the writer falls behind. Microseconds per batch are nanoseconds per sample.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 50, batchSize = NerdyFlightRecorderBenchmark.BATCH)
+@Measurement(iterations = 100, batchSize = NerdyFlightRecorderBenchmark.BATCH)
+@Fork(1)
+public class NerdyFlightRecorderBenchmark {
+	static final int BATCH = 1000;
+
+	private SimRobot m_sim;
+	private File m_file;
+	private NerdyFlightRecorder m_recorder;
+
+	@Setup(Level.Trial)
+	public void setupTrial() throws IOException	{
+		m_sim = new SimRobot();
+		m_file = File.createTempFile("flight", ".log");
+		m_file.deleteOnExit();
+	}
+
+	@Setup(Level.Iteration)
+	public void setupIteration() throws IOException	{
+		m_recorder = new NerdyFlightRecorder(m_file, BATCH);
+		m_sim.record(m_recorder);
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDownIteration() throws IOException	{
+		m_recorder.close();
+		if(m_recorder.getDropped() > 0)	{
+			throw new IllegalStateException(m_recorder.getDropped() + " records dropped");
+		}
+	}
+
+	@Benchmark
+	public boolean sample()	{
+		return m_recorder.sample();
+	}
+}
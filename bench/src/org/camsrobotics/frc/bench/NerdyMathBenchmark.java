@@ -0,0 +1,73 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.util.NerdyMath;
+import org.camsrobotics.frc.util.NerdyWheels;
+
+/**
+ * Cost of NerdyMath.normalize on the two and four element arrays the field
+ * centric drive used to normalize every iteration, allocating and into a
+ * reused array, and of normalizing a NerdyWheels in place.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyMathBenchmark {
+	static final int PATTERN_LENGTH = 1024;
+
+	private double[][] m_joy = new double[PATTERN_LENGTH][];
+	private double[][] m_wheels = new double[PATTERN_LENGTH][];
+	private double[] m_dest = new double[4];
+	private NerdyWheels m_wheelVector = new NerdyWheels();
+	private int m_index = 0;
+
+	@Setup
+	public void setup()	{
+		for(int i = 0; i < PATTERN_LENGTH; i++)	{
+			double t = 2 * Math.PI * i / PATTERN_LENGTH;
+			m_joy[i] = new double[] {Math.sin(t), Math.cos(t)};
+			m_wheels[i] = new double[] {1.2 * Math.sin(t), 0.7 * Math.cos(3 * t),
+					0.4 * Math.sin(2 * t), 1.5 * Math.cos(t)};
+		}
+	}
+
+	@Benchmark
+	public double[] normalizeJoystick()	{
+		int i = m_index;
+		m_index = (i + 1) & (PATTERN_LENGTH - 1);
+		return NerdyMath.normalize(m_joy[i], true);
+	}
+
+	@Benchmark
+	public double[] normalizeWheels()	{
+		int i = m_index;
+		m_index = (i + 1) & (PATTERN_LENGTH - 1);
+		return NerdyMath.normalize(m_wheels[i], false);
+	}
+
+	@Benchmark
+	public double[] normalizeWheelsInto()	{
+		int i = m_index;
+		m_index = (i + 1) & (PATTERN_LENGTH - 1);
+		return NerdyMath.normalize(m_wheels[i], m_dest, false);
+	}
+
+	@Benchmark
+	public NerdyWheels normalizeWheelVector()	{
+		int i = m_index;
+		m_index = (i + 1) & (PATTERN_LENGTH - 1);
+		double[] w = m_wheels[i];
+		return m_wheelVector.set(w[0], w[1], w[2], w[3]).normalize(false);
+	}
+}
@@ -0,0 +1,103 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.camsrobotics.frc.sim.SimRobot;
+import org.camsrobotics.frc.util.NerdyOdometry;
+
+/**
+ * Cost of one NerdyOdometry update, with the encoders and gyro set along a
+ * fixed pattern so every reading differs, and of copying the pose. With
+ * fusion, each update also runs the velocity filter on the IMU's
+ * acceleration.
+ *
+ * Updates must not allocate: each iteration fails if update() allocated a
+ * byte or more per call on average.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyOdometryBenchmark {
+	static final int PATTERN_LENGTH = 1024;
+	static final double PERIOD = 0.005;
+
+	@Param({"false", "true"})
+	public boolean fusion;
+
+	private SimRobot m_sim;
+	private NerdyOdometry.Pose m_pose = new NerdyOdometry.Pose();
+	private double[] m_ftLeft = new double[PATTERN_LENGTH];
+	private double[] m_ftRight = new double[PATTERN_LENGTH];
+	private double[] m_bkLeft = new double[PATTERN_LENGTH];
+	private double[] m_bkRight = new double[PATTERN_LENGTH];
+	private double[] m_yaw = new double[PATTERN_LENGTH];
+	private double[] m_accelX = new double[PATTERN_LENGTH];
+	private double[] m_accelY = new double[PATTERN_LENGTH];
+	private int m_index = 0;
+	private AllocationGuard m_guard = new AllocationGuard("Odometry");
+
+	@Setup
+	public void setup()	{
+		m_sim = new SimRobot();
+		m_sim.odometry.setFusion(fusion);
+
+		for(int i = 0; i < PATTERN_LENGTH; i++)	{
+			double t = 2 * Math.PI * i / PATTERN_LENGTH;
+			m_ftLeft[i] = 4000 * Math.sin(t);
+			m_ftRight[i] = -3000 * Math.sin(2 * t);
+			m_bkLeft[i] = 3500 * Math.cos(t);
+			m_bkRight[i] = -4500 * Math.cos(3 * t);
+			m_yaw[i] = 180 * Math.sin(5 * t);
+			m_accelX[i] = 0.5 * Math.cos(3 * t);
+			m_accelY[i] = -0.5 * Math.sin(7 * t);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setupIteration()	{
+		m_guard.start();
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDownIteration()	{
+		m_guard.check();
+	}
+
+	@Benchmark
+	public double update()	{
+		m_guard.call();
+		int i = m_index;
+		m_sim.ftLeftEncoder.setReading(m_ftLeft[i], 0);
+		m_sim.ftRightEncoder.setReading(m_ftRight[i], 0);
+		m_sim.bkLeftEncoder.setReading(m_bkLeft[i], 0);
+		m_sim.bkRightEncoder.setReading(m_bkRight[i], 0);
+		m_sim.gyro.setReading(m_yaw[i], 0);
+		m_sim.gyro.setWorldLinearAccel(m_accelX[i], m_accelY[i], 0);
+		m_index = (i + 1) & (PATTERN_LENGTH - 1);
+		m_sim.clock.step(PERIOD);
+
+		m_sim.odometry.run();
+		return m_sim.odometry.getPose(m_pose).getX();
+	}
+
+	/**
+	 * Copying the pose alone, as another thread would
+	 */
+	@Benchmark
+	public double getPose()	{
+		return m_sim.odometry.getPose(m_pose).getY();
+	}
+}
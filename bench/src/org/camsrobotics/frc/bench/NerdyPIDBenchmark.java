@@ -0,0 +1,55 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.pid.NerdyPID;
+import org.camsrobotics.frc.sim.SimClock;
+import org.camsrobotics.frc.util.NerdyResources;
+import org.camsrobotics.frc.util.NerdyTimer;
+
+/**
+ * Cost of NerdyPID.calculate, with the elevator gains, a simulated clock
+ * advancing 10 ms per call, and a varying measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyPIDBenchmark {
+	static final int PATTERN_LENGTH = 1024;
+	static final double PERIOD = 0.01;
+
+	private SimClock m_clock;
+	private NerdyPID m_pid;
+	private double[] m_measurements = new double[PATTERN_LENGTH];
+	private int m_index = 0;
+
+	@Setup
+	public void setup()	{
+		m_clock = new SimClock();
+		NerdyTimer.setClock(m_clock);
+		m_pid = new NerdyPID(NerdyResources.Constants.articLiftP,
+				NerdyResources.Constants.articLiftI,
+				NerdyResources.Constants.articLiftD).setDesired(20);
+		for(int i = 0; i < PATTERN_LENGTH; i++)	{
+			m_measurements[i] = 20 + 12 * Math.sin(2 * Math.PI * i / PATTERN_LENGTH);
+		}
+	}
+
+	@Benchmark
+	public double calculate()	{
+		int i = m_index;
+		m_index = (i + 1) & (PATTERN_LENGTH - 1);
+		m_clock.step(PERIOD);
+		return m_pid.calculate(m_measurements[i]);
+	}
+}
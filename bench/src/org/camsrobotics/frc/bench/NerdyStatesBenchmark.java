@@ -0,0 +1,60 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.subsystems.NerdyDrive;
+import org.camsrobotics.frc.util.NerdyStates;
+
+/**
+ * Cost of setting and reading back a subsystem state through typed NerdyStates
+ * keys and through a string keyed HashMap, and of a telemetry snapshot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyStatesBenchmark {
+	static final NerdyDrive.State[] STATES = {NerdyDrive.State.kFieldCentric, NerdyDrive.State.kRobotCentric};
+
+	private NerdyStates.Key<NerdyDrive.State> m_key;
+	private HashMap<String, Object> m_map = new HashMap<String, Object>();
+	private NerdyStates.Snapshot m_snapshot = new NerdyStates.Snapshot();
+	private int m_cycle = 0;
+
+	@Setup
+	public void setup()	{
+		m_key = NerdyDrive.kStateKey;
+		for(int i = 0; i < 4; i++)	{
+			NerdyStates.register("Benchmark " + i, Integer.class);
+			m_map.put("Benchmark " + i, null);
+		}
+	}
+
+	@Benchmark
+	public boolean typed()	{
+		NerdyStates.put(m_key, STATES[m_cycle++ & 1]);
+		return NerdyStates.get(m_key) == NerdyDrive.State.kFieldCentric;
+	}
+
+	@Benchmark
+	public boolean hashMap()	{
+		m_map.put("Drive", STATES[m_cycle++ & 1]);
+		return m_map.get("Drive") == NerdyDrive.State.kFieldCentric;
+	}
+
+	@Benchmark
+	public boolean snapshot()	{
+		NerdyStates.put(m_key, STATES[m_cycle++ & 1]);
+		return NerdyStates.read(m_snapshot);
+	}
+}
@@ -0,0 +1,71 @@
+package org.camsrobotics.frc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.camsrobotics.frc.util.NerdyTelemetry;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Cost of one telemetry cycle of a dozen values, two of which change every
+ * cycle, through change-only channels and through direct SmartDashboard puts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NerdyTelemetryBenchmark {
+	static final int NUMBERS = 8;
+	static final String[] KEYS = {"Front Left Encoder Value", "Front Right Encoder Value",
+			"Back Left Encoder Value", "Back Right Encoder Value", "Yaw", "Elevator Current",
+			"Elevator Voltage", "Articulation Encoder"};
+
+	private NerdyTelemetry.Channel[] m_numbers = new NerdyTelemetry.Channel[NUMBERS];
+	private NerdyTelemetry.Channel m_robotState, m_driveState, m_elevatorState, m_intakeState;
+	private int m_cycle = 0;
+
+	@Setup
+	public void setup()	{
+		for(int i = 0; i < NUMBERS; i++)	{
+			m_numbers[i] = NerdyTelemetry.addNumber(KEYS[i], 0.1);
+		}
+		m_robotState = NerdyTelemetry.addString("Robot State");
+		m_driveState = NerdyTelemetry.addString("Drive State");
+		m_elevatorState = NerdyTelemetry.addString("Elevator");
+		m_intakeState = NerdyTelemetry.addString("Intake State");
+	}
+
+	@Benchmark
+	public int channels()	{
+		int cycle = m_cycle++;
+		for(int i = 0; i < NUMBERS; i++)	{
+			m_numbers[i].set(i < 2 ? cycle : i);
+		}
+		m_robotState.set("Teleop");
+		m_driveState.set("Field Centric Mode");
+		m_elevatorState.set("Manual Mode");
+		m_intakeState.set("On");
+		return NerdyTelemetry.publish();
+	}
+
+	@Benchmark
+	public void direct()	{
+		int cycle = m_cycle++;
+		for(int i = 0; i < NUMBERS; i++)	{
+			SmartDashboard.putNumber(KEYS[i], i < 2 ? cycle : i);
+		}
+		SmartDashboard.putString("Robot State", "Teleop");
+		SmartDashboard.putString("Drive State", "Field Centric Mode");
+		SmartDashboard.putString("Elevator", "Manual Mode");
+		SmartDashboard.putString("Intake State", "On");
+	}
+}
@@ -70,7 +70,7 @@ public class IMUProtocol {
     final static int GYRO_UPDATE_MAG_X_VALUE_INDEX = 26;
     final static int GYRO_UPDATE_MAG_Y_VALUE_INDEX = 30;
     final static int GYRO_UPDATE_MAG_Z_VALUE_INDEX = 34;
-    final static int GYRO_UPDATE_TEMP_VALUE_INDEX = 38;
+    final static int GYRO_UPDATE_TEMP_VALUE_INDEX = 38; // 4 hex digits, signed hundredths of a degree
     final static int GYRO_UPDATE_CHECKSUM_INDEX = 42;
     final static int GYRO_UPDATE_TERMINATOR_INDEX = 44;    
     
@@ -182,13 +182,77 @@ public class IMUProtocol {
         return STREAM_CMD_MESSAGE_LENGTH;
     }
 
+    public static int encodeYPRUpdate(byte[] protocol_buffer, float yaw, float pitch, float roll, float compass_heading) {
+        // Header
+        protocol_buffer[0] = PACKET_START_CHAR;
+        protocol_buffer[1] = MSGID_YPR_UPDATE;
+
+        // Data
+        encodeProtocolFloat(yaw, protocol_buffer, YPR_UPDATE_YAW_VALUE_INDEX);
+        encodeProtocolFloat(pitch, protocol_buffer, YPR_UPDATE_PITCH_VALUE_INDEX);
+        encodeProtocolFloat(roll, protocol_buffer, YPR_UPDATE_ROLL_VALUE_INDEX);
+        encodeProtocolFloat(compass_heading, protocol_buffer, YPR_UPDATE_COMPASS_VALUE_INDEX);
+
+        // Footer
+        encodeTermination(protocol_buffer, YPR_UPDATE_MESSAGE_LENGTH, YPR_UPDATE_MESSAGE_LENGTH - 4);
+
+        return YPR_UPDATE_MESSAGE_LENGTH;
+    }
+
+    public static int encodeQuaternionUpdate(byte[] protocol_buffer, QuaternionUpdate u) {
+        // Header
+        protocol_buffer[0] = PACKET_START_CHAR;
+        protocol_buffer[1] = MSGID_QUATERNION_UPDATE;
+
+        // Data
+        encodeProtocolUint16(u.q1, protocol_buffer, QUATERNION_UPDATE_QUAT1_VALUE_INDEX);
+        encodeProtocolUint16(u.q2, protocol_buffer, QUATERNION_UPDATE_QUAT2_VALUE_INDEX);
+        encodeProtocolUint16(u.q3, protocol_buffer, QUATERNION_UPDATE_QUAT3_VALUE_INDEX);
+        encodeProtocolUint16(u.q4, protocol_buffer, QUATERNION_UPDATE_QUAT4_VALUE_INDEX);
+        encodeProtocolUint16(u.accel_x, protocol_buffer, QUATERNION_UPDATE_ACCEL_X_VALUE_INDEX);
+        encodeProtocolUint16(u.accel_y, protocol_buffer, QUATERNION_UPDATE_ACCEL_Y_VALUE_INDEX);
+        encodeProtocolUint16(u.accel_z, protocol_buffer, QUATERNION_UPDATE_ACCEL_Z_VALUE_INDEX);
+        encodeProtocolUint16(u.mag_x, protocol_buffer, QUATERNION_UPDATE_MAG_X_VALUE_INDEX);
+        encodeProtocolUint16(u.mag_y, protocol_buffer, QUATERNION_UPDATE_MAG_Y_VALUE_INDEX);
+        encodeProtocolUint16(u.mag_z, protocol_buffer, QUATERNION_UPDATE_MAG_Z_VALUE_INDEX);
+        encodeProtocolFloat(u.temp_c, protocol_buffer, QUATERNION_UPDATE_TEMP_VALUE_INDEX);
+
+        // Footer
+        encodeTermination(protocol_buffer, QUATERNION_UPDATE_MESSAGE_LENGTH, QUATERNION_UPDATE_MESSAGE_LENGTH - 4);
+
+        return QUATERNION_UPDATE_MESSAGE_LENGTH;
+    }
+
+    public static int encodeGyroUpdate(byte[] protocol_buffer, GyroUpdate u) {
+        // Header
+        protocol_buffer[0] = PACKET_START_CHAR;
+        protocol_buffer[1] = MSGID_GYRO_UPDATE;
+
+        // Data
+        encodeProtocolUint16(u.gyro_x, protocol_buffer, GYRO_UPDATE_GYRO_X_VALUE_INDEX);
+        encodeProtocolUint16(u.gyro_y, protocol_buffer, GYRO_UPDATE_GYRO_Y_VALUE_INDEX);
+        encodeProtocolUint16(u.gyro_z, protocol_buffer, GYRO_UPDATE_GYRO_Z_VALUE_INDEX);
+        encodeProtocolUint16(u.accel_x, protocol_buffer, GYRO_UPDATE_ACCEL_X_VALUE_INDEX);
+        encodeProtocolUint16(u.accel_y, protocol_buffer, GYRO_UPDATE_ACCEL_Y_VALUE_INDEX);
+        encodeProtocolUint16(u.accel_z, protocol_buffer, GYRO_UPDATE_ACCEL_Z_VALUE_INDEX);
+        encodeProtocolUint16(u.mag_x, protocol_buffer, GYRO_UPDATE_MAG_X_VALUE_INDEX);
+        encodeProtocolUint16(u.mag_y, protocol_buffer, GYRO_UPDATE_MAG_Y_VALUE_INDEX);
+        encodeProtocolUint16(u.mag_z, protocol_buffer, GYRO_UPDATE_MAG_Z_VALUE_INDEX);
+        encodeProtocolUint16((short) Math.round(u.temp_c * 100), protocol_buffer, GYRO_UPDATE_TEMP_VALUE_INDEX);
+
+        // Footer
+        encodeTermination(protocol_buffer, GYRO_UPDATE_MESSAGE_LENGTH, GYRO_UPDATE_MESSAGE_LENGTH - 4);
+
+        return GYRO_UPDATE_MESSAGE_LENGTH;
+    }
+
     public static int decodeStreamResponse(byte[] buffer, int offset, int length, StreamResponse r) {
         
         if (length < STREAM_RESPONSE_MESSAGE_LENGTH) {
             return 0;
         }
         if ((buffer[offset+0] == PACKET_START_CHAR) && (buffer[offset+1] == MSG_ID_STREAM_RESPONSE)) {
-            if (!verifyChecksum(buffer, offset+STREAM_RESPONSE_CHECKSUM_INDEX)) {
+            if (!verifyChecksum(buffer, offset, STREAM_RESPONSE_CHECKSUM_INDEX)) {
                 return 0;
             }
 
@@ -213,7 +277,7 @@ public class IMUProtocol {
             return 0;
         }
         if ((buffer[offset+0] == '!') && (buffer[offset+1] == MSGID_STREAM_CMD)) {
-            if (!verifyChecksum(buffer, offset+STREAM_CMD_CHECKSUM_INDEX)) {
+            if (!verifyChecksum(buffer, offset, STREAM_CMD_CHECKSUM_INDEX)) {
                 return 0;
             }
 
@@ -228,7 +292,7 @@ public class IMUProtocol {
             return 0;
         }
         if ((buffer[offset+0] == '!') && (buffer[offset+1] == 'y')) {
-            if (!verifyChecksum(buffer, offset+YPR_UPDATE_CHECKSUM_INDEX)) {
+            if (!verifyChecksum(buffer, offset, YPR_UPDATE_CHECKSUM_INDEX)) {
                 return 0;
             }
 
@@ -247,7 +311,7 @@ public class IMUProtocol {
             return 0;
         }
         if ((buffer[offset+0] == PACKET_START_CHAR) && (buffer[offset+1] == MSGID_QUATERNION_UPDATE)) {
-            if (!verifyChecksum(buffer, offset+QUATERNION_UPDATE_CHECKSUM_INDEX)) {
+            if (!verifyChecksum(buffer, offset, QUATERNION_UPDATE_CHECKSUM_INDEX)) {
                 return 0;
             }
 
@@ -273,7 +337,7 @@ public class IMUProtocol {
             return 0;
         }
         if ((buffer[offset+0] == PACKET_START_CHAR) && (buffer[offset+1] == MSGID_GYRO_UPDATE)) {
-            if (!verifyChecksum(buffer, offset+GYRO_UPDATE_CHECKSUM_INDEX)) {
+            if (!verifyChecksum(buffer, offset, GYRO_UPDATE_CHECKSUM_INDEX)) {
                 return 0;
             }
 
@@ -286,7 +350,7 @@ public class IMUProtocol {
             u.mag_x = decodeProtocolUint16(buffer, offset+GYRO_UPDATE_MAG_X_VALUE_INDEX);
             u.mag_y = decodeProtocolUint16(buffer, offset+GYRO_UPDATE_MAG_Y_VALUE_INDEX);
             u.mag_z = decodeProtocolUint16(buffer, offset+GYRO_UPDATE_MAG_Z_VALUE_INDEX);
-            u.temp_c = decodeProtocolFloat(buffer, offset+GYRO_UPDATE_TEMP_VALUE_INDEX);
+            u.temp_c = decodeProtocolUint16(buffer, offset+GYRO_UPDATE_TEMP_VALUE_INDEX) / 100.0f;
             return GYRO_UPDATE_MESSAGE_LENGTH;
         }
         return 0;
@@ -320,38 +384,118 @@ public class IMUProtocol {
         dest[offset + 1] = hexArray[v & 0x0F];
     }
 
-    public static short decodeProtocolUint16(byte[] uint16_string, int offset) {
-        short decoded_uint16 = 0;
-        int shift_left = 12;
-        for (int i = offset + 0; i < offset + 4; i++) {
-            byte digit = (byte) (uint16_string[i] <= '9' ? uint16_string[i] - '0' : ((uint16_string[i] - 'A') + 10));
-            decoded_uint16 += (((short) digit) << shift_left);
-            shift_left -= 4;
+    public static void encodeProtocolUint16(short value, byte[] dest, int offset) {
+        byteToHex((byte) (value >> 8), dest, offset);
+        byteToHex((byte) value, dest, offset + 2);
+    }
+
+    // Value of each byte when read as an ASCII hex digit, indexed by (byte & 0xFF).
+    // Entries for non-hex bytes follow the same arithmetic the decoders have
+    // always applied, so results are unchanged for any input.
+    final static byte[] hexDigitValues = new byte[256];
+
+    // Powers of ten up to the longest fractional part of a protocol float.
+    // All are exact in single precision, so mantissa / power is correctly rounded.
+    final static float[] floatPowersOfTen = new float[PROTOCOL_FLOAT_LENGTH + 1];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            byte c = (byte) i;
+            hexDigitValues[i] = (byte) (c <= '9' ? c - '0' : ((c - 'A') + 10));
+        }
+        float power = 1.0f;
+        for (int i = 0; i < floatPowersOfTen.length; i++) {
+            floatPowersOfTen[i] = power;
+            power *= 10.0f;
         }
-        return decoded_uint16;
+    }
+
+    public static short decodeProtocolUint16(byte[] uint16_string, int offset) {
+        return (short) ((hexDigitValues[uint16_string[offset] & 0xFF] << 12)
+                + (hexDigitValues[uint16_string[offset + 1] & 0xFF] << 8)
+                + (hexDigitValues[uint16_string[offset + 2] & 0xFF] << 4)
+                + hexDigitValues[uint16_string[offset + 3] & 0xFF]);
     }
 
     public static boolean verifyChecksum(byte[] buffer, int content_length) {
+        return verifyChecksum(buffer, 0, content_length);
+    }
+
+    public static boolean verifyChecksum(byte[] buffer, int offset, int content_length) {
         // Calculate Checksum
         byte checksum = 0;
-        for (int i = 0; i < content_length; i++) {
+        for (int i = offset; i < offset + content_length; i++) {
             checksum += buffer[i];
         }
 
         // Decode Checksum
-        byte decoded_checksum = decodeUint8(buffer, content_length);
+        byte decoded_checksum = decodeUint8(buffer, offset + content_length);
 
         return (checksum == decoded_checksum);
     }
 
     public static byte decodeUint8(byte[] checksum, int offset) {
-        byte first_digit = (byte) (checksum[0 + offset] <= '9' ? checksum[0 + offset] - '0' : ((checksum[0 + offset] - 'A') + 10));
-        byte second_digit = (byte) (checksum[1 + offset] <= '9' ? checksum[1 + offset] - '0' : ((checksum[1 + offset] - 'A') + 10));
+        byte first_digit = hexDigitValues[checksum[0 + offset] & 0xFF];
+        byte second_digit = hexDigitValues[checksum[1 + offset] & 0xFF];
         byte decoded_checksum = (byte) ((first_digit * 16) + second_digit);
         return decoded_checksum;
     }
 
+    // Protocol floats are a sign character (' ' or '-') followed by 
+    // three integer digits, a decimal point, and two fractional digits.
+    
+    public static void encodeProtocolFloat(float f, byte[] dest, int offset) {
+        int integer_part = Math.min(Math.abs((int) f), 999);
+        int fractional_part = Math.abs((int) ((f - (int) f) * 100));
+        dest[offset + 0] = (byte) (f < 0 ? '-' : ' ');
+        dest[offset + 1] = (byte) ('0' + integer_part / 100);
+        dest[offset + 2] = (byte) ('0' + (integer_part / 10) % 10);
+        dest[offset + 3] = (byte) ('0' + integer_part % 10);
+        dest[offset + 4] = '.';
+        dest[offset + 5] = (byte) ('0' + fractional_part / 10);
+        dest[offset + 6] = (byte) ('0' + fractional_part % 10);
+    }
+
     public static float decodeProtocolFloat(byte[] buffer, int offset) {
+        // Accumulate the digits as an integer mantissa, then scale once.
+        // Both operands are exact floats, so the single division rounds
+        // exactly as Float.parseFloat() does; anything other than plain
+        // sign/digits/point falls back to Float.parseFloat().
+        int end = offset + PROTOCOL_FLOAT_LENGTH;
+        int i = offset;
+        while ((i < end) && (buffer[i] == ' ')) {
+            i++;
+        }
+        boolean negative = false;
+        if ((i < end) && ((buffer[i] == '-') || (buffer[i] == '+'))) {
+            negative = (buffer[i] == '-');
+            i++;
+        }
+        int mantissa = 0;
+        int digits = 0;
+        int fractional_digits = -1;
+        for (; i < end; i++) {
+            byte c = buffer[i];
+            if ((c >= '0') && (c <= '9')) {
+                mantissa = (mantissa * 10) + (c - '0');
+                digits++;
+                if (fractional_digits >= 0) {
+                    fractional_digits++;
+                }
+            } else if ((c == '.') && (fractional_digits < 0)) {
+                fractional_digits = 0;
+            } else {
+                return parseProtocolFloat(buffer, offset);
+            }
+        }
+        if (digits == 0) {
+            return parseProtocolFloat(buffer, offset);
+        }
+        float value = (fractional_digits > 0) ? ((float) mantissa / floatPowersOfTen[fractional_digits]) : (float) mantissa;
+        return negative ? -value : value;
+    }
+
+    static float parseProtocolFloat(byte[] buffer, int offset) {
         String float_string = new String(buffer, offset, PROTOCOL_FLOAT_LENGTH);
         return Float.parseFloat(float_string);
     }
@@ -0,0 +1,124 @@
+package com.kauailabs.nav6;
+
+/**
+ * Fixed-size circular receive buffer for the nav6 serial stream.
+ *
+ * Every byte is stored twice, once at its ring position and once at the
+ * ring position plus the capacity.  As a result the unread bytes are always
+ * contiguous in the backing array, and can be handed directly to the
+ * IMUProtocol decoders without copying or wrapping.  Partial packets are
+ * kept in the buffer until the remainder of the packet arrives.
+ *
+ * The buffer performs no allocation after construction.  It is not thread
+ * safe, and is intended to be owned by the IMU serial thread.
+ */
+public class IMUReceiveBuffer {
+
+    private final byte[] buffer;
+    private final int capacity;
+    private int read_index;
+    private int count;
+
+    /**
+     * Constructs a receive buffer.
+     * @param capacity Maximum number of unread bytes held by the buffer
+     */
+    public IMUReceiveBuffer(int capacity) {
+        this.capacity = capacity;
+        buffer = new byte[capacity * 2];
+        clear();
+    }
+
+    /**
+     * Appends received bytes to the buffer.  If the buffer is full, the
+     * oldest unread bytes are discarded to make room.
+     * @param data Source array
+     * @param offset Offset of the first byte to append
+     * @param length Number of bytes to append
+     * @return The number of unread bytes which were discarded
+     */
+    public int write(byte[] data, int offset, int length) {
+        int discarded = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int write_index = read_index + count;
+            if (write_index >= capacity) {
+                write_index -= capacity;
+            }
+            buffer[write_index] = data[i];
+            buffer[write_index + capacity] = data[i];
+            if (count == capacity) {
+                read_index++;
+                if (read_index >= capacity) {
+                    read_index = 0;
+                }
+                discarded++;
+            } else {
+                count++;
+            }
+        }
+        return discarded;
+    }
+
+    /**
+     * Returns the backing array.  The unread bytes start at getReadIndex()
+     * and are contiguous for getCount() bytes.
+     * @return The backing array
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the offset into the backing array of the oldest unread byte.
+     * @return The read offset
+     */
+    public int getReadIndex() {
+        return read_index;
+    }
+
+    /**
+     * Returns the number of unread bytes.
+     * @return The unread byte count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of unread bytes up to and including the last
+     * occurrence of the given byte, or 0 if it is not present.
+     * @param value The byte to search for (typically the packet terminator)
+     * @return The length of the unread prefix ending in value
+     */
+    public int lengthThroughLast(byte value) {
+        for (int i = read_index + count - 1; i >= read_index; i--) {
+            if (buffer[i] == value) {
+                return i - read_index + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Marks bytes as read.
+     * @param length Number of bytes to consume from the front of the buffer
+     */
+    public void consume(int length) {
+        if (length > count) {
+            length = count;
+        }
+        read_index += length;
+        if (read_index >= capacity) {
+            read_index -= capacity;
+        }
+        count -= length;
+    }
+
+    /**
+     * Discards all unread bytes.
+     */
+    public void clear() {
+        read_index = 0;
+        count = 0;
+    }
+}
@@ -13,10 +13,13 @@ package com.kauailabs.nav6.frc;
 import java.util.Arrays;
 
 import com.kauailabs.nav6.IMUProtocol;
+import com.kauailabs.nav6.IMUReceiveBuffer;
+
+import org.camsrobotics.frc.hal.NerdySerialPort;
+import org.camsrobotics.frc.util.NerdyTimer;
 
 import edu.wpi.first.wpilibj.PIDSource;
 import edu.wpi.first.wpilibj.SensorBase;
-import edu.wpi.first.wpilibj.SerialPort;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
 import edu.wpi.first.wpilibj.tables.ITable;
@@ -37,8 +40,10 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
     static final byte   DEFAULT_UPDATE_RATE_HZ  = 100;
     static final short  DEFAULT_ACCEL_FSR_G     = 2;
     static final short  DEFAULT_GYRO_FSR_DPS    = 2000;
+    static final int    RECEIVE_BUFFER_LENGTH   = 512;
+    static final double GYRO_STREAM_TIMEOUT_SEC = 0.5;
     
-    SerialPort serial_port;
+    NerdySerialPort serial_port;
     float yaw_history[];
     int next_yaw_history_index;
     double user_yaw_offset;
@@ -46,20 +51,29 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
     Thread m_thread;
     protected byte update_rate_hz;
 
-    volatile float yaw;
-    volatile float pitch;
-    volatile float roll;
-    volatile float compass_heading;
+    IMUOrientationState orientation;
     volatile int update_count = 0;
+    volatile int yaw_update_count = 0;
+    volatile long last_yaw_update_arrival_ns;
+    int last_observed_yaw_update_count = 0;
+    IMULatencyHistogram yaw_latency_histogram = new IMULatencyHistogram();
     volatile int byte_count = 0;
     volatile float nav6_yaw_offset_degrees;
     volatile short accel_fsr_g;
     volatile short gyro_fsr_dps;
     volatile short flags;    
 
-    double last_update_time;
+    volatile double last_update_time;
+    volatile double last_gyro_update_time;
+    volatile float raw_gyro_x;
+    volatile float raw_gyro_y;
+    volatile float raw_gyro_z;
+    float previous_yaw;
     boolean stop = false;
+    protected boolean gyro_stream_enabled;
     private IMUProtocol.YPRUpdate ypr_update_data;
+    private IMUProtocol.GyroUpdate gyro_update_data;
+    private IMUReceiveBuffer receive_buffer;
     protected byte update_type = IMUProtocol.MSGID_YPR_UPDATE;
     
     /**
@@ -69,20 +83,38 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
      * 
      * Note that increasing the update rate may increase the 
      * CPU utilization.
-     * @param serial_port BufferingSerialPort object to use
+     * @param serial_port Serial port object to use
+     * @param update_rate_hz Custom Update Rate (Hz)
+     */
+    public IMU(NerdySerialPort serial_port, byte update_rate_hz) {
+        this(serial_port, update_rate_hz, false);
+    }
+
+    /**
+     * Constructs the IMU class in multi-stream mode, requesting raw gyro
+     * updates in addition to the orientation updates.  Gyro updates are
+     * used to report the true angular rate (see getRate()).
+     * 
+     * The gyro stream is requested before the orientation stream.  nav6
+     * firmware which only supports a single stream keeps the orientation
+     * stream, in which case getRate() is derived from successive yaw
+     * values instead.
+     * @param serial_port Serial port object to use
      * @param update_rate_hz Custom Update Rate (Hz)
+     * @param stream_gyro True to also request raw gyro updates
      */
-    public IMU(SerialPort serial_port, byte update_rate_hz) {
+    public IMU(NerdySerialPort serial_port, byte update_rate_hz, boolean stream_gyro) {
         ypr_update_data = new IMUProtocol.YPRUpdate();
+        gyro_update_data = new IMUProtocol.GyroUpdate();
+        gyro_stream_enabled = stream_gyro;
+        receive_buffer = new IMUReceiveBuffer(RECEIVE_BUFFER_LENGTH);
         this.update_rate_hz = update_rate_hz;
         flags = 0;
         accel_fsr_g = DEFAULT_ACCEL_FSR_G;
         gyro_fsr_dps = DEFAULT_GYRO_FSR_DPS;
         this.serial_port = serial_port;
         yaw_history = new float[YAW_HISTORY_LENGTH];
-        yaw = (float) 0.0;
-        pitch = (float) 0.0;
-        roll = (float) 0.0;
+        orientation = new IMUOrientationState();
         try {
             serial_port.reset();
         } catch (RuntimeException ex) {
@@ -96,9 +128,9 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
     /**
      * Constructs the IMU class, using the default update rate.  
      * 
-     * @param serial_port BufferingSerialPort object to use
+     * @param serial_port Serial port object to use
      */
-    public IMU(SerialPort serial_port) {
+    public IMU(NerdySerialPort serial_port) {
         this(serial_port,DEFAULT_UPDATE_RATE_HZ);
     }
 
@@ -119,14 +151,27 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
 
         // set the nav6 into the desired update mode
         byte stream_command_buffer[] = new byte[256];
-        int packet_length = IMUProtocol.encodeStreamCommand( stream_command_buffer, update_type, update_rate_hz ); 
         try {
-            serial_port.write( stream_command_buffer, packet_length );
+            sendStreamCommands( stream_command_buffer );
         } catch (RuntimeException ex) {
                 ex.printStackTrace();
         }
     }
 
+    // Requests the configured update streams.  The orientation stream is
+    // requested last, so that it remains selected on firmware which only
+    // supports one stream at a time.
+    
+    private void sendStreamCommands( byte[] stream_command ) {
+        int packet_length;
+        if ( gyro_stream_enabled ) {
+            packet_length = IMUProtocol.encodeStreamCommand( stream_command, IMUProtocol.MSGID_GYRO_UPDATE, update_rate_hz );
+            serial_port.write( stream_command, packet_length );
+        }
+        packet_length = IMUProtocol.encodeStreamCommand( stream_command, update_type, update_rate_hz );
+        serial_port.write( stream_command, packet_length );
+    }
+
     protected void setStreamResponse( IMUProtocol.StreamResponse response ) {
         
         flags = response.flags;
@@ -145,12 +190,11 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
 
     private void setYawPitchRoll(float yaw, float pitch, float roll, float compass_heading) {
 
-        this.yaw = yaw;
-        this.pitch = pitch;
-        this.roll = roll;
-        this.compass_heading = compass_heading;
-
-        updateYawHistory(this.yaw);
+        orientation.beginUpdate();
+        orientation.setYawPitchRoll(yaw, pitch, roll, compass_heading);
+        updateYawHistory(yaw);
+        orientation.setTimestamp(last_update_time);
+        orientation.endUpdate();
     }
 
     protected void updateYawHistory(float curr_yaw) {
@@ -159,10 +203,38 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
             next_yaw_history_index = 0;
         }
         yaw_history[next_yaw_history_index] = curr_yaw;
-        last_update_time = Timer.getFPGATimestamp();
+        double update_time = NerdyTimer.getTime();
+        
+        // Without a live gyro stream, derive the yaw rate from successive yaw values
+        if ( !isGyroStreaming(update_time) && ( last_update_time > 0.0 ) && ( update_time > last_update_time ) ) {
+            float yaw_delta = curr_yaw - previous_yaw;
+            if ( yaw_delta < -180 ) yaw_delta += 360;
+            if ( yaw_delta > 180 ) yaw_delta -= 360;
+            orientation.setYawRate((float) (yaw_delta / (update_time - last_update_time)));
+        }
+        previous_yaw = curr_yaw;
+        last_update_time = update_time;
         next_yaw_history_index++;
     }
 
+    private void setGyro(IMUProtocol.GyroUpdate raw_update) {
+
+        float dps_per_lsb = gyro_fsr_dps / 32768.0f;
+        raw_gyro_x = raw_update.gyro_x * dps_per_lsb;
+        raw_gyro_y = raw_update.gyro_y * dps_per_lsb;
+        raw_gyro_z = raw_update.gyro_z * dps_per_lsb;
+        last_gyro_update_time = NerdyTimer.getTime();
+        
+        // Yaw increases clockwise, while the gyro z axis is counter-clockwise positive
+        orientation.beginUpdate();
+        orientation.setYawRate(-raw_gyro_z);
+        orientation.endUpdate();
+    }
+
+    private boolean isGyroStreaming(double now) {
+        return ( now - last_gyro_update_time ) <= GYRO_STREAM_TIMEOUT_SEC;
+    }
+
     private double getAverageFromYawHistory() {
 
         double yaw_history_sum = 0.0;
@@ -178,8 +250,8 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
      * reported by the nav6 IMU.
      * @return The current pitch value in degrees (-180 to 180).
      */
-        public float getPitch() {
-        return pitch;
+    public float getPitch() {
+        return orientation.getPitch();
     }
 
     /**
@@ -188,7 +260,7 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
      * @return The current roll value in degrees (-180 to 180).
      */
     public float getRoll() {
-        return roll;
+        return orientation.getRoll();
     }
 
     /**
@@ -201,7 +273,12 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
      * @return The current yaw value in degrees (-180 to 180).
      */
     public float getYaw() {
-        float calculated_yaw = (float) (this.yaw - user_yaw_offset);
+        int current_update_count = yaw_update_count;
+        if (current_update_count != last_observed_yaw_update_count) {
+            last_observed_yaw_update_count = current_update_count;
+            yaw_latency_histogram.record(System.nanoTime() - last_yaw_update_arrival_ns);
+        }
+        float calculated_yaw = (float) (orientation.getYaw() - user_yaw_offset);
         if (calculated_yaw < -180) {
             calculated_yaw += 360;
         }
@@ -211,6 +288,68 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
         return calculated_yaw;
     }
 
+    /**
+     * Returns the current rate of change of yaw (in degrees per second),
+     * with the same sign convention as getYaw().
+     * 
+     * When raw gyro updates are being received (see the multi-stream
+     * constructor), this is the gyro's measured angular rate.  Otherwise
+     * it is derived from the two most recent yaw values.
+     * @return The current yaw rate in degrees per second.
+     */
+    public float getRate() {
+        return orientation.getYawRate();
+    }
+
+    /**
+     * Returns true if raw gyro updates have been received recently,
+     * in which case getRate() reports the measured gyro rate.
+     * @return Returns true if the gyro stream is active.
+     */
+    public boolean isGyroStreaming() {
+        return isGyroStreaming(NerdyTimer.getTime());
+    }
+
+    /**
+     * Returns the most recent raw angular rate about the nav6 x-axis
+     * (in degrees per second), from the gyro update stream.
+     * @return The x-axis angular rate (degrees per second).
+     */
+    public float getRawGyroX() {
+        return raw_gyro_x;
+    }
+
+    /**
+     * Returns the most recent raw angular rate about the nav6 y-axis
+     * (in degrees per second), from the gyro update stream.
+     * @return The y-axis angular rate (degrees per second).
+     */
+    public float getRawGyroY() {
+        return raw_gyro_y;
+    }
+
+    /**
+     * Returns the most recent raw angular rate about the nav6 z-axis
+     * (in degrees per second), from the gyro update stream.
+     * @return The z-axis angular rate (degrees per second).
+     */
+    public float getRawGyroZ() {
+        return raw_gyro_z;
+    }
+
+    /**
+     * Returns the histogram of yaw update latencies.  Each sample is the
+     * time from a nav6 update packet arriving on the serial port until the
+     * first getYaw() call which returned the value it carried.
+     * 
+     * The histogram is recorded by the thread calling getYaw(), and should
+     * be read from that same thread.
+     * @return The yaw latency histogram.
+     */
+    public IMULatencyHistogram getYawLatencyHistogram() {
+        return yaw_latency_histogram;
+    }
+
     /**
      * Returns the current tilt-compensated compass heading 
      * value (in degrees, from 0 to 360) reported by the nav6 IMU.
@@ -221,7 +360,29 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
      * @return The current tilt-compensated compass heading, in degrees (0-360).
      */
     public float getCompassHeading() {
-        return compass_heading;
+        return orientation.getCompassHeading();
+    }
+
+    /**
+     * Copies a consistent snapshot of the current orientation state into
+     * the given object.  All fields in the snapshot come from the same
+     * update, and the yaw value includes the user-specified yaw offset
+     * (see getYaw()).
+     * 
+     * The snapshot is taken without locking, and does not block the
+     * IMU update thread.  The destination object may be reused.
+     * @param dest The snapshot to fill in.
+     */
+    public void getOrientation(IMUOrientation dest) {
+        orientation.read(dest);
+        float calculated_yaw = (float) (dest.yaw - user_yaw_offset);
+        if (calculated_yaw < -180) {
+            calculated_yaw += 360;
+        }
+        if (calculated_yaw > 180) {
+            calculated_yaw -= 360;
+        }
+        dest.yaw = calculated_yaw;
     }
 
     /**
@@ -244,7 +405,7 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
      * @return Returns true if a valid update has been received within the last second.
      */
     public boolean isConnected() {
-        double time_since_last_update = Timer.getFPGATimestamp() - this.last_update_time;
+        double time_since_last_update = NerdyTimer.getTime() - this.last_update_time;
         return time_since_last_update <= 1.0;
     }
 
@@ -325,14 +486,27 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
         return "Gyro";
     }
 
-    // Invoked when a new packet is received; returns the packet length if the packet 
-    // is valid, based upon IMU Protocol definitions; otherwise, returns 0
+    // Invoked when an update packet start is found; dispatches on the message ID
+    // and returns the packet length if the packet is valid, based upon IMU 
+    // Protocol definitions; otherwise, returns 0.  received_data[offset] is the
+    // packet start character and at least two bytes remain.
     
     protected int decodePacketHandler(byte[] received_data, int offset, int bytes_remaining) {
         
-        int packet_length = IMUProtocol.decodeYPRUpdate(received_data, offset, bytes_remaining, ypr_update_data);
-        if (packet_length > 0) {
-            setYawPitchRoll(ypr_update_data.yaw,ypr_update_data.pitch,ypr_update_data.roll,ypr_update_data.compass_heading);
+        int packet_length = 0;
+        switch (received_data[offset + 1]) {
+        case IMUProtocol.MSGID_YPR_UPDATE:
+            packet_length = IMUProtocol.decodeYPRUpdate(received_data, offset, bytes_remaining, ypr_update_data);
+            if (packet_length > 0) {
+                setYawPitchRoll(ypr_update_data.yaw,ypr_update_data.pitch,ypr_update_data.roll,ypr_update_data.compass_heading);
+            }
+            break;
+        case IMUProtocol.MSGID_GYRO_UPDATE:
+            packet_length = IMUProtocol.decodeGyroUpdate(received_data, offset, bytes_remaining, gyro_update_data);
+            if (packet_length > 0) {
+                setGyro(gyro_update_data);
+            }
+            break;
         }
         return packet_length;
     }
@@ -357,13 +531,13 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
         IMUProtocol.StreamResponse response = new IMUProtocol.StreamResponse();
 
         byte[] stream_command = new byte[256];
+        byte[] received_data = new byte[256];
         
-        int cmd_packet_length = IMUProtocol.encodeStreamCommand( stream_command, update_type, update_rate_hz ); 
         try {
             serial_port.reset();
-            serial_port.write( stream_command, cmd_packet_length );
+            sendStreamCommands( stream_command );
             serial_port.flush();
-            last_stream_command_sent_timestamp = Timer.getFPGATimestamp();
+            last_stream_command_sent_timestamp = NerdyTimer.getTime();
         } catch (RuntimeException ex) {
                 ex.printStackTrace();
         }
@@ -371,79 +545,91 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
         while (!stop) {
             try {
 
-                // Wait, with delays to conserve CPU resources, until
-                // bytes have arrived.
-                
-                while ( !stop && ( serial_port.getBytesReceived() < 1 ) ) {
-                    Timer.delay(0.1);
-                }
+                // Block until a message terminator arrives (termination
+                // is enabled above), or until the serial port times out.
+                // This wakes the thread as soon as each packet is complete,
+                // rather than polling for received bytes.
 
                 int packets_received = 0;
-                byte[] received_data = serial_port.read(256);
-                int bytes_read = received_data.length;
+                int bytes_read = serial_port.read(received_data, received_data.length);
+                long arrival_time_ns = System.nanoTime();
                 if (bytes_read > 0) {
                     byte_count += bytes_read;
+                    receive_buffer.write(received_data, 0, bytes_read);
+
+                    // Only scan through the last terminator; any trailing
+                    // partial packet stays in the receive buffer until the
+                    // rest of it arrives with the next read.
+                    
+                    byte[] buffered_data = receive_buffer.getBuffer();
+                    int start = receive_buffer.getReadIndex();
+                    int complete_length = receive_buffer.lengthThroughLast(IMUProtocol.STREAM_MSG_TERMINATION_CHAR);
                     int i = 0;
                     // Scan the buffer looking for valid packets
-                    while (i < bytes_read) {
+                    while (i < complete_length) {
                                                 
-                        // Attempt to decode a packet
+                        // Attempt to decode a packet, dispatching on its message ID
                         
-                        int bytes_remaining = bytes_read - i;
-                        int packet_length = decodePacketHandler(received_data,i,bytes_remaining);
+                        int offset = start + i;
+                        int bytes_remaining = complete_length - i;
+                        int packet_length = 0;
+                        if ( ( buffered_data[offset] == IMUProtocol.PACKET_START_CHAR ) && ( bytes_remaining > 1 ) ) {
+                            byte message_id = buffered_data[offset + 1];
+                            if ( message_id == IMUProtocol.MSG_ID_STREAM_RESPONSE ) {
+                                packet_length = IMUProtocol.decodeStreamResponse(buffered_data, offset, bytes_remaining, response);
+                                if (packet_length > 0) {
+                                    setStreamResponse(response);
+                                    stream_response_received = true;
+                                }
+                            } else {
+                                packet_length = decodePacketHandler(buffered_data, offset, bytes_remaining);
+                                if (packet_length > 0) {
+                                    update_count++;
+                                    if ( message_id != IMUProtocol.MSGID_GYRO_UPDATE ) {
+                                        last_yaw_update_arrival_ns = arrival_time_ns;
+                                        yaw_update_count++;
+                                    }
+                                }
+                            }
+                        }
                         if (packet_length > 0) {
                             packets_received++;
-                            update_count++;
                             i += packet_length;
-                        } 
-                        else 
-                        {
-                            packet_length = IMUProtocol.decodeStreamResponse(received_data, i, bytes_remaining, response);
-                            if (packet_length > 0) {
-                                packets_received++;
-                                setStreamResponse(response);
-                                stream_response_received = true;
-                                i += packet_length;
-                            }
-                            else {
-                                // current index is not the start of a valid packet; increment
-                                i++;
-                            }
+                        } else {
+                            // current index is not the start of a valid packet; increment
+                            i++;
                         }
                     }
+                    receive_buffer.consume(complete_length);
                 
-                    if ( ( packets_received == 0 ) && ( bytes_read == 256 ) ) {
+                    if ( ( packets_received == 0 ) && ( bytes_read == received_data.length ) ) {
                         // Workaround for issue found in Java SerialPort implementation:
                         // No packets received and 256 bytes received; this
                         // condition occurs in the Java SerialPort.  In this case,
                         // reset the serial port.
                         serial_port.reset();
+                        receive_buffer.clear();
                     }
-                    
-                    // If a stream configuration response has not been received within three seconds
-                    // of operation, (re)send a stream configuration request
-                    
-                    if ( !stream_response_received && ((Timer.getFPGATimestamp() - last_stream_command_sent_timestamp ) > 3.0 ) ) {
-                        cmd_packet_length = IMUProtocol.encodeStreamCommand( stream_command, update_type, update_rate_hz ); 
-                        try {
-                            last_stream_command_sent_timestamp = Timer.getFPGATimestamp();
-                            serial_port.write( stream_command, cmd_packet_length );
-                            serial_port.flush();
-                        } catch (RuntimeException ex2) {
-                                ex2.printStackTrace();
-                        }                                                    
-                    }
-                    else {                        
-                        // If no bytes remain in the buffer, and not awaiting a response, sleep a bit
-                        if ( stream_response_received && ( serial_port.getBytesReceived() == 0 ) ) {
-                            Timer.delay(1.0/update_rate_hz);
-                        }        
-                    }
+                }
+
+                // If a stream configuration response has not been received within three seconds
+                // of operation, (re)send a stream configuration request
+                
+                if ( !stream_response_received && ((NerdyTimer.getTime() - last_stream_command_sent_timestamp ) > 3.0 ) ) {
+                    try {
+                        last_stream_command_sent_timestamp = NerdyTimer.getTime();
+                        sendStreamCommands( stream_command );
+                        serial_port.flush();
+                    } catch (RuntimeException ex2) {
+                            ex2.printStackTrace();
+                    }                                                    
                 }
             } catch (RuntimeException ex) {
                 // This exception typically indicates a Timeout
                 stream_response_received = false;
                 ex.printStackTrace();
+                // Back off briefly so a failed port does not spin this thread
+                Timer.delay(0.1);
             }
         }
     }
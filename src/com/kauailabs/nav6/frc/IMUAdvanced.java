@@ -13,7 +13,7 @@ import java.util.Arrays;
 
 import com.kauailabs.nav6.IMUProtocol;
 
-import edu.wpi.first.wpilibj.SerialPort;
+import org.camsrobotics.frc.hal.NerdySerialPort;
 
 /**
  * The IMUAdvanced class provides a simplified interface to advanced capabilities
@@ -27,9 +27,7 @@ import edu.wpi.first.wpilibj.SerialPort;
  */public class IMUAdvanced extends IMU {
 
     private IMUProtocol.QuaternionUpdate quaternion_update_data;    
-    volatile float world_linear_accel_x;
-    volatile float world_linear_accel_y;
-    volatile float world_linear_accel_z;
+    private IMUOrientation quaternion_result;
     volatile float temp_c;
     float world_linear_accel_history[];
     int   next_world_linear_accel_history_index;
@@ -46,12 +44,25 @@ import edu.wpi.first.wpilibj.SerialPort;
      * CPU utilization.  Note that calculation of some 
      * advanced values utilizes additional cpu cycles, when compared
      * to the IMU class.
-     * @param serial_port BufferingSerialPort object to use
+     * @param serial_port Serial port object to use
      * @param update_rate_hz Custom Update Rate (Hz)
      */
-    public IMUAdvanced(SerialPort serial_port, byte update_rate_hz) {
-        super(serial_port,update_rate_hz);
+    public IMUAdvanced(NerdySerialPort serial_port, byte update_rate_hz) {
+        this(serial_port, update_rate_hz, false);
+    }
+
+    /**
+     * Constructs the IMUAdvanced class in multi-stream mode, requesting
+     * raw gyro updates in addition to quaternion updates.  Gyro updates
+     * are used to report the true angular rate (see getRate()).
+     * @param serial_port Serial port object to use
+     * @param update_rate_hz Custom Update Rate (Hz)
+     * @param stream_gyro True to also request raw gyro updates
+     */
+    public IMUAdvanced(NerdySerialPort serial_port, byte update_rate_hz, boolean stream_gyro) {
+        super(serial_port,update_rate_hz,stream_gyro);
         quaternion_update_data = new IMUProtocol.QuaternionUpdate();
+        quaternion_result = new IMUOrientation();
         update_type = IMUProtocol.MSGID_QUATERNION_UPDATE;
     }
     
@@ -60,15 +71,18 @@ import edu.wpi.first.wpilibj.SerialPort;
      * 
      * Note that calculation of some advanced values utilizes additional 
      * cpu cycles, when compared to the IMU class.
-     * @param serial_port BufferingSerialPort object to use
+     * @param serial_port Serial port object to use
      */
-    public IMUAdvanced(SerialPort serial_port) {
+    public IMUAdvanced(NerdySerialPort serial_port) {
         this(serial_port, DEFAULT_UPDATE_RATE_HZ);
     }
 
     //@Override
     protected int decodePacketHandler(byte[] received_data, int offset, int bytes_remaining) {
         
+        if (received_data[offset + 1] != IMUProtocol.MSGID_QUATERNION_UPDATE) {
+            return super.decodePacketHandler(received_data, offset, bytes_remaining);
+        }
         int packet_length = IMUProtocol.decodeQuaternionUpdate(received_data, offset, bytes_remaining, quaternion_update_data);
         if (packet_length > 0) {
             setQuaternion(quaternion_update_data);
@@ -89,7 +103,7 @@ import edu.wpi.first.wpilibj.SerialPort;
      */
     public float getWorldLinearAccelX()
     {
-        return this.world_linear_accel_x;
+        return orientation.getWorldLinearAccelX();
     }
 
     /**
@@ -105,7 +119,7 @@ import edu.wpi.first.wpilibj.SerialPort;
      */
     public float getWorldLinearAccelY()
     {
-        return this.world_linear_accel_y;
+        return orientation.getWorldLinearAccelY();
     }
 
     /**
@@ -121,7 +135,7 @@ import edu.wpi.first.wpilibj.SerialPort;
      */
     public float getWorldLinearAccelZ()
     {
-        return this.world_linear_accel_z;
+        return orientation.getWorldLinearAccelZ();
     }
 
     /**
@@ -179,153 +193,153 @@ import edu.wpi.first.wpilibj.SerialPort;
     }
 
     private void setQuaternion(IMUProtocol.QuaternionUpdate raw_update) {
-        synchronized (this) { // synchronized block
-            
-            float[] q = new float[4];
-            float[] gravity = new float[3];
-            //float[] euler = new float[3];
-            float[] ypr = new float[3];
-            float yaw_degrees;
-            float pitch_degrees;
-            float roll_degrees;
-            float linear_acceleration_x;
-            float linear_acceleration_y;
-            float linear_acceleration_z;
-            float q2[] = new float[4];
-            float q_product[] = new float[4];
-            float world_linear_acceleration_x;
-            float world_linear_acceleration_y;
-            float world_linear_acceleration_z;
-                       
-            q[0] = ((float)raw_update.q1) / 16384.0f;
-            q[1] = ((float)raw_update.q2) / 16384.0f;
-            q[2] = ((float)raw_update.q3) / 16384.0f;
-            q[3] = ((float)raw_update.q4) / 16384.0f;
-            for (int i = 0; i < 4; i++) if (q[i] >= 2) q[i] = -4 + q[i]; // Range-check quaterions
-            
-            // below calculations are necessary for calculation of yaw/pitch/roll, 
-            // and tilt-compensated compass heading
-            
-            // calculate gravity vector
-            gravity[0] = 2 * (q[1]*q[3] - q[0]*q[2]);
-            gravity[1] = 2 * (q[0]*q[1] + q[2]*q[3]);
-            gravity[2] = q[0]*q[0] - q[1]*q[1] - q[2]*q[2] + q[3]*q[3];
-  
-            // calculate Euler angles
-            // This code is here for reference, and is commented out for performance reasons
-           
-            //euler[0] = (float) MathUtils.atan2(2*q[1]*q[2] - 2*q[0]*q[3], 2*q[0]*q[0] + 2*q[1]*q[1] - 1);
-            //euler[1] = (float) -MathUtils.asin(2*q[1]*q[3] + 2*q[0]*q[2]);
-            //euler[2] = (float) MathUtils.atan2(2*q[2]*q[3] - 2*q[0]*q[1], 2*q[0]*q[0] + 2*q[3]*q[3] - 1);
-  
-            // calculate yaw/pitch/roll angles
-            ypr[0] = (float) Math.atan2(2*q[1]*q[2] - 2*q[0]*q[3], 2*q[0]*q[0] + 2*q[1]*q[1] - 1);
-            ypr[1] = (float) Math.atan(gravity[0] / Math.sqrt(gravity[1]*gravity[1] + gravity[2]*gravity[2]));
-            ypr[2] = (float) Math.atan(gravity[1] / Math.sqrt(gravity[0]*gravity[0] + gravity[2]*gravity[2]));
-             
-            yaw_degrees = (float) (ypr[0] * (180.0/Math.PI)); 
-            pitch_degrees = (float) (ypr[1] * (180.0/Math.PI)); 
-            roll_degrees = (float) (ypr[2] * (180.0/Math.PI)); 
-             
-            // Subtract nav6 offset, and handle potential 360 degree wrap-around
-            yaw_degrees -= nav6_yaw_offset_degrees;
-            if ( yaw_degrees < -180 ) yaw_degrees += 360;
-            if ( yaw_degrees > 180 ) yaw_degrees -= 360;
-             
-            // calculate linear acceleration by 
-            // removing the gravity component (+1g = +4096 in standard DMP FIFO packet)
-             
-            linear_acceleration_x = (float) ((((float)raw_update.accel_x) / (32768.0 / accel_fsr_g)) - gravity[0]);
-            linear_acceleration_y = (float) ((((float)raw_update.accel_y) / (32768.0 / accel_fsr_g)) - gravity[1]);
-            linear_acceleration_z = (float) ((((float)raw_update.accel_z) / (32768.0 / accel_fsr_g)) - gravity[2]); 
-            
-            // Calculate world-frame acceleration
-            
-            q2[0] = 0;
-            q2[1] = linear_acceleration_x;
-            q2[2] = linear_acceleration_y;
-            q2[3] = linear_acceleration_z;
-            
-            // Rotate linear acceleration so that it's relative to the world reference frame
-            
-            // http://www.cprogramming.com/tutorial/3d/quaternions.html
-            // http://www.euclideanspace.com/maths/algebra/realNormedAlgebra/quaternions/transforms/index.htm
-            // http://content.gpwiki.org/index.php/OpenGL:Tutorials:Using_Quaternions_to_represent_rotation
-            // ^ or: http://webcache.googleusercontent.com/search?q=cache:xgJAp3bDNhQJ:content.gpwiki.org/index.php/OpenGL:Tutorials:Using_Quaternions_to_represent_rotation&hl=en&gl=us&strip=1
+
+        calculateOrientation(raw_update, nav6_yaw_offset_degrees, accel_fsr_g, quaternion_result);
+
+        updateWorldLinearAccelHistory(quaternion_result.world_linear_accel_x,
+                quaternion_result.world_linear_accel_y, quaternion_result.world_linear_accel_z);
+
+        orientation.beginUpdate();
+        orientation.setYawPitchRoll(quaternion_result.yaw, quaternion_result.pitch,
+                quaternion_result.roll, quaternion_result.compass_heading);
+        orientation.setQuaternion(quaternion_result.quaternion_w, quaternion_result.quaternion_x,
+                quaternion_result.quaternion_y, quaternion_result.quaternion_z);
+        orientation.setWorldLinearAccel(quaternion_result.world_linear_accel_x,
+                quaternion_result.world_linear_accel_y, quaternion_result.world_linear_accel_z);
+        this.temp_c = raw_update.temp_c;
+        updateYawHistory(quaternion_result.yaw);
+        orientation.setTimestamp(last_update_time);
+        orientation.endUpdate();
+    }
+
+    /**
+     * Calculates yaw, pitch, roll, tilt-compensated compass heading and
+     * world linear acceleration from a raw quaternion update.
+     * 
+     * All intermediate values are scalar locals, so no allocation is
+     * performed.  The arithmetic is performed in exactly the same order
+     * and precision as the original array-based implementation, so the
+     * results are bit-for-bit identical to it.  The timestamp in the
+     * result is not modified.
+     * @param raw_update Decoded quaternion update packet
+     * @param yaw_offset_degrees Yaw offset reported by the nav6
+     * @param accel_fsr_g Accelerometer full scale range (in g)
+     * @param result Receives the calculated values
+     */
+    public static void calculateOrientation(IMUProtocol.QuaternionUpdate raw_update,
+            float yaw_offset_degrees, short accel_fsr_g, IMUOrientation result) {
+
+        float q0 = ((float)raw_update.q1) / 16384.0f;
+        float q1 = ((float)raw_update.q2) / 16384.0f;
+        float q2 = ((float)raw_update.q3) / 16384.0f;
+        float q3 = ((float)raw_update.q4) / 16384.0f;
+        // Range-check quaterions
+        if (q0 >= 2) q0 = -4 + q0;
+        if (q1 >= 2) q1 = -4 + q1;
+        if (q2 >= 2) q2 = -4 + q2;
+        if (q3 >= 2) q3 = -4 + q3;
         
-            // P_out = q * P_in * conj(q)
-            // - P_out is the output vector
-            // - q is the orientation quaternion
-            // - P_in is the input vector (a*aReal)
-            // - conj(q) is the conjugate of the orientation quaternion (q=[w,x,y,z], q*=[w,-x,-y,-z])
+        // below calculations are necessary for calculation of yaw/pitch/roll, 
+        // and tilt-compensated compass heading
+        
+        // calculate gravity vector
+        float gravity_x = 2 * (q1*q3 - q0*q2);
+        float gravity_y = 2 * (q0*q1 + q2*q3);
+        float gravity_z = q0*q0 - q1*q1 - q2*q2 + q3*q3;
 
-            
-            // calculate quaternion product
-            // Quaternion multiplication is defined by:
-            //     (Q1 * Q2).w = (w1w2 - x1x2 - y1y2 - z1z2)
-            //     (Q1 * Q2).x = (w1x2 + x1w2 + y1z2 - z1y2)
-            //     (Q1 * Q2).y = (w1y2 - x1z2 + y1w2 + z1x2)
-            //     (Q1 * Q2).z = (w1z2 + x1y2 - y1x2 + z1w2
-            
-            q_product[0] = q[0]*q2[0] - q[1]*q2[1] - q[2]*q2[2] - q[3]*q2[3];  // new w
-            q_product[1] = q[0]*q2[1] + q[1]*q2[0] + q[2]*q2[3] - q[3]*q2[2];  // new x
-            q_product[2] = q[0]*q2[2] - q[1]*q2[3] + q[2]*q2[0] + q[3]*q2[1];  // new y 
-            q_product[3] = q[0]*q2[3] + q[1]*q2[2] - q[2]*q2[1] + q[3]*q2[0];  // new z
+        // calculate yaw/pitch/roll angles
+        float yaw_radians = (float) Math.atan2(2*q1*q2 - 2*q0*q3, 2*q0*q0 + 2*q1*q1 - 1);
+        float pitch_radians = (float) Math.atan(gravity_x / Math.sqrt(gravity_y*gravity_y + gravity_z*gravity_z));
+        float roll_radians = (float) Math.atan(gravity_y / Math.sqrt(gravity_x*gravity_x + gravity_z*gravity_z));
+         
+        float yaw_degrees = (float) (yaw_radians * (180.0/Math.PI)); 
+        float pitch_degrees = (float) (pitch_radians * (180.0/Math.PI)); 
+        float roll_degrees = (float) (roll_radians * (180.0/Math.PI)); 
+         
+        // Subtract nav6 offset, and handle potential 360 degree wrap-around
+        yaw_degrees -= yaw_offset_degrees;
+        if ( yaw_degrees < -180 ) yaw_degrees += 360;
+        if ( yaw_degrees > 180 ) yaw_degrees -= 360;
+         
+        // calculate linear acceleration by 
+        // removing the gravity component (+1g = +4096 in standard DMP FIFO packet)
+         
+        float linear_acceleration_x = (float) ((((float)raw_update.accel_x) / (32768.0 / accel_fsr_g)) - gravity_x);
+        float linear_acceleration_y = (float) ((((float)raw_update.accel_y) / (32768.0 / accel_fsr_g)) - gravity_y);
+        float linear_acceleration_z = (float) ((((float)raw_update.accel_z) / (32768.0 / accel_fsr_g)) - gravity_z); 
+        
+        // Rotate linear acceleration so that it's relative to the world reference frame
+        
+        // http://www.cprogramming.com/tutorial/3d/quaternions.html
+        // http://www.euclideanspace.com/maths/algebra/realNormedAlgebra/quaternions/transforms/index.htm
+        // http://content.gpwiki.org/index.php/OpenGL:Tutorials:Using_Quaternions_to_represent_rotation
+    
+        // P_out = q * P_in * conj(q)
+        // - P_out is the output vector
+        // - q is the orientation quaternion
+        // - P_in is the input vector (a*aReal)
+        // - conj(q) is the conjugate of the orientation quaternion (q=[w,x,y,z], q*=[w,-x,-y,-z])
 
-            float[] q_conjugate = new float[4];
-            
-            q_conjugate[0] = q[0];            
-            q_conjugate[1] = -q[1];            
-            q_conjugate[2] = -q[2];            
-            q_conjugate[3] = -q[3];            
+        float a_w = 0;
+        float a_x = linear_acceleration_x;
+        float a_y = linear_acceleration_y;
+        float a_z = linear_acceleration_z;
+        
+        // calculate quaternion product
+        // Quaternion multiplication is defined by:
+        //     (Q1 * Q2).w = (w1w2 - x1x2 - y1y2 - z1z2)
+        //     (Q1 * Q2).x = (w1x2 + x1w2 + y1z2 - z1y2)
+        //     (Q1 * Q2).y = (w1y2 - x1z2 + y1w2 + z1x2)
+        //     (Q1 * Q2).z = (w1z2 + x1y2 - y1x2 + z1w2
+        
+        float p_w = q0*a_w - q1*a_x - q2*a_y - q3*a_z;  // new w
+        float p_x = q0*a_x + q1*a_w + q2*a_z - q3*a_y;  // new x
+        float p_y = q0*a_y - q1*a_z + q2*a_w + q3*a_x;  // new y 
+        float p_z = q0*a_z + q1*a_y - q2*a_x + q3*a_w;  // new z
 
-            float[] q_final = new float[4];
-            
-            q_final[0] = q_product[0]*q_conjugate[0] - q_product[1]*q_conjugate[1] - q_product[2]*q_conjugate[2] - q_product[3]*q_conjugate[3];  // new w
-            q_final[1] = q_product[0]*q_conjugate[1] + q_product[1]*q_conjugate[0] + q_product[2]*q_conjugate[3] - q_product[3]*q_conjugate[2];  // new x
-            q_final[2] = q_product[0]*q_conjugate[2] - q_product[1]*q_conjugate[3] + q_product[2]*q_conjugate[0] + q_product[3]*q_conjugate[1];  // new y 
-            q_final[3] = q_product[0]*q_conjugate[3] + q_product[1]*q_conjugate[2] - q_product[2]*q_conjugate[1] + q_product[3]*q_conjugate[0];  // new z
+        float c_w = q0;            
+        float c_x = -q1;            
+        float c_y = -q2;            
+        float c_z = -q3;            
 
-            world_linear_acceleration_x = q_final[1];
-            world_linear_acceleration_y = q_final[2];
-            world_linear_acceleration_z = q_final[3];
-             
-            updateWorldLinearAccelHistory(world_linear_acceleration_x,world_linear_acceleration_y, world_linear_acceleration_z);
-             
-            // Calculate tilt-compensated compass heading
-            
-            float inverted_pitch = -ypr[1];
-            float roll_radians = ypr[2];
-            
-            float cos_roll = (float) Math.cos(roll_radians);
-            float sin_roll = (float) Math.sin(roll_radians);
-            float cos_pitch = (float) Math.cos(inverted_pitch);
-            float sin_pitch = (float) Math.sin(inverted_pitch);
-            
-            float MAG_X = raw_update.mag_x * cos_pitch + raw_update.mag_z * sin_pitch;
-            float MAG_Y = raw_update.mag_x * sin_roll * sin_pitch + raw_update.mag_y * cos_roll - raw_update.mag_z * sin_roll * cos_pitch;
-            float tilt_compensated_heading_radians = (float) Math.atan2(MAG_Y,MAG_X);
-            float tilt_compensated_heading_degrees = (float) (tilt_compensated_heading_radians * (180.0 / Math.PI));
-            
-            // Adjust compass for board orientation,
-            // and modify range from -180-180 to
-            // 0-360 degrees
-          
-            tilt_compensated_heading_degrees -= 90.0;
-            if ( tilt_compensated_heading_degrees < 0 ) {
-              tilt_compensated_heading_degrees += 360; 
-            }
-            
-            this.yaw = yaw_degrees;
-            this.pitch = pitch_degrees;
-            this.roll = roll_degrees;
-            this.compass_heading = tilt_compensated_heading_degrees;
-            
-            this.world_linear_accel_x = world_linear_acceleration_x;
-            this.world_linear_accel_y = world_linear_acceleration_y;
-            this.world_linear_accel_z = world_linear_acceleration_z;
-            this.temp_c = raw_update.temp_c;
-            updateYawHistory(this.yaw);            
+        // The w component of the final product is always zero, and is not needed
+        float world_linear_acceleration_x = p_w*c_x + p_x*c_w + p_y*c_z - p_z*c_y;  // new x
+        float world_linear_acceleration_y = p_w*c_y - p_x*c_z + p_y*c_w + p_z*c_x;  // new y 
+        float world_linear_acceleration_z = p_w*c_z + p_x*c_y - p_y*c_x + p_z*c_w;  // new z
+         
+        // Calculate tilt-compensated compass heading
+        
+        float inverted_pitch = -pitch_radians;
+        
+        float cos_roll = (float) Math.cos(roll_radians);
+        float sin_roll = (float) Math.sin(roll_radians);
+        float cos_pitch = (float) Math.cos(inverted_pitch);
+        float sin_pitch = (float) Math.sin(inverted_pitch);
+        
+        float MAG_X = raw_update.mag_x * cos_pitch + raw_update.mag_z * sin_pitch;
+        float MAG_Y = raw_update.mag_x * sin_roll * sin_pitch + raw_update.mag_y * cos_roll - raw_update.mag_z * sin_roll * cos_pitch;
+        float tilt_compensated_heading_radians = (float) Math.atan2(MAG_Y,MAG_X);
+        float tilt_compensated_heading_degrees = (float) (tilt_compensated_heading_radians * (180.0 / Math.PI));
+        
+        // Adjust compass for board orientation,
+        // and modify range from -180-180 to
+        // 0-360 degrees
+      
+        tilt_compensated_heading_degrees -= 90.0;
+        if ( tilt_compensated_heading_degrees < 0 ) {
+          tilt_compensated_heading_degrees += 360; 
         }
+        
+        result.yaw = yaw_degrees;
+        result.pitch = pitch_degrees;
+        result.roll = roll_degrees;
+        result.compass_heading = tilt_compensated_heading_degrees;
+        result.quaternion_w = q0;
+        result.quaternion_x = q1;
+        result.quaternion_y = q2;
+        result.quaternion_z = q3;
+        result.world_linear_accel_x = world_linear_acceleration_x;
+        result.world_linear_accel_y = world_linear_acceleration_y;
+        result.world_linear_accel_z = world_linear_acceleration_z;
     }
 }
\ No newline at end of file
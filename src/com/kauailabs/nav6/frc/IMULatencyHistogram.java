@@ -0,0 +1,116 @@
+package com.kauailabs.nav6.frc;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket histogram of IMU update latencies.
+ *
+ * Each sample is the time between a nav6 packet arriving on the serial
+ * port and the first call that returned the value decoded from it.
+ * Buckets are BUCKET_WIDTH_US wide; samples beyond the last bucket are
+ * counted in the final (overflow) bucket.
+ *
+ * Samples are recorded by the thread reading the IMU (normally the robot
+ * control loop) and recording performs no allocation.
+ */
+public class IMULatencyHistogram {
+
+    public static final int BUCKET_WIDTH_US = 250;
+    public static final int BUCKET_COUNT    = 81;
+
+    private final long buckets[];
+    private long total_count;
+    private long total_latency_us;
+    private long max_latency_us;
+
+    public IMULatencyHistogram() {
+        buckets = new long[BUCKET_COUNT];
+    }
+
+    /**
+     * Records a latency sample.
+     * @param latency_ns Latency in nanoseconds
+     */
+    public void record(long latency_ns) {
+        long latency_us = latency_ns / 1000;
+        if (latency_us < 0) {
+            latency_us = 0;
+        }
+        int bucket = (int) Math.min(latency_us / BUCKET_WIDTH_US, BUCKET_COUNT - 1);
+        buckets[bucket]++;
+        total_count++;
+        total_latency_us += latency_us;
+        if (latency_us > max_latency_us) {
+            max_latency_us = latency_us;
+        }
+    }
+
+    /**
+     * Returns the number of samples in a bucket.  Bucket i covers
+     * latencies from i * BUCKET_WIDTH_US up to (i + 1) * BUCKET_WIDTH_US
+     * microseconds; the last bucket also holds every larger latency.
+     * @param bucket Bucket index (0 to BUCKET_COUNT - 1)
+     * @return The sample count
+     */
+    public long getBucketCount(int bucket) {
+        return buckets[bucket];
+    }
+
+    /**
+     * Returns the total number of recorded samples.
+     * @return The sample count
+     */
+    public long getCount() {
+        return total_count;
+    }
+
+    /**
+     * Returns the mean latency in milliseconds, or 0 if no samples exist.
+     * @return The mean latency (ms)
+     */
+    public double getMeanMs() {
+        if (total_count == 0) {
+            return 0.0;
+        }
+        return (total_latency_us / 1000.0) / total_count;
+    }
+
+    /**
+     * Returns the largest recorded latency in milliseconds.
+     * @return The maximum latency (ms)
+     */
+    public double getMaxMs() {
+        return max_latency_us / 1000.0;
+    }
+
+    /**
+     * Returns the upper edge of the bucket containing the given percentile,
+     * in milliseconds.
+     * @param percentile Percentile from 0 to 100
+     * @return The latency (ms) below which the given percentile of samples fall
+     */
+    public double getPercentileMs(double percentile) {
+        if (total_count == 0) {
+            return 0.0;
+        }
+        long threshold = (long) Math.ceil(total_count * percentile / 100.0);
+        long running_count = 0;
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            running_count += buckets[i];
+            if (running_count >= threshold) {
+                return ((i + 1) * BUCKET_WIDTH_US) / 1000.0;
+            }
+        }
+        return getMaxMs();
+    }
+
+    /**
+     * Discards all recorded samples.
+     */
+    public void reset() {
+        Arrays.fill(buckets, 0);
+        total_count = 0;
+        total_latency_us = 0;
+        max_latency_us = 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.kauailabs.nav6.frc;
+
+/**
+ * A consistent snapshot of the orientation state published by the IMU.
+ *
+ * Instances are filled in by IMU.getOrientation(), and may be reused
+ * across calls so that taking a snapshot does not allocate.
+ */
+public class IMUOrientation {
+
+    public float yaw;
+    public float pitch;
+    public float roll;
+    public float compass_heading;
+    public float quaternion_w;
+    public float quaternion_x;
+    public float quaternion_y;
+    public float quaternion_z;
+    public float world_linear_accel_x;
+    public float world_linear_accel_y;
+    public float world_linear_accel_z;
+    public float yaw_rate;
+    public double timestamp;
+}
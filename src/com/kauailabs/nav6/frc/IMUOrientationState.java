@@ -0,0 +1,135 @@
+package com.kauailabs.nav6.frc;
+
+/**
+ * Orientation state shared between the IMU serial thread and its readers,
+ * protected by a sequence lock.
+ *
+ * The serial thread is the only writer.  It brackets each update with
+ * beginUpdate() and endUpdate(), which leave the sequence number odd while
+ * the update is in progress.  Readers copy the fields and retry if the
+ * sequence number was odd or changed while they were copying, so a reader
+ * never blocks the writer and never observes a partially written update.
+ *
+ * Every field is volatile, which keeps the field reads ordered between
+ * the two sequence reads under the Java memory model.
+ */
+public class IMUOrientationState {
+
+    private volatile int sequence;
+
+    private volatile float yaw;
+    private volatile float pitch;
+    private volatile float roll;
+    private volatile float compass_heading;
+    private volatile float quaternion_w;
+    private volatile float quaternion_x;
+    private volatile float quaternion_y;
+    private volatile float quaternion_z;
+    private volatile float world_linear_accel_x;
+    private volatile float world_linear_accel_y;
+    private volatile float world_linear_accel_z;
+    private volatile float yaw_rate;
+    private volatile double timestamp;
+
+    /**
+     * Marks the start of an update.  Must only be called by the writer thread.
+     */
+    public void beginUpdate() {
+        sequence++;
+    }
+
+    /**
+     * Marks the end of an update, publishing it to readers.
+     */
+    public void endUpdate() {
+        sequence++;
+    }
+
+    public void setYawPitchRoll(float yaw, float pitch, float roll, float compass_heading) {
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.roll = roll;
+        this.compass_heading = compass_heading;
+    }
+
+    public void setQuaternion(float w, float x, float y, float z) {
+        quaternion_w = w;
+        quaternion_x = x;
+        quaternion_y = y;
+        quaternion_z = z;
+    }
+
+    public void setWorldLinearAccel(float x, float y, float z) {
+        world_linear_accel_x = x;
+        world_linear_accel_y = y;
+        world_linear_accel_z = z;
+    }
+
+    public void setYawRate(float yaw_rate) {
+        this.yaw_rate = yaw_rate;
+    }
+
+    public void setTimestamp(double timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public float getYaw() {
+        return yaw;
+    }
+
+    public float getPitch() {
+        return pitch;
+    }
+
+    public float getRoll() {
+        return roll;
+    }
+
+    public float getCompassHeading() {
+        return compass_heading;
+    }
+
+    public float getWorldLinearAccelX() {
+        return world_linear_accel_x;
+    }
+
+    public float getWorldLinearAccelY() {
+        return world_linear_accel_y;
+    }
+
+    public float getWorldLinearAccelZ() {
+        return world_linear_accel_z;
+    }
+
+    public float getYawRate() {
+        return yaw_rate;
+    }
+
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Copies a consistent snapshot of every field into dest, without locking.
+     * @param dest The snapshot to fill in
+     */
+    public void read(IMUOrientation dest) {
+        int start_sequence;
+        do {
+            start_sequence = sequence;
+            dest.yaw = yaw;
+            dest.pitch = pitch;
+            dest.roll = roll;
+            dest.compass_heading = compass_heading;
+            dest.quaternion_w = quaternion_w;
+            dest.quaternion_x = quaternion_x;
+            dest.quaternion_y = quaternion_y;
+            dest.quaternion_z = quaternion_z;
+            dest.world_linear_accel_x = world_linear_accel_x;
+            dest.world_linear_accel_y = world_linear_accel_y;
+            dest.world_linear_accel_z = world_linear_accel_z;
+            dest.yaw_rate = yaw_rate;
+            dest.timestamp = timestamp;
+        } while (((start_sequence & 1) != 0) || (start_sequence != sequence));
+    }
+}
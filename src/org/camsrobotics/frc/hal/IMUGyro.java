@@ -0,0 +1,52 @@
+package org.camsrobotics.frc.hal;
+
+import com.kauailabs.nav6.frc.IMUAdvanced;
+
+/**
+ * NerdyIMU backed by the nav6 IMU
+ * 
+ */
+public class IMUGyro implements NerdyIMU {
+	private IMUAdvanced m_imu;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param imu
+	 */
+	public IMUGyro(IMUAdvanced imu)	{
+		m_imu = imu;
+	}
+	
+	public double getYaw()	{
+		return m_imu.getYaw();
+	}
+	
+	public double getRate()	{
+		return m_imu.getRate();
+	}
+	
+	public void zeroYaw()	{
+		m_imu.zeroYaw();
+	}
+	
+	public double getPitch()	{
+		return m_imu.getPitch();
+	}
+	
+	public double getRoll()	{
+		return m_imu.getRoll();
+	}
+	
+	public double getWorldLinearAccelX()	{
+		return m_imu.getWorldLinearAccelX();
+	}
+	
+	public double getWorldLinearAccelY()	{
+		return m_imu.getWorldLinearAccelY();
+	}
+	
+	public double getWorldLinearAccelZ()	{
+		return m_imu.getWorldLinearAccelZ();
+	}
+}
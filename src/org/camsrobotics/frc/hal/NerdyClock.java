@@ -0,0 +1,14 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A time source
+ * 
+ */
+public interface NerdyClock {
+	/**
+	 * Gets the current time
+	 * 
+	 * @return Seconds, from an arbitrary starting point
+	 */
+	public double getTime();
+}
@@ -0,0 +1,38 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A motor controller that can run a position loop of its own, on a sensor
+ * wired to it. set() runs it open loop again.
+ * 
+ */
+public interface NerdyClosedLoopMotor extends NerdyMotor {
+	/**
+	 * Sets the gains of the onboard loop
+	 * 
+	 * @param p	P gain, in the controller's own units
+	 * @param i	I gain, in the controller's own units
+	 * @param d	D gain, in the controller's own units
+	 */
+	public void setGains(double p, double i, double d);
+	
+	/**
+	 * Runs the onboard loop to a position, until the next set()
+	 * 
+	 * @param position Raw sensor counts
+	 */
+	public void setPosition(double position);
+	
+	/**
+	 * Is the onboard loop running?
+	 * 
+	 * @return True from setPosition() until the next set()
+	 */
+	public boolean isClosedLoop();
+	
+	/**
+	 * Gets the sensor wired to the controller
+	 * 
+	 * @return The sensor
+	 */
+	public NerdyEncoder getEncoder();
+}
@@ -0,0 +1,14 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A motor current sensor
+ * 
+ */
+public interface NerdyCurrentSensor {
+	/**
+	 * Gets the current
+	 * 
+	 * @return Amps
+	 */
+	public double getCurrent();
+}
@@ -0,0 +1,33 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A quadrature encoder
+ * 
+ */
+public interface NerdyEncoder {
+	/**
+	 * Gets the count, scaled by the decoding type
+	 * 
+	 * @return The count
+	 */
+	public int get();
+	
+	/**
+	 * Gets the raw count
+	 * 
+	 * @return The raw count
+	 */
+	public int getRaw();
+	
+	/**
+	 * Gets the rate
+	 * 
+	 * @return Counts (scaled, as in get()) per second
+	 */
+	public double getRate();
+	
+	/**
+	 * Resets the count to zero
+	 */
+	public void reset();
+}
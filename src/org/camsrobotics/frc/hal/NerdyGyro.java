@@ -0,0 +1,26 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A heading sensor
+ * 
+ */
+public interface NerdyGyro {
+	/**
+	 * Gets the heading
+	 * 
+	 * @return Degrees, -180 to 180, clockwise positive
+	 */
+	public double getYaw();
+	
+	/**
+	 * Gets the rate of change of the heading
+	 * 
+	 * @return Degrees per second, clockwise positive
+	 */
+	public double getRate();
+	
+	/**
+	 * Makes the current heading zero
+	 */
+	public void zeroYaw();
+}
@@ -0,0 +1,42 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A heading sensor that also measures tilt and acceleration
+ * 
+ */
+public interface NerdyIMU extends NerdyGyro {
+	/**
+	 * Gets the pitch
+	 * 
+	 * @return Degrees
+	 */
+	public double getPitch();
+	
+	/**
+	 * Gets the roll
+	 * 
+	 * @return Degrees
+	 */
+	public double getRoll();
+	
+	/**
+	 * Gets the acceleration along the world X axis, with gravity removed
+	 * 
+	 * @return g
+	 */
+	public double getWorldLinearAccelX();
+	
+	/**
+	 * Gets the acceleration along the world Y axis, with gravity removed
+	 * 
+	 * @return g
+	 */
+	public double getWorldLinearAccelY();
+	
+	/**
+	 * Gets the acceleration along the world Z axis, with gravity removed
+	 * 
+	 * @return g
+	 */
+	public double getWorldLinearAccelZ();
+}
@@ -0,0 +1,21 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A motor controller
+ * 
+ */
+public interface NerdyMotor {
+	/**
+	 * Sets the output
+	 * 
+	 * @param power	-1 to 1
+	 */
+	public void set(double power);
+	
+	/**
+	 * Gets the last output that was set
+	 * 
+	 * @return -1 to 1
+	 */
+	public double get();
+}
@@ -0,0 +1,64 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A serial port
+ * 
+ */
+public interface NerdySerialPort {
+	/**
+	 * Reads received bytes. Blocks until count bytes have been read, the
+	 * termination character has been read (if enabled), or the timeout expires.
+	 * 
+	 * @param buffer	The destination
+	 * @param count		The maximum number of bytes to read
+	 * @return			The number of bytes read
+	 */
+	public int read(byte[] buffer, int count);
+	
+	/**
+	 * Writes bytes
+	 * 
+	 * @param buffer	The source
+	 * @param count		The number of bytes to write
+	 * @return			The number of bytes written
+	 */
+	public int write(byte[] buffer, int count);
+	
+	/**
+	 * Gets the number of bytes waiting to be read
+	 * 
+	 * @return The number of bytes
+	 */
+	public int getBytesReceived();
+	
+	/**
+	 * Sets the size of the receive buffer
+	 * 
+	 * @param size The size in bytes
+	 */
+	public void setReadBufferSize(int size);
+	
+	/**
+	 * Sets the read timeout
+	 * 
+	 * @param timeout Seconds
+	 */
+	public void setTimeout(double timeout);
+	
+	/**
+	 * Makes reads return when the termination character is received
+	 * 
+	 * @param terminator The termination character
+	 */
+	public void enableTermination(char terminator);
+	
+	/**
+	 * Sends any buffered output
+	 */
+	public void flush();
+	
+	/**
+	 * Discards any buffered input and output
+	 */
+	public void reset();
+}
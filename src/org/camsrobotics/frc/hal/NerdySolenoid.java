@@ -0,0 +1,24 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A double acting solenoid
+ * 
+ */
+public interface NerdySolenoid {
+	public static final boolean kForward = true;
+	public static final boolean kReverse = false;
+	
+	/**
+	 * Sets the solenoid direction
+	 * 
+	 * @param forward kForward or kReverse
+	 */
+	public void set(boolean forward);
+	
+	/**
+	 * Gets the solenoid direction
+	 * 
+	 * @return kForward or kReverse
+	 */
+	public boolean get();
+}
@@ -0,0 +1,30 @@
+package org.camsrobotics.frc.hal;
+
+/**
+ * A driver station input device
+ * 
+ */
+public interface NerdyStick {
+	/**
+	 * Gets an axis value
+	 * 
+	 * @param axis The axis number
+	 * @return -1 to 1
+	 */
+	public double getRawAxis(int axis);
+	
+	/**
+	 * Gets a button state
+	 * 
+	 * @param button The button number, starting at 1
+	 * @return True if pressed
+	 */
+	public boolean getRawButton(int button);
+	
+	/**
+	 * Gets every button state in one read
+	 * 
+	 * @return Bit n-1 is set if button n is pressed
+	 */
+	public int getButtons();
+}
@@ -0,0 +1,24 @@
+package org.camsrobotics.frc.hal;
+
+import edu.wpi.first.wpilibj.CANTalon;
+
+/**
+ * NerdyCurrentSensor backed by a Talon SRX on the CAN bus
+ * 
+ */
+public class WPICurrentSensor implements NerdyCurrentSensor {
+	private CANTalon m_talon;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param talon
+	 */
+	public WPICurrentSensor(CANTalon talon)	{
+		m_talon = talon;
+	}
+	
+	public double getCurrent()	{
+		return m_talon.getOutputCurrent();
+	}
+}
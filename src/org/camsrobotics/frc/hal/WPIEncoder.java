@@ -0,0 +1,36 @@
+package org.camsrobotics.frc.hal;
+
+import edu.wpi.first.wpilibj.Encoder;
+
+/**
+ * NerdyEncoder backed by a WPILib encoder
+ * 
+ */
+public class WPIEncoder implements NerdyEncoder {
+	private Encoder m_encoder;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param encoder
+	 */
+	public WPIEncoder(Encoder encoder)	{
+		m_encoder = encoder;
+	}
+	
+	public int get()	{
+		return m_encoder.get();
+	}
+	
+	public int getRaw()	{
+		return m_encoder.getRaw();
+	}
+	
+	public double getRate()	{
+		return m_encoder.getRate();
+	}
+	
+	public void reset()	{
+		m_encoder.reset();
+	}
+}
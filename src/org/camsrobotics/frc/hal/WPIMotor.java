@@ -0,0 +1,28 @@
+package org.camsrobotics.frc.hal;
+
+import edu.wpi.first.wpilibj.SpeedController;
+
+/**
+ * NerdyMotor backed by a WPILib speed controller
+ * 
+ */
+public class WPIMotor implements NerdyMotor {
+	private SpeedController m_controller;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param controller
+	 */
+	public WPIMotor(SpeedController controller)	{
+		m_controller = controller;
+	}
+	
+	public void set(double power)	{
+		m_controller.set(power);
+	}
+	
+	public double get()	{
+		return m_controller.get();
+	}
+}
@@ -0,0 +1,55 @@
+package org.camsrobotics.frc.hal;
+
+import edu.wpi.first.wpilibj.SerialPort;
+
+/**
+ * NerdySerialPort backed by a WPILib serial port
+ * 
+ */
+public class WPISerialPort implements NerdySerialPort {
+	private SerialPort m_port;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param port
+	 */
+	public WPISerialPort(SerialPort port)	{
+		m_port = port;
+	}
+	
+	public int read(byte[] buffer, int count)	{
+		// WPILib returns a new array for every read
+		byte[] received = m_port.read(count);
+		System.arraycopy(received, 0, buffer, 0, received.length);
+		return received.length;
+	}
+	
+	public int write(byte[] buffer, int count)	{
+		return m_port.write(buffer, count);
+	}
+	
+	public int getBytesReceived()	{
+		return m_port.getBytesReceived();
+	}
+	
+	public void setReadBufferSize(int size)	{
+		m_port.setReadBufferSize(size);
+	}
+	
+	public void setTimeout(double timeout)	{
+		m_port.setTimeout(timeout);
+	}
+	
+	public void enableTermination(char terminator)	{
+		m_port.enableTermination(terminator);
+	}
+	
+	public void flush()	{
+		m_port.flush();
+	}
+	
+	public void reset()	{
+		m_port.reset();
+	}
+}
@@ -0,0 +1,30 @@
+package org.camsrobotics.frc.hal;
+
+import edu.wpi.first.wpilibj.DoubleSolenoid;
+
+/**
+ * NerdySolenoid backed by a WPILib double solenoid
+ * 
+ */
+public class WPISolenoid implements NerdySolenoid {
+	private DoubleSolenoid m_solenoid;
+	private boolean m_forward = kReverse;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param solenoid
+	 */
+	public WPISolenoid(DoubleSolenoid solenoid)	{
+		m_solenoid = solenoid;
+	}
+	
+	public void set(boolean forward)	{
+		m_forward = forward;
+		m_solenoid.set(forward ? DoubleSolenoid.Value.kForward : DoubleSolenoid.Value.kReverse);
+	}
+	
+	public boolean get()	{
+		return m_forward;
+	}
+}
@@ -0,0 +1,45 @@
+package org.camsrobotics.frc.hal;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Joystick;
+
+/**
+ * NerdyStick backed by a WPILib joystick
+ * 
+ */
+public class WPIStick implements NerdyStick {
+	private Joystick m_joy;
+	private DriverStation m_ds;
+	private int m_port;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param port The port on driverstation
+	 */
+	public WPIStick(int port)	{
+		m_joy = new Joystick(port);
+		m_ds = DriverStation.getInstance();
+		m_port = port;
+	}
+	
+	public double getRawAxis(int axis)	{
+		return m_joy.getRawAxis(axis);
+	}
+	
+	public boolean getRawButton(int button)	{
+		return m_joy.getRawButton(button);
+	}
+	
+	public int getButtons()	{
+		// Reads the driver station's cached copy of the last packet directly
+		int count = m_ds.getStickButtonCount(m_port);
+		int buttons = 0;
+		for(int b = 1; b <= count; b++)	{
+			if(m_ds.getStickButton(m_port, (byte) b))	{
+				buttons |= 1 << (b - 1);
+			}
+		}
+		return buttons;
+	}
+}
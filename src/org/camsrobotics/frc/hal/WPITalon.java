@@ -0,0 +1,90 @@
+package org.camsrobotics.frc.hal;
+
+import edu.wpi.first.wpilibj.CANTalon;
+
+/**
+ * NerdyClosedLoopMotor backed by a Talon SRX on the CAN bus, with a
+ * quadrature encoder wired to it. The Talon runs its position loop at 1 kHz
+ * and keeps holding the last position if the robot code stalls.
+ * 
+ * Control mode changes are only sent when the mode changes.
+ * 
+ */
+public class WPITalon implements NerdyClosedLoopMotor, NerdyCurrentSensor {
+	private CANTalon m_talon;
+	private boolean m_closedLoop = false;
+	private NerdyEncoder m_encoder = new NerdyEncoder()	{
+		public int get()	{
+			return getRaw() / 4;
+		}
+		
+		public int getRaw()	{
+			return m_talon.getEncPosition();
+		}
+		
+		public double getRate()	{
+			// The Talon reports counts per 100 ms
+			return m_talon.getSpeed() * 10 / 4;
+		}
+		
+		public void reset()	{
+			m_talon.setPosition(0);
+		}
+	};
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param talon
+	 */
+	public WPITalon(CANTalon talon)	{
+		m_talon = talon;
+		m_talon.setFeedbackDevice(CANTalon.FeedbackDevice.QuadEncoder);
+		m_talon.changeControlMode(CANTalon.ControlMode.PercentVbus);
+	}
+	
+	public void set(double power)	{
+		if(m_closedLoop)	{
+			m_talon.changeControlMode(CANTalon.ControlMode.PercentVbus);
+			m_closedLoop = false;
+		}
+		m_talon.set(power);
+	}
+	
+	/**
+	 * Gets the output, open loop or not
+	 * 
+	 * @return -1 to 1
+	 */
+	public double get()	{
+		if(m_closedLoop)	{
+			double bus = m_talon.getBusVoltage();
+			return bus > 0 ? m_talon.getOutputVoltage() / bus : 0;
+		}
+		return m_talon.get();
+	}
+	
+	public void setGains(double p, double i, double d)	{
+		m_talon.setPID(p, i, d);
+	}
+	
+	public void setPosition(double position)	{
+		if(!m_closedLoop)	{
+			m_talon.changeControlMode(CANTalon.ControlMode.Position);
+			m_closedLoop = true;
+		}
+		m_talon.set(position);
+	}
+	
+	public boolean isClosedLoop()	{
+		return m_closedLoop;
+	}
+	
+	public NerdyEncoder getEncoder()	{
+		return m_encoder;
+	}
+	
+	public double getCurrent()	{
+		return m_talon.getOutputCurrent();
+	}
+}
@@ -0,0 +1,174 @@
+package org.camsrobotics.frc.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A flight recorder log, read back from its file.
+ * 
+ * File layout: the magic bytes "NRDYFLT1", the number of channels (int), the
+ * header length (int), then each channel name as a length (short) and ASCII bytes.
+ * Records of that many big-endian doubles follow the header. Reading stops at
+ * the first record whose sequence number is not its position, which is where
+ * the recorder stopped writing.
+ * 
+ */
+public class NerdyFlightLog {
+	public static final byte[] kMagic = {'N', 'R', 'D', 'Y', 'F', 'L', 'T', '1'};
+	
+	private final MappedByteBuffer m_buffer;
+	private final String[] m_names;
+	private final int m_headerLength;
+	private final int m_recordSize;
+	private final int m_size;
+	
+	/**
+	 * Gets the header for the current record layout
+	 * 
+	 * @return The header bytes
+	 */
+	static byte[] header()	{
+		int length = kMagic.length + 8;
+		for(int i = 0; i < NerdyFlightRecorder.kNumChannels; i++)	{
+			length += 2 + NerdyFlightRecorder.kChannelNames[i].length();
+		}
+		ByteBuffer header = ByteBuffer.allocate(length);
+		header.put(kMagic);
+		header.putInt(NerdyFlightRecorder.kNumChannels);
+		header.putInt(length);
+		for(int i = 0; i < NerdyFlightRecorder.kNumChannels; i++)	{
+			String name = NerdyFlightRecorder.kChannelNames[i];
+			header.putShort((short) name.length());
+			for(int c = 0; c < name.length(); c++)	{
+				header.put((byte) name.charAt(c));
+			}
+		}
+		return header.array();
+	}
+	
+	/**
+	 * Opens a log
+	 * 
+	 * @param file			The log file
+	 * @throws IOException	If the file cannot be read or is not a flight recorder log
+	 */
+	public NerdyFlightLog(File file) throws IOException	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try	{
+			m_buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+		}	finally	{
+			raf.close();
+		}
+		
+		for(int i = 0; i < kMagic.length; i++)	{
+			if(m_buffer.remaining() == 0 || m_buffer.get() != kMagic[i])	{
+				throw new IOException(file + " is not a flight recorder log");
+			}
+		}
+		int channels = m_buffer.getInt();
+		m_headerLength = m_buffer.getInt();
+		m_names = new String[channels];
+		for(int i = 0; i < channels; i++)	{
+			byte[] name = new byte[m_buffer.getShort()];
+			m_buffer.get(name);
+			m_names[i] = new String(name, "US-ASCII");
+		}
+		m_recordSize = channels * 8;
+		
+		int records = (m_buffer.capacity() - m_headerLength) / m_recordSize;
+		int size = 0;
+		while(size < records && get(size, NerdyFlightRecorder.kSequence) == size + 1)	{
+			size++;
+		}
+		m_size = size;
+	}
+	
+	/**
+	 * Gets the number of records
+	 * 
+	 * @return The number of records
+	 */
+	public int size()	{
+		return m_size;
+	}
+	
+	/**
+	 * Gets the number of channels in each record
+	 * 
+	 * @return The number of channels
+	 */
+	public int getChannelCount()	{
+		return m_names.length;
+	}
+	
+	/**
+	 * Gets a channel's name
+	 * 
+	 * @param channel The channel number
+	 * @return The name
+	 */
+	public String getChannelName(int channel)	{
+		return m_names[channel];
+	}
+	
+	/**
+	 * Gets a value
+	 * 
+	 * @param record	The record number, from 0
+	 * @param channel	The channel number, e.g. NerdyFlightRecorder.kYaw
+	 * @return			The value
+	 */
+	public double get(int record, int channel)	{
+		return m_buffer.getDouble(m_headerLength + record * m_recordSize + channel * 8);
+	}
+	
+	/**
+	 * Copies a whole record
+	 * 
+	 * @param record	The record number, from 0
+	 * @param dest		At least getChannelCount() long
+	 */
+	public void read(int record, double[] dest)	{
+		int offset = m_headerLength + record * m_recordSize;
+		for(int i = 0; i < m_names.length; i++)	{
+			dest[i] = m_buffer.getDouble(offset + i * 8);
+		}
+	}
+	
+	/**
+	 * Writes the log as comma separated values
+	 * 
+	 * @param out The destination
+	 */
+	public void writeCSV(PrintStream out)	{
+		StringBuilder line = new StringBuilder();
+		for(int i = 0; i < m_names.length; i++)	{
+			line.append(i == 0 ? "" : ",").append(m_names[i]);
+		}
+		out.println(line);
+		for(int r = 0; r < m_size; r++)	{
+			line.setLength(0);
+			for(int i = 0; i < m_names.length; i++)	{
+				line.append(i == 0 ? "" : ",").append(get(r, i));
+			}
+			out.println(line);
+		}
+	}
+	
+	/**
+	 * Prints a log as comma separated values
+	 * 
+	 * Usage: NerdyFlightLog [log file]
+	 * 
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException	{
+		new NerdyFlightLog(new File(args[0])).writeCSV(System.out);
+	}
+}
@@ -0,0 +1,458 @@
+package org.camsrobotics.frc.log;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.locks.LockSupport;
+
+import org.camsrobotics.frc.hal.NerdyCurrentSensor;
+import org.camsrobotics.frc.hal.NerdyEncoder;
+import org.camsrobotics.frc.hal.NerdyIMU;
+import org.camsrobotics.frc.hal.NerdyMotor;
+import org.camsrobotics.frc.hal.NerdySolenoid;
+import org.camsrobotics.frc.util.NerdyJoystick;
+import org.camsrobotics.frc.util.NerdyTimer;
+
+/**
+ * Flight recorder. Every call to sample() captures each sensor, joystick and
+ * actuator channel into one fixed-width record.
+ * 
+ * sample() only copies values into a preallocated ring, so it is cheap enough
+ * to call from the control loop. A background thread drains the ring into a
+ * memory-mapped file, which grows in fixed size chunks.
+ * 
+ * The file starts with a header (see NerdyFlightLog), followed by records of
+ * kNumChannels big-endian doubles. Unwritten records are all zero, so a log
+ * that was never closed (e.g. the robot lost power) can still be read.
+ * close() trims the unused part of the last chunk.
+ * 
+ * One recorder can write several logs in turn: open() starts a log and
+ * close() finishes it. sample() records nothing while no log is open.
+ * 
+ */
+public class NerdyFlightRecorder {
+	// Record layout
+	public static final int kSequence			= 0;	// Record number, starting at 1
+	public static final int kTime				= 1;	// NerdyTimer seconds
+	public static final int kFtLeftEncoder		= 2;	// Raw counts
+	public static final int kFtRightEncoder		= 3;
+	public static final int kBkLeftEncoder		= 4;
+	public static final int kBkRightEncoder		= 5;
+	public static final int kElevatorEncoder	= 6;
+	public static final int kElevatorCurrent	= 7;	// Amps
+	public static final int kYaw				= 8;	// Degrees
+	public static final int kPitch				= 9;
+	public static final int kRoll				= 10;
+	public static final int kAccelX				= 11;	// g
+	public static final int kAccelY				= 12;
+	public static final int kAccelZ				= 13;
+	public static final int kLeftStick			= 14;	// X, Y, Z, throttle, buttons
+	public static final int kRightStick			= 19;
+	public static final int kArticStick			= 24;
+	public static final int kFtLeftDrive		= 29;	// -1 to 1
+	public static final int kFtRightDrive		= 30;
+	public static final int kBkLeftDrive		= 31;
+	public static final int kBkRightDrive		= 32;
+	public static final int kElevator			= 33;
+	public static final int kLeftIntake			= 34;
+	public static final int kRightIntake		= 35;
+	public static final int kLeftSol			= 36;	// 1 forward, 0 reverse
+	public static final int kRightSol			= 37;
+	public static final int kClawSol			= 38;
+	public static final int kIntakeSol			= 39;
+	public static final int kNumChannels		= 40;
+	
+	// Offsets within a joystick's channels
+	public static final int kStickX			= 0;
+	public static final int kStickY			= 1;
+	public static final int kStickZ			= 2;
+	public static final int kStickThrottle	= 3;
+	public static final int kStickButtons	= 4;	// Bit n-1 is button n
+	public static final int kStickButtonCount = 12;
+	
+	public static final String[] kChannelNames = {
+		"Sequence", "Time",
+		"Front Left Encoder", "Front Right Encoder", "Back Left Encoder", "Back Right Encoder",
+		"Elevator Encoder", "Elevator Current",
+		"Yaw", "Pitch", "Roll", "Accel X", "Accel Y", "Accel Z",
+		"Left X", "Left Y", "Left Z", "Left Throttle", "Left Buttons",
+		"Right X", "Right Y", "Right Z", "Right Throttle", "Right Buttons",
+		"Artic X", "Artic Y", "Artic Z", "Artic Throttle", "Artic Buttons",
+		"Front Left Drive", "Front Right Drive", "Back Left Drive", "Back Right Drive",
+		"Elevator", "Left Intake", "Right Intake",
+		"Left Solenoid", "Right Solenoid", "Claw Solenoid", "Intake Solenoid"
+	};
+	
+	public static final int kRecordSize		= kNumChannels * 8;
+	public static final int kChunkRecords	= 8192;		// About 40 s at 200 Hz
+	public static final long kWriterPeriodNs = 20000000;
+	
+	// Sources
+	private NerdyEncoder m_ftLeftEncoder, m_ftRightEncoder, m_bkLeftEncoder, m_bkRightEncoder;
+	private NerdyEncoder m_elevatorEncoder;
+	private NerdyCurrentSensor m_elevatorCurrent;
+	private NerdyIMU m_imu;
+	private NerdyJoystick m_leftJoy, m_rightJoy, m_articJoy;
+	private NerdyMotor m_ftLeft, m_ftRight, m_bkLeft, m_bkRight;
+	private NerdyMotor m_elevator, m_leftIntake, m_rightIntake;
+	private NerdySolenoid m_leftSol, m_rightSol, m_clawSol, m_intakeSol;
+	
+	// Ring of records, written by sample() and drained by the writer
+	private final double[] m_ring;
+	private final int m_mask;
+	private volatile long m_head = 0;
+	private volatile long m_tail = 0;
+	private volatile int m_dropped = 0;
+	
+	// File, while a log is open
+	private RandomAccessFile m_file;
+	private FileChannel m_channel;
+	private MappedByteBuffer m_map;
+	private long m_mapPosition;
+	private Thread m_writer;
+	private volatile boolean m_running = false;
+	
+	/**
+	 * Default constructor. No log is open until open() is called.
+	 * 
+	 * @param ringRecords	The number of records sample() can get ahead of the writer.
+	 * 						Rounded up to a power of two.
+	 */
+	public NerdyFlightRecorder(int ringRecords)	{
+		int capacity = Integer.highestOneBit(Math.max(ringRecords, 2) - 1) << 1;
+		m_ring = new double[capacity * kNumChannels];
+		m_mask = capacity - 1;
+	}
+	
+	/**
+	 * Constructs a recorder and opens a log
+	 * 
+	 * @param file			The log file. Overwritten if it exists.
+	 * @param ringRecords	The number of records sample() can get ahead of the writer.
+	 * 						Rounded up to a power of two.
+	 * @throws IOException	If the file cannot be created
+	 */
+	public NerdyFlightRecorder(File file, int ringRecords) throws IOException	{
+		this(ringRecords);
+		open(file);
+	}
+	
+	/**
+	 * Starts a log. Creates the file, writes its header, and starts the
+	 * writer thread. Records are numbered from 1 again. Don't call sample()
+	 * from another thread until this returns.
+	 * 
+	 * @param file			The log file. Overwritten if it exists.
+	 * @throws IOException	If the file cannot be created
+	 * @throws IllegalStateException If a log is already open
+	 */
+	public void open(File file) throws IOException	{
+		if(m_running)	{
+			throw new IllegalStateException("A flight log is already open");
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try	{
+			raf.setLength(0);
+			byte[] header = NerdyFlightLog.header();
+			m_map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+					header.length + (long) kChunkRecords * kRecordSize);
+			m_map.put(header);
+		}	catch(IOException e)	{
+			raf.close();
+			throw e;
+		}
+		m_file = raf;
+		m_channel = raf.getChannel();
+		m_mapPosition = 0;
+		m_head = 0;
+		m_tail = 0;
+		m_dropped = 0;
+		m_running = true;
+		
+		m_writer = new Thread(new Runnable()	{
+			public void run()	{
+				write();
+			}
+		}, "NerdyFlightRecorder");
+		m_writer.setDaemon(true);
+		m_writer.setPriority(Thread.MIN_PRIORITY);
+		m_writer.start();
+	}
+	
+	/**
+	 * Is a log open?
+	 * 
+	 * @return True between open() and close()
+	 */
+	public boolean isOpen()	{
+		return m_running;
+	}
+	
+	/**
+	 * Picks the file for a new log in a directory, and deletes the oldest
+	 * logs there so that with the new one, at most keep remain
+	 * 
+	 * @param directory	The log directory. Created if it doesn't exist.
+	 * @param keep		The number of logs to keep, including the new one
+	 * @return The new log's file, named for the current time
+	 */
+	public static File newLog(File directory, int keep)	{
+		directory.mkdirs();
+		File[] logs = directory.listFiles(new FileFilter()	{
+			public boolean accept(File file)	{
+				return file.isFile() && file.getName().startsWith("flight-") && file.getName().endsWith(".log");
+			}
+		});
+		if(logs != null && logs.length >= keep)	{
+			// Oldest first
+			Arrays.sort(logs, new Comparator<File>()	{
+				public int compare(File a, File b)	{
+					long diff = a.lastModified() - b.lastModified();
+					return diff < 0 ? -1 : diff > 0 ? 1 : a.getName().compareTo(b.getName());
+				}
+			});
+			for(int i = 0; i <= logs.length - keep; i++)	{
+				logs[i].delete();
+			}
+		}
+		return new File(directory, "flight-" + System.currentTimeMillis() + ".log");
+	}
+	
+	/**
+	 * Sets the drive sources
+	 * 
+	 * @param ftLeft
+	 * @param ftRight
+	 * @param bkLeft
+	 * @param bkRight
+	 * @param ftLeftEnc
+	 * @param ftRightEnc
+	 * @param bkLeftEnc
+	 * @param bkRightEnc
+	 * @param imu
+	 */
+	public void setDrive(NerdyMotor ftLeft, NerdyMotor ftRight, NerdyMotor bkLeft, NerdyMotor bkRight,
+			NerdyEncoder ftLeftEnc, NerdyEncoder ftRightEnc, NerdyEncoder bkLeftEnc, NerdyEncoder bkRightEnc,
+			NerdyIMU imu)	{
+		m_ftLeft			= ftLeft;
+		m_ftRight			= ftRight;
+		m_bkLeft			= bkLeft;
+		m_bkRight			= bkRight;
+		m_ftLeftEncoder		= ftLeftEnc;
+		m_ftRightEncoder	= ftRightEnc;
+		m_bkLeftEncoder		= bkLeftEnc;
+		m_bkRightEncoder	= bkRightEnc;
+		m_imu				= imu;
+	}
+	
+	/**
+	 * Sets the elevator sources
+	 * 
+	 * @param lift
+	 * @param current
+	 * @param encoder
+	 * @param leftSol
+	 * @param rightSol
+	 * @param claw
+	 */
+	public void setElevator(NerdyMotor lift, NerdyCurrentSensor current, NerdyEncoder encoder,
+			NerdySolenoid leftSol, NerdySolenoid rightSol, NerdySolenoid claw)	{
+		m_elevator			= lift;
+		m_elevatorCurrent	= current;
+		m_elevatorEncoder	= encoder;
+		m_leftSol			= leftSol;
+		m_rightSol			= rightSol;
+		m_clawSol			= claw;
+	}
+	
+	/**
+	 * Sets the intake sources
+	 * 
+	 * @param leftIntake
+	 * @param rightIntake
+	 * @param sol
+	 */
+	public void setIntake(NerdyMotor leftIntake, NerdyMotor rightIntake, NerdySolenoid sol)	{
+		m_leftIntake	= leftIntake;
+		m_rightIntake	= rightIntake;
+		m_intakeSol		= sol;
+	}
+	
+	/**
+	 * Sets the joysticks
+	 * 
+	 * @param leftJoy
+	 * @param rightJoy
+	 * @param articJoy
+	 */
+	public void setJoysticks(NerdyJoystick leftJoy, NerdyJoystick rightJoy, NerdyJoystick articJoy)	{
+		m_leftJoy	= leftJoy;
+		m_rightJoy	= rightJoy;
+		m_articJoy	= articJoy;
+	}
+	
+	/**
+	 * Records every channel. Call once per control cycle, after the subsystems run.
+	 * Sources that were not set are recorded as zero.
+	 * 
+	 * @return False if no log is open, or the writer has fallen behind and the
+	 * 			record was dropped
+	 */
+	public boolean sample()	{
+		if(!m_running)	{
+			return false;
+		}
+		long head = m_head;
+		if(head - m_tail > m_mask)	{
+			m_dropped++;
+			return false;
+		}
+		
+		double[] r = m_ring;
+		int i = (int) (head & m_mask) * kNumChannels;
+		r[i + kSequence]	= head + 1;
+		r[i + kTime]		= NerdyTimer.getTime();
+		
+		if(m_ftLeftEncoder != null)	{
+			r[i + kFtLeftEncoder]	= m_ftLeftEncoder.getRaw();
+			r[i + kFtRightEncoder]	= m_ftRightEncoder.getRaw();
+			r[i + kBkLeftEncoder]	= m_bkLeftEncoder.getRaw();
+			r[i + kBkRightEncoder]	= m_bkRightEncoder.getRaw();
+			r[i + kFtLeftDrive]		= m_ftLeft.get();
+			r[i + kFtRightDrive]	= m_ftRight.get();
+			r[i + kBkLeftDrive]		= m_bkLeft.get();
+			r[i + kBkRightDrive]	= m_bkRight.get();
+		}
+		if(m_imu != null)	{
+			r[i + kYaw]		= m_imu.getYaw();
+			r[i + kPitch]	= m_imu.getPitch();
+			r[i + kRoll]	= m_imu.getRoll();
+			r[i + kAccelX]	= m_imu.getWorldLinearAccelX();
+			r[i + kAccelY]	= m_imu.getWorldLinearAccelY();
+			r[i + kAccelZ]	= m_imu.getWorldLinearAccelZ();
+		}
+		if(m_elevator != null)	{
+			r[i + kElevatorEncoder]	= m_elevatorEncoder.getRaw();
+			r[i + kElevatorCurrent]	= m_elevatorCurrent.getCurrent();
+			r[i + kElevator]		= m_elevator.get();
+			r[i + kLeftSol]			= m_leftSol.get() ? 1 : 0;
+			r[i + kRightSol]		= m_rightSol.get() ? 1 : 0;
+			r[i + kClawSol]			= m_clawSol.get() ? 1 : 0;
+		}
+		if(m_leftIntake != null)	{
+			r[i + kLeftIntake]	= m_leftIntake.get();
+			r[i + kRightIntake]	= m_rightIntake.get();
+			r[i + kIntakeSol]	= m_intakeSol.get() ? 1 : 0;
+		}
+		if(m_leftJoy != null)	{
+			sampleStick(r, i + kLeftStick, m_leftJoy);
+			sampleStick(r, i + kRightStick, m_rightJoy);
+			sampleStick(r, i + kArticStick, m_articJoy);
+		}
+		
+		// Publishes the record to the writer
+		m_head = head + 1;
+		return true;
+	}
+	
+	/**
+	 * Waits until sample() has room for a record. For offline recording, e.g. in
+	 * the simulator, where the loop runs faster than the writer; never call this
+	 * on the robot.
+	 */
+	public void awaitSpace()	{
+		while(m_head - m_tail > m_mask)	{
+			LockSupport.unpark(m_writer);
+			Thread.yield();
+		}
+	}
+	
+	private static void sampleStick(double[] r, int i, NerdyJoystick joy)	{
+		r[i + kStickX]			= joy.getRawAxis(NerdyJoystick.kXAxis);
+		r[i + kStickY]			= joy.getRawAxis(NerdyJoystick.kYAxis);
+		r[i + kStickZ]			= joy.getRawAxis(NerdyJoystick.kZAxis);
+		r[i + kStickThrottle]	= joy.getRawAxis(NerdyJoystick.kThrottleAxis);
+		r[i + kStickButtons]	= joy.getRawButtons() & ((1 << kStickButtonCount) - 1);
+	}
+	
+	/**
+	 * Writer thread. Drains the ring into the file every kWriterPeriodNs.
+	 */
+	private void write()	{
+		try	{
+			while(m_running)	{
+				drain();
+				LockSupport.parkNanos(kWriterPeriodNs);
+			}
+			drain();
+		}	catch(IOException e)	{
+			e.printStackTrace();
+		}
+	}
+	
+	private void drain() throws IOException	{
+		long tail = m_tail;
+		long head = m_head;
+		double[] r = m_ring;
+		while(tail < head)	{
+			if(m_map.remaining() < kRecordSize)	{
+				m_mapPosition += m_map.position();
+				m_map.force();
+				m_map = m_channel.map(FileChannel.MapMode.READ_WRITE, m_mapPosition, (long) kChunkRecords * kRecordSize);
+			}
+			int i = (int) (tail & m_mask) * kNumChannels;
+			for(int c = 0; c < kNumChannels; c++)	{
+				m_map.putDouble(r[i + c]);
+			}
+			tail++;
+			// Frees the slot for sample()
+			m_tail = tail;
+		}
+	}
+	
+	/**
+	 * Gets the number of records written to the file
+	 * 
+	 * @return The number of records
+	 */
+	public long getWritten()	{
+		return m_tail;
+	}
+	
+	/**
+	 * Gets the number of records dropped because the writer fell behind
+	 * 
+	 * @return The number of records
+	 */
+	public int getDropped()	{
+		return m_dropped;
+	}
+	
+	/**
+	 * Writes any remaining records, stops the writer, and closes the file,
+	 * trimming the unused part of the last chunk. Does nothing if no log is
+	 * open. Don't call sample() from another thread while this runs.
+	 * 
+	 * @throws IOException If the file cannot be written
+	 */
+	public void close() throws IOException	{
+		if(!m_running)	{
+			return;
+		}
+		m_running = false;
+		LockSupport.unpark(m_writer);
+		try	{
+			m_writer.join();
+		}	catch(InterruptedException e)	{
+			Thread.currentThread().interrupt();
+		}
+		m_map.force();
+		m_channel.truncate(m_mapPosition + m_map.position());
+		m_file.close();
+	}
+}
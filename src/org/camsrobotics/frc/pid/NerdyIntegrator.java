@@ -1,7 +1,14 @@
 package org.camsrobotics.frc.pid;
 
+import org.camsrobotics.frc.util.NerdyTimer;
+
 /**
- * Trapezoidal integrator
+ * Trapezoidal integrator, over time in seconds
+ * 
+ * The first value after construction or reset() only starts the
+ * integration, so time spent before it is never counted. With a limit set,
+ * the total is held within it, so it can't wind up while the output it
+ * feeds is saturated.
  * 
  * @author Wesley
  *
@@ -10,12 +17,13 @@ public class NerdyIntegrator {
 	private double m_integration;
 	private double m_lastTime;
 	private double m_lastVal;
+	private double m_limit = Double.POSITIVE_INFINITY;
+	private boolean m_started = false;
 	
 	/**
 	 * Default constructor
 	 */
 	public NerdyIntegrator(){
-		m_lastTime = System.currentTimeMillis();
 		m_integration = 0;
 	}
 	
@@ -25,7 +33,6 @@ public class NerdyIntegrator {
 	 * @param start The starting point
 	 */
 	public NerdyIntegrator(double start)	{
-		m_lastTime = System.currentTimeMillis();
 		m_integration = start;
 	}
 	
@@ -35,14 +42,27 @@ public class NerdyIntegrator {
 	 * @param val The value
 	 */
 	public void integrate(double val)	{
-		double time = System.currentTimeMillis();
+		double time = NerdyTimer.getTime();
 		
-		m_integration += ((val+m_lastVal)/2)*(time-m_lastTime);
+		if(m_started)	{
+			m_integration += ((val+m_lastVal)/2)*(time-m_lastTime);
+			m_integration = Math.max(-m_limit, Math.min(m_integration, m_limit));
+		}
 		
+		m_started = true;
 		m_lastTime = time;
 		m_lastVal = val;
 	}
 	
+	/**
+	 * Limits the total
+	 * 
+	 * @param limit The largest magnitude the total can reach
+	 */
+	public void setLimit(double limit)	{
+		m_limit = Math.abs(limit);
+	}
+	
 	/**
 	 * Gets the total integrated value
 	 * 
@@ -57,5 +77,6 @@ public class NerdyIntegrator {
 	 */
 	public void reset()	{
 		m_integration = 0;
+		m_started = false;
 	}
 }
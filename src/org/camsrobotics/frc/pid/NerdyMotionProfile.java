@@ -0,0 +1,130 @@
+package org.camsrobotics.frc.pid;
+
+/**
+ * Trapezoidal motion profile: accelerates at the limit, cruises at the
+ * velocity limit and decelerates at the limit, starting and ending at rest.
+ * Moves too short to reach the velocity limit are triangular.
+ * 
+ * plan() is allocation free, so one profile can be replanned for every move.
+ * 
+ */
+public class NerdyMotionProfile {
+	private final double m_maxVelocity, m_maxAccel;
+	private double m_start, m_goal, m_direction;
+	private double m_accelTime, m_cruiseTime, m_duration, m_peakVelocity;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param maxVelocity	Units per second
+	 * @param maxAccel		Units per second squared
+	 */
+	public NerdyMotionProfile(double maxVelocity, double maxAccel)	{
+		m_maxVelocity = maxVelocity;
+		m_maxAccel = maxAccel;
+	}
+	
+	/**
+	 * Plans a move
+	 * 
+	 * @param start	The position to start at, at rest
+	 * @param goal	The position to end at, at rest
+	 * @return this
+	 */
+	public NerdyMotionProfile plan(double start, double goal)	{
+		double distance = Math.abs(goal - start);
+		m_start = start;
+		m_goal = goal;
+		m_direction = goal < start ? -1 : 1;
+		
+		if(distance * m_maxAccel < m_maxVelocity * m_maxVelocity)	{
+			// Triangular, never reaches the velocity limit
+			m_accelTime = Math.sqrt(distance / m_maxAccel);
+			m_peakVelocity = m_accelTime * m_maxAccel;
+			m_cruiseTime = 0;
+		}	else	{
+			m_accelTime = m_maxVelocity / m_maxAccel;
+			m_peakVelocity = m_maxVelocity;
+			m_cruiseTime = distance / m_maxVelocity - m_accelTime;
+		}
+		m_duration = 2 * m_accelTime + m_cruiseTime;
+		return this;
+	}
+	
+	/**
+	 * Gets the position
+	 * 
+	 * @param t Seconds since the start of the move
+	 * @return The position
+	 */
+	public double getPosition(double t)	{
+		if(t <= 0)	{
+			return m_start;
+		}	else if(t >= m_duration)	{
+			return m_goal;
+		}
+		
+		double travelled;
+		if(t < m_accelTime)	{
+			travelled = 0.5 * m_maxAccel * t * t;
+		}	else if(t < m_accelTime + m_cruiseTime)	{
+			travelled = 0.5 * m_peakVelocity * m_accelTime + m_peakVelocity * (t - m_accelTime);
+		}	else	{
+			double left = m_duration - t;
+			travelled = Math.abs(m_goal - m_start) - 0.5 * m_maxAccel * left * left;
+		}
+		return m_start + m_direction * travelled;
+	}
+	
+	/**
+	 * Gets the velocity
+	 * 
+	 * @param t Seconds since the start of the move
+	 * @return Units per second
+	 */
+	public double getVelocity(double t)	{
+		if(t <= 0 || t >= m_duration)	{
+			return 0;
+		}	else if(t < m_accelTime)	{
+			return m_direction * m_maxAccel * t;
+		}	else if(t < m_accelTime + m_cruiseTime)	{
+			return m_direction * m_peakVelocity;
+		}
+		return m_direction * m_maxAccel * (m_duration - t);
+	}
+	
+	/**
+	 * Gets the acceleration
+	 * 
+	 * @param t Seconds since the start of the move
+	 * @return Units per second squared
+	 */
+	public double getAcceleration(double t)	{
+		if(t <= 0 || t >= m_duration)	{
+			return 0;
+		}	else if(t < m_accelTime)	{
+			return m_direction * m_maxAccel;
+		}	else if(t < m_accelTime + m_cruiseTime)	{
+			return 0;
+		}
+		return -m_direction * m_maxAccel;
+	}
+	
+	/**
+	 * Gets how long the move takes
+	 * 
+	 * @return Seconds
+	 */
+	public double getDuration()	{
+		return m_duration;
+	}
+	
+	/**
+	 * Gets where the move ends
+	 * 
+	 * @return The goal position
+	 */
+	public double getGoal()	{
+		return m_goal;
+	}
+}
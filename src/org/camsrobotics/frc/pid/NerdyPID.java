@@ -3,6 +3,10 @@ package org.camsrobotics.frc.pid;
 /**
  * PID Calculation class
  * 
+ * The error is desired minus measured, so a positive output drives the
+ * measurement up. The I term integrates over seconds; the D term is the
+ * change in error since the last calculation.
+ * 
  * @author Wesley
  *
  */
@@ -11,6 +15,7 @@ public class NerdyPID {
 	private double m_desired;
 	private double m_error = 0;
 	private double m_lastError;
+	private boolean m_started = false;
 	private NerdyIntegrator m_integrator;
 	
 	/**
@@ -38,6 +43,20 @@ public class NerdyPID {
 		return this;
 	}
 	
+	/**
+	 * Limits the I term, so the error integrated while the output is
+	 * saturated can't hold it there after the error reverses
+	 * 
+	 * @param limit The largest magnitude of the I term, in output units
+	 * @return this
+	 */
+	public NerdyPID setIntegralLimit(double limit)	{
+		if(m_kI != 0)	{
+			m_integrator.setLimit(limit / m_kI);
+		}
+		return this;
+	}
+	
 	/**
 	 * Resets the calculations
 	 */
@@ -45,6 +64,7 @@ public class NerdyPID {
 		m_integrator.reset();
 		m_error = 0;
 		m_lastError = 0;
+		m_started = false;
 	}
 	
 	/**
@@ -54,8 +74,11 @@ public class NerdyPID {
 	 * @return The power value
 	 */
 	public double calculate(double heading)	{
-		m_lastError = m_error;
-		m_error = heading - m_desired;
+		double error = m_desired - heading;
+		// No derivative kick on the first calculation
+		m_lastError = m_started ? m_error : error;
+		m_error = error;
+		m_started = true;
 		
 		// P calculation
 		double p = m_error * m_kP;
@@ -68,6 +91,6 @@ public class NerdyPID {
 		double d = m_kD * (m_error - m_lastError);
 		
 		// put it together
-		return p+i-d;
+		return p+i+d;
 	}
 }
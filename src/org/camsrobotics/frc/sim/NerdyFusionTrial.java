@@ -0,0 +1,136 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.util.NerdyJoystick;
+import org.camsrobotics.frc.util.NerdyOdometry;
+import org.camsrobotics.frc.util.NerdyResources;
+
+/**
+ * Drives the simulated robot through hard starts, stops and direction changes
+ * with limited traction and a biased, noisy accelerometer, and compares the
+ * odometry's velocity and position with the physics model's: differencing
+ * the encoders every update, differencing them over a few updates, and the
+ * velocity filter fusing the IMU's acceleration.
+ * 
+ * Usage: NerdyFusionTrial [seconds] [traction in g]
+ * 
+ */
+public class NerdyFusionTrial {
+	public static final double kDefaultDuration	= 30;	// s
+	public static final double kTraction		= 0.6;	// g
+	public static final double kAccelBiasX		= 0.02;	// g
+	public static final double kAccelBiasY		= -0.015;	// g
+	public static final double kAccelNoise		= 0.01;	// g
+	public static final int kWindow				= 4;	// Updates to difference the encoders over
+	
+	// Strafe, forward and rotate for each segment
+	private static final double[][] kPattern = {
+		{0, 1, 0}, {0, 0, 0}, {1, 0, 0}, {-1, 0, 0}, {0, -1, 0.3}, {0.7, 0.7, 0},
+		{0, 0, 0}, {-0.7, 1, -0.3}, {0, -1, 0}, {0.5, 0, 0.5}, {0, 0, 0},
+	};
+	private static final double kSegment = 1.2;	// s
+	
+	private SimRobot m_sim;
+	private NerdyOdometry m_wheels;
+	private double m_period;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param traction g the wheels can accelerate the robot at before they spin
+	 */
+	public NerdyFusionTrial(double traction)	{
+		m_sim = new SimRobot();
+		m_period = 1 / NerdyResources.Constants.driveRate;
+		m_sim.drive.robotCentric();
+		m_sim.physics.setTraction(traction);
+		m_sim.gyro.setAccelError(kAccelBiasX, kAccelBiasY, kAccelNoise);
+		m_sim.odometry.setFusion(true);
+		m_wheels = new NerdyOdometry(m_sim.drivebase, m_sim.gyro);
+		m_wheels.setFusion(false);
+	}
+	
+	/**
+	 * Drives the pattern and prints the errors
+	 * 
+	 * @param duration Seconds
+	 */
+	public void run(double duration)	{
+		NerdyOdometry.Pose wheels = new NerdyOdometry.Pose();
+		NerdyOdometry.Pose fused = new NerdyOdometry.Pose();
+		double[] historyX = new double[kWindow + 1];
+		double[] historyY = new double[kWindow + 1];
+		double wheelsError = 0, windowError = 0, fusedError = 0;
+		double wheelsDrift = 0, fusedDrift = 0;
+		double slipTime = 0, flaggedTime = 0, missedTime = 0;
+		int updates = 0;
+		
+		for(double t = 0; t < duration; t += m_period)	{
+			double[] segment = kPattern[(int) (t / kSegment) % kPattern.length];
+			m_sim.leftStick.setAxis(NerdyJoystick.kXAxis, segment[0]);
+			m_sim.leftStick.setAxis(NerdyJoystick.kYAxis, -segment[1]);
+			m_sim.rightStick.setAxis(NerdyJoystick.kXAxis, segment[2]);
+			
+			m_sim.drive.run();
+			m_wheels.run();
+			m_sim.odometry.run();
+			m_wheels.getPose(wheels);
+			m_sim.odometry.getPose(fused);
+			
+			SimPhysics physics = m_sim.physics;
+			double trueX = physics.getVelocityX();
+			double trueY = physics.getVelocityY();
+			wheelsDrift += Math.hypot(wheels.getX() - physics.getX(), wheels.getY() - physics.getY());
+			fusedDrift += Math.hypot(fused.getX() - physics.getX(), fused.getY() - physics.getY());
+			int slot = updates % (kWindow + 1);
+			historyX[slot] = wheels.getX();
+			historyY[slot] = wheels.getY();
+			if(updates >= kWindow)	{
+				int oldest = (updates + 1) % (kWindow + 1);
+				double windowX = (historyX[slot] - historyX[oldest]) / (kWindow * m_period);
+				double windowY = (historyY[slot] - historyY[oldest]) / (kWindow * m_period);
+				wheelsError += square(wheels.getVelocityX() - trueX) + square(wheels.getVelocityY() - trueY);
+				windowError += square(windowX - trueX) + square(windowY - trueY);
+				fusedError += square(fused.getVelocityX() - trueX) + square(fused.getVelocityY() - trueY);
+			}
+			updates++;
+			
+			// The wheels slip when they outrun the robot
+			double slip = Math.abs(m_sim.ftLeftEncoder.getRate() / NerdyResources.Constants.driveCountsPerInch
+					- physics.getForwardSpeed() - physics.getStrafeSpeed()
+					- Math.toRadians(physics.getRotationRate()) * SimPhysics.kDriveTurnRadius);
+			if(slip > NerdyResources.Constants.driveSlipThreshold)	{
+				slipTime += m_period;
+				if(!fused.isSlipping())	{
+					missedTime += m_period;
+				}
+			}
+			if(fused.isSlipping())	{
+				flaggedTime += m_period;
+			}
+			
+			m_sim.step(m_period);
+		}
+		
+		int samples = updates - kWindow;
+		SimPhysics physics = m_sim.physics;
+		System.out.println("Velocity RMS error: every update " + Math.sqrt(wheelsError / samples)
+				+ " in/s, over " + kWindow + " updates " + Math.sqrt(windowError / samples)
+				+ " in/s, fused " + Math.sqrt(fusedError / samples) + " in/s");
+		System.out.println("Position error: wheels " + wheelsDrift / updates + " in on average, "
+				+ Math.hypot(wheels.getX() - physics.getX(), wheels.getY() - physics.getY()) + " in at the end; fused "
+				+ fusedDrift / updates + " in on average, "
+				+ Math.hypot(fused.getX() - physics.getX(), fused.getY() - physics.getY()) + " in at the end");
+		System.out.println("Front left wheel slipped " + slipTime + " s, flagged " + flaggedTime
+				+ " s, missed " + missedTime + " s");
+	}
+	
+	private static double square(double x)	{
+		return x * x;
+	}
+	
+	public static void main(String[] args)	{
+		double duration = args.length > 0 ? Double.parseDouble(args[0]) : kDefaultDuration;
+		double traction = args.length > 1 ? Double.parseDouble(args[1]) : kTraction;
+		new NerdyFusionTrial(traction).run(duration);
+	}
+}
@@ -0,0 +1,283 @@
+package org.camsrobotics.frc.sim;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.camsrobotics.frc.log.NerdyFlightLog;
+import org.camsrobotics.frc.log.NerdyFlightRecorder;
+import org.camsrobotics.frc.util.NerdyJoystick;
+import org.camsrobotics.frc.util.NerdyResources;
+import org.camsrobotics.frc.util.NerdyScheduler;
+
+/**
+ * Replays a flight recorder log through the robot code, as fast as it will go.
+ * 
+ * Each record's sensor and joystick readings are fed into the simulated hardware,
+ * the clock is set to the record's time, and the subsystems run on the same
+ * scheduler rates as on the robot. The outputs they command are then compared
+ * with the outputs in the record. The physics model is not used; the log is the
+ * ground truth for every sensor.
+ * 
+ * Usage: NerdyReplay [log file] [tolerance]
+ * 
+ */
+public class NerdyReplay {
+	public static final double kDefaultTolerance	= 1e-9;
+	public static final double kRestartGap			= 0.1;	// s without records before the scheduler restarts
+	
+	// Commanded outputs are the last channels of a record
+	public static final int kFirstOutput	= NerdyFlightRecorder.kFtLeftDrive;
+	public static final int kLastOutput		= NerdyFlightRecorder.kIntakeSol;
+	
+	private final SimRobot m_sim;
+	private final NerdyFlightLog m_log;
+	private final NerdyScheduler m_scheduler;
+	private final double m_slack;
+	private double m_tolerance = kDefaultTolerance;
+	
+	private final double[] m_record		= new double[NerdyFlightRecorder.kNumChannels];
+	private final double[] m_previous	= new double[NerdyFlightRecorder.kNumChannels];
+	private final double[] m_actual		= new double[NerdyFlightRecorder.kNumChannels];
+	
+	// Statistics, indexed by channel
+	private final int[] m_mismatches		= new int[NerdyFlightRecorder.kNumChannels];
+	private final int[] m_firstMismatch		= new int[NerdyFlightRecorder.kNumChannels];
+	private final double[] m_maxError		= new double[NerdyFlightRecorder.kNumChannels];
+	private int m_records = 0;
+	private double m_duration = 0;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param sim	The simulated robot to drive
+	 * @param log	The log
+	 */
+	public NerdyReplay(SimRobot sim, NerdyFlightLog log)	{
+		this(sim, log, null);
+	}
+	
+	/**
+	 * Constructor with the operator controls, which run before the subsystems
+	 * at the control rate, like on the robot
+	 * 
+	 * @param sim		The simulated robot to drive
+	 * @param log		The log
+	 * @param controls	Reads the simulated joysticks and commands the robot, or null
+	 */
+	public NerdyReplay(SimRobot sim, NerdyFlightLog log, Runnable controls)	{
+		if(log.getChannelCount() != NerdyFlightRecorder.kNumChannels)	{
+			throw new IllegalArgumentException("Log has " + log.getChannelCount() + " channels, expected "
+					+ NerdyFlightRecorder.kNumChannels);
+		}
+		m_sim = sim;
+		m_log = log;
+		
+		m_scheduler = new NerdyScheduler();
+		if(controls != null)	{
+			m_scheduler.add("Controls", controls, NerdyResources.Constants.controlRate);
+		}
+		m_sim.robot.schedule(m_scheduler);
+		
+		// Half a recorder period early, so timestamp jitter does not move a release into another record
+		m_slack = 0.5 / NerdyResources.Constants.driveRate;
+	}
+	
+	/**
+	 * Sets how far a replayed output can be from the recorded one and still match
+	 * 
+	 * @param tolerance The tolerance
+	 */
+	public void setTolerance(double tolerance)	{
+		m_tolerance = tolerance;
+	}
+	
+	/**
+	 * Replays the whole log
+	 * 
+	 * @return The number of records with an output that did not match
+	 */
+	public int run()	{
+		double[] record = m_record;
+		int mismatched = 0;
+		for(int c = 0; c < NerdyFlightRecorder.kNumChannels; c++)	{
+			m_mismatches[c] = 0;
+			m_firstMismatch[c] = -1;
+			m_maxError[c] = 0;
+		}
+		m_duration = 0;
+		
+		int size = m_log.size();
+		for(int r = 0; r < size; r++)	{
+			m_log.read(r, record);
+			double time = record[NerdyFlightRecorder.kTime];
+			double dt = time - m_previous[NerdyFlightRecorder.kTime];
+			m_sim.clock.set(time);
+			
+			// The robot stopped the scheduler and started it again, e.g. after being disabled
+			if(r == 0 || dt <= 0 || dt > kRestartGap)	{
+				m_scheduler.reset(time - m_slack);
+				dt = 0;
+			}
+			m_duration += dt;
+			
+			setInputs(record, dt);
+			m_scheduler.poll();
+			if(m_scheduler.getFailure() != null)	{
+				throw m_scheduler.getFailure();
+			}
+			if(!compare(r, record))	{
+				mismatched++;
+			}
+			System.arraycopy(record, 0, m_previous, 0, record.length);
+		}
+		m_records = size;
+		return mismatched;
+	}
+	
+	/**
+	 * Feeds a record's readings into the simulated hardware
+	 * 
+	 * @param record	The record
+	 * @param dt		Seconds since the previous record, or 0 to report zero rates
+	 */
+	private void setInputs(double[] record, double dt)	{
+		setEncoder(m_sim.ftLeftEncoder, record, NerdyFlightRecorder.kFtLeftEncoder, dt);
+		setEncoder(m_sim.ftRightEncoder, record, NerdyFlightRecorder.kFtRightEncoder, dt);
+		setEncoder(m_sim.bkLeftEncoder, record, NerdyFlightRecorder.kBkLeftEncoder, dt);
+		setEncoder(m_sim.bkRightEncoder, record, NerdyFlightRecorder.kBkRightEncoder, dt);
+		setEncoder(m_sim.elevatorEncoder, record, NerdyFlightRecorder.kElevatorEncoder, dt);
+		m_sim.elevatorMotor.setCurrent(record[NerdyFlightRecorder.kElevatorCurrent]);
+		
+		double yaw = record[NerdyFlightRecorder.kYaw];
+		double turned = SimGyro.wrap(yaw - m_previous[NerdyFlightRecorder.kYaw]);
+		m_sim.gyro.setReading(yaw, dt > 0 ? turned / dt : 0);
+		m_sim.gyro.setWorldLinearAccel(record[NerdyFlightRecorder.kAccelX],
+				record[NerdyFlightRecorder.kAccelY], record[NerdyFlightRecorder.kAccelZ]);
+		
+		setStick(m_sim.leftStick, record, NerdyFlightRecorder.kLeftStick);
+		setStick(m_sim.rightStick, record, NerdyFlightRecorder.kRightStick);
+		setStick(m_sim.articStick, record, NerdyFlightRecorder.kArticStick);
+	}
+	
+	private void setEncoder(SimEncoder encoder, double[] record, int channel, double dt)	{
+		double raw = record[channel];
+		encoder.setReading(raw, dt > 0 ? (raw - m_previous[channel]) / dt : 0);
+	}
+	
+	private static void setStick(SimStick stick, double[] record, int channel)	{
+		stick.setAxis(NerdyJoystick.kXAxis, record[channel + NerdyFlightRecorder.kStickX]);
+		stick.setAxis(NerdyJoystick.kYAxis, record[channel + NerdyFlightRecorder.kStickY]);
+		stick.setAxis(NerdyJoystick.kZAxis, record[channel + NerdyFlightRecorder.kStickZ]);
+		stick.setAxis(NerdyJoystick.kThrottleAxis, record[channel + NerdyFlightRecorder.kStickThrottle]);
+		stick.setButtons((int) record[channel + NerdyFlightRecorder.kStickButtons]);
+	}
+	
+	/**
+	 * Compares the replayed outputs with the recorded ones
+	 * 
+	 * @param r			The record number
+	 * @param record	The record
+	 * @return			True if every output matched
+	 */
+	private boolean compare(int r, double[] record)	{
+		double[] actual = m_actual;
+		actual[NerdyFlightRecorder.kFtLeftDrive]	= m_sim.ftLeftDrive.get();
+		actual[NerdyFlightRecorder.kFtRightDrive]	= m_sim.ftRightDrive.get();
+		actual[NerdyFlightRecorder.kBkLeftDrive]	= m_sim.bkLeftDrive.get();
+		actual[NerdyFlightRecorder.kBkRightDrive]	= m_sim.bkRightDrive.get();
+		actual[NerdyFlightRecorder.kElevator]		= m_sim.elevatorMotor.get();
+		actual[NerdyFlightRecorder.kLeftIntake]		= m_sim.leftIntake.get();
+		actual[NerdyFlightRecorder.kRightIntake]	= m_sim.rightIntake.get();
+		actual[NerdyFlightRecorder.kLeftSol]		= m_sim.leftSol.get() ? 1 : 0;
+		actual[NerdyFlightRecorder.kRightSol]		= m_sim.rightSol.get() ? 1 : 0;
+		actual[NerdyFlightRecorder.kClawSol]		= m_sim.canClaw.get() ? 1 : 0;
+		actual[NerdyFlightRecorder.kIntakeSol]		= m_sim.intakeSol.get() ? 1 : 0;
+		
+		boolean matched = true;
+		for(int c = kFirstOutput; c <= kLastOutput; c++)	{
+			double error = Math.abs(actual[c] - record[c]);
+			if(error > m_tolerance)	{
+				if(m_mismatches[c]++ == 0)	{
+					m_firstMismatch[c] = r;
+				}
+				m_maxError[c] = Math.max(m_maxError[c], error);
+				matched = false;
+			}
+		}
+		return matched;
+	}
+	
+	/**
+	 * Gets the number of records an output did not match in
+	 * 
+	 * @param channel The output channel, e.g. NerdyFlightRecorder.kElevator
+	 * @return The number of records
+	 */
+	public int getMismatches(int channel)	{
+		return m_mismatches[channel];
+	}
+	
+	/**
+	 * Gets the first record an output did not match in
+	 * 
+	 * @param channel The output channel
+	 * @return The record number, or -1 if it always matched
+	 */
+	public int getFirstMismatch(int channel)	{
+		return m_firstMismatch[channel];
+	}
+	
+	/**
+	 * Gets the largest difference between an output's replayed and recorded values
+	 * 
+	 * @param channel The output channel
+	 * @return The difference
+	 */
+	public double getMaxError(int channel)	{
+		return m_maxError[channel];
+	}
+	
+	/**
+	 * Gets the recorded time covered by the last run, not counting gaps where the robot was stopped
+	 * 
+	 * @return Seconds
+	 */
+	public double getDuration()	{
+		return m_duration;
+	}
+	
+	/**
+	 * Prints the comparison for every output
+	 * 
+	 * @param out The destination
+	 */
+	public void report(PrintStream out)	{
+		for(int c = kFirstOutput; c <= kLastOutput; c++)	{
+			out.println(m_log.getChannelName(c) + ": " + m_mismatches[c] + " of " + m_records
+					+ " records differ, max error " + m_maxError[c]
+					+ (m_firstMismatch[c] < 0 ? "" : ", first at record " + m_firstMismatch[c]));
+		}
+	}
+	
+	public static void main(String[] args) throws IOException	{
+		NerdyFlightLog log = new NerdyFlightLog(new File(args[0]));
+		SimRobot sim = new SimRobot();
+		NerdyReplay replay = new NerdyReplay(sim, log, sim.controls);
+		if(args.length > 1)	{
+			replay.setTolerance(Double.parseDouble(args[1]));
+		}
+		
+		long start = System.nanoTime();
+		int mismatched = replay.run();
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		
+		System.out.println(log.size() + " records (" + replay.getDuration() + " s) in " + elapsed + " s ("
+				+ (long) (log.size() / elapsed) + " records/s, " + (replay.getDuration() / elapsed) + "x real time)");
+		replay.report(System.out);
+		System.out.println(mismatched + " records differ");
+		if(mismatched > 0)	{
+			System.exit(1);
+		}
+	}
+}
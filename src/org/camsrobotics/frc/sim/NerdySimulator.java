@@ -0,0 +1,138 @@
+package org.camsrobotics.frc.sim;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.camsrobotics.frc.log.NerdyFlightRecorder;
+import org.camsrobotics.frc.util.NerdyJoystick;
+import org.camsrobotics.frc.util.NerdyOdometry;
+import org.camsrobotics.frc.util.NerdyResources;
+import org.camsrobotics.frc.util.NerdyScheduler;
+
+/**
+ * Runs NerdyBot headless against the simulated hardware, as fast as it will go,
+ * and reports the loop rate.
+ * 
+ * Usage: NerdySimulator [iterations] [period in seconds] [log file]
+ * 
+ * With a log file, the controls and subsystems run on the robot's scheduler
+ * rates and every drive cycle is recorded, which makes a log NerdyReplay
+ * should match exactly.
+ * 
+ */
+public class NerdySimulator {
+	public static final int kDefaultIterations	= 1000000;
+	public static final double kDefaultPeriod	= 0.005;
+	
+	private SimRobot m_sim;
+	private double m_period;
+	private NerdyScheduler m_scheduler;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param sim		The simulated robot
+	 * @param period	Simulated seconds per iteration
+	 */
+	public NerdySimulator(SimRobot sim, double period)	{
+		m_sim = sim;
+		m_period = period;
+		m_sim.articStick.setAxis(NerdyJoystick.kThrottleAxis, 1);
+	}
+	
+	/**
+	 * Moves the joysticks along a fixed pattern that exercises every drive direction
+	 * and the whole elevator travel, and presses a few of the bound buttons
+	 */
+	void updateSticks()	{
+		double t = m_sim.clock.getTime();
+		m_sim.leftStick.setAxis(NerdyJoystick.kXAxis, 0.6 * Math.sin(0.5 * t));
+		m_sim.leftStick.setAxis(NerdyJoystick.kYAxis, -0.6 * Math.cos(0.3 * t));
+		m_sim.rightStick.setAxis(NerdyJoystick.kXAxis, 0.4 * Math.sin(0.2 * t));
+		m_sim.articStick.setAxis(NerdyJoystick.kYAxis, -0.8 * Math.sin(t));
+		
+		// Intake in and out, open and close, an autostack and a drive mode switch
+		m_sim.articStick.setButton(11, Math.sin(0.7 * t) > 0.5);
+		m_sim.articStick.setButton(12, Math.sin(0.7 * t) < -0.5);
+		m_sim.articStick.setButton(5, t % 8 < 0.2);
+		m_sim.articStick.setButton(6, t % 8 >= 4 && t % 8 < 4.2);
+		m_sim.articStick.setButton(10, t % 20 >= 10 && t % 20 < 10.2);
+		m_sim.leftStick.setButton(7, t % 30 >= 15 && t % 30 < 15.2);
+	}
+	
+	/**
+	 * Runs the subsystems on the robot's scheduler rates from now on, and records
+	 * each drive cycle. The recorder waits for its writer rather than dropping records.
+	 * 
+	 * @param recorder The recorder
+	 */
+	public void record(final NerdyFlightRecorder recorder)	{
+		m_sim.record(recorder);
+		m_scheduler = new NerdyScheduler();
+		m_scheduler.add("Controls", m_sim.controls, NerdyResources.Constants.controlRate);
+		m_sim.robot.schedule(m_scheduler);
+		m_scheduler.add("Odometry", m_sim.odometry, NerdyResources.Constants.driveRate);
+		m_scheduler.add("Recorder", new Runnable()	{
+			public void run()	{
+				recorder.awaitSpace();
+				recorder.sample();
+			}
+		}, NerdyResources.Constants.driveRate);
+		// Half a period early, so rounding in the simulated clock never delays a release
+		m_scheduler.reset(m_sim.clock.getTime() - m_period / 2);
+	}
+	
+	/**
+	 * Runs the robot
+	 * 
+	 * @param iterations The number of iterations
+	 */
+	public void run(int iterations)	{
+		for(int i = 0; i < iterations; i++)	{
+			updateSticks();
+			if(m_scheduler != null)	{
+				m_scheduler.poll();
+				if(m_scheduler.getFailure() != null)	{
+					throw m_scheduler.getFailure();
+				}
+			}	else	{
+				m_sim.robot.run();
+				m_sim.odometry.run();
+			}
+			m_sim.step(m_period);
+		}
+	}
+	
+	public static void main(String[] args) throws IOException	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : kDefaultIterations;
+		double period = args.length > 1 ? Double.parseDouble(args[1]) : kDefaultPeriod;
+		
+		SimRobot sim = new SimRobot();
+		NerdySimulator simulator = new NerdySimulator(sim, period);
+		NerdyFlightRecorder recorder = null;
+		
+		if(args.length > 2)	{
+			recorder = new NerdyFlightRecorder(new File(args[2]), NerdyFlightRecorder.kChunkRecords);
+			simulator.record(recorder);
+		}	else	{
+			// Warm up the JIT before timing
+			simulator.run(Math.min(iterations, 100000));
+		}
+		
+		long start = System.nanoTime();
+		simulator.run(iterations);
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		
+		System.out.println(iterations + " iterations in " + elapsed + " s ("
+				+ (long) (iterations / elapsed) + " iterations/s, "
+				+ (iterations * period / elapsed) + "x real time)");
+		System.out.println("Pose: x " + sim.physics.getX() + " in, y " + sim.physics.getY()
+				+ " in, heading " + sim.physics.getHeading() + " deg; elevator "
+				+ sim.physics.getLiftHeight() + " in");
+		System.out.println("Odometry: " + sim.odometry.getPose(new NerdyOdometry.Pose()));
+		if(recorder != null)	{
+			recorder.close();
+			System.out.println(recorder.getWritten() + " records written to " + args[2]);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.util.NerdyJoystick;
+import org.camsrobotics.frc.util.NerdyResources;
+
+/**
+ * Times the autostack sequences on the simulated elevator: setpoint jumps,
+ * motion profiles, and motion profiles on the Talon's onboard loop. Each
+ * trial starts with the carriage at rest on the bottom, stacks to stack, then
+ * stacks again from where that ended. Also counts the messages the robot code
+ * sent the lift's Talon.
+ * 
+ * Usage: NerdyStackTrial
+ * 
+ */
+public class NerdyStackTrial {
+	public static final double kTimeout = 10;	// s
+	
+	private SimRobot m_sim;
+	private double m_period;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param profiled	True to follow motion profiles
+	 * @param onboard	True to run the loop on the Talon
+	 */
+	public NerdyStackTrial(boolean profiled, boolean onboard)	{
+		m_sim = new SimRobot();
+		m_period = 1 / NerdyResources.Constants.articRate;
+		m_sim.articStick.setAxis(NerdyJoystick.kThrottleAxis, 1);
+		m_sim.elevator.setProfiled(profiled);
+		m_sim.elevator.setOnboardLoop(onboard);
+	}
+	
+	/**
+	 * Runs the elevator until the sequence ends
+	 * 
+	 * @return Seconds the sequence took, or NaN if it timed out
+	 */
+	double runSequence()	{
+		double start = m_sim.clock.getTime();
+		while(m_sim.elevator.isAutoStacking())	{
+			if(m_sim.clock.getTime() - start > kTimeout)	{
+				return Double.NaN;
+			}
+			m_sim.elevator.run();
+			m_sim.step(m_period);
+		}
+		return m_sim.clock.getTime() - start;
+	}
+	
+	/**
+	 * Stacks to stack, then stacks to the drive height
+	 * 
+	 * @return Seconds each sequence took
+	 */
+	public double[] run()	{
+		m_sim.elevator.stackToStack();
+		double first = runSequence();
+		m_sim.elevator.stackToStack2();
+		double second = runSequence();
+		return new double[] {first, second};
+	}
+	
+	public static void main(String[] args)	{
+		String[] names = {"Setpoint jumps", "Motion profiles", "Onboard loop"};
+		for(int i = 0; i < names.length; i++)	{
+			NerdyStackTrial trial = new NerdyStackTrial(i > 0, i == 2);
+			long messages = trial.m_sim.elevatorMotor.getMessages();
+			double[] times = trial.run();
+			messages = trial.m_sim.elevatorMotor.getMessages() - messages;
+			System.out.println(names[i] + ": stack " + times[0] + " s, stack again " + times[1]
+					+ " s, elevator ends at " + trial.m_sim.physics.getLiftHeight() + " in, "
+					+ messages + " messages to the Talon");
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.util.NerdyJoystick;
+import org.camsrobotics.frc.util.NerdyResources;
+
+/**
+ * Strafes the simulated robot sideways, robot centric, with a weak battery
+ * and one dragging wheel, open loop and with the wheel velocity loops. A
+ * straight strafe ends with no forward travel and no turn.
+ * 
+ * Usage: NerdyStrafeTrial [seconds]
+ * 
+ */
+public class NerdyStrafeTrial {
+	public static final double kDefaultDuration	= 3;	// s
+	public static final double kStrafe			= 0.5;
+	public static final double kBattery			= 0.85;
+	public static final double kDraggingWheel	= 0.7;
+	
+	private SimRobot m_sim;
+	private double m_period;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param velocityMode True for the wheel velocity loops
+	 */
+	public NerdyStrafeTrial(boolean velocityMode)	{
+		m_sim = new SimRobot();
+		m_period = 1 / NerdyResources.Constants.driveRate;
+		m_sim.drivebase.setVelocityMode(velocityMode);
+		m_sim.drive.robotCentric();
+		m_sim.physics.setDriveEfficiency(kBattery * kDraggingWheel, kBattery, kBattery, kBattery);
+	}
+	
+	/**
+	 * Strafes right
+	 * 
+	 * @param duration Seconds
+	 */
+	public void run(double duration)	{
+		m_sim.leftStick.setAxis(NerdyJoystick.kXAxis, kStrafe);
+		for(double t = 0; t < duration; t += m_period)	{
+			m_sim.drive.run();
+			m_sim.step(m_period);
+		}
+	}
+	
+	public static void main(String[] args)	{
+		double duration = args.length > 0 ? Double.parseDouble(args[0]) : kDefaultDuration;
+		String[] names = {"Open loop", "Velocity loops"};
+		for(int i = 0; i < names.length; i++)	{
+			NerdyStrafeTrial trial = new NerdyStrafeTrial(i == 1);
+			trial.run(duration);
+			SimPhysics physics = trial.m_sim.physics;
+			System.out.println(names[i] + ": strafed " + physics.getX() + " in, drifted " + physics.getY()
+					+ " in forward and " + physics.getHeading() + " deg");
+		}
+	}
+}
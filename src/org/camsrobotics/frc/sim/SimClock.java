@@ -0,0 +1,33 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.hal.NerdyClock;
+
+/**
+ * Simulated time, advanced explicitly by the simulator
+ * 
+ */
+public class SimClock implements NerdyClock {
+	private volatile double m_time = 0;
+	
+	public double getTime()	{
+		return m_time;
+	}
+	
+	/**
+	 * Advances the time
+	 * 
+	 * @param dt Seconds
+	 */
+	public void step(double dt)	{
+		m_time += dt;
+	}
+	
+	/**
+	 * Sets the time
+	 * 
+	 * @param time Seconds
+	 */
+	public void set(double time)	{
+		m_time = time;
+	}
+}
@@ -0,0 +1,62 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.hal.NerdyEncoder;
+
+/**
+ * Simulated 4X quadrature encoder, positioned by the physics model
+ * 
+ */
+public class SimEncoder implements NerdyEncoder {
+	private double m_position = 0;
+	private double m_rate = 0;
+	private double m_zero = 0;
+	
+	public int get()	{
+		return getRaw() / 4;
+	}
+	
+	public int getRaw()	{
+		return (int) Math.floor(m_position - m_zero);
+	}
+	
+	public double getRate()	{
+		return m_rate / 4;
+	}
+	
+	public void reset()	{
+		m_zero = m_position;
+	}
+	
+	/**
+	 * Moves the encoder
+	 * 
+	 * @param rate	Raw counts per second
+	 * @param dt	Seconds
+	 */
+	public void step(double rate, double dt)	{
+		m_rate = rate;
+		m_position += rate * dt;
+	}
+	
+	/**
+	 * Sets the absolute position
+	 * 
+	 * @param raw	Raw counts
+	 * @param rate	Raw counts per second
+	 */
+	public void set(double raw, double rate)	{
+		m_rate = rate;
+		m_position = raw;
+	}
+	
+	/**
+	 * Sets the reading directly, e.g. from a recorded log, clearing any reset
+	 * 
+	 * @param raw	Raw counts, as getRaw() should report them
+	 * @param rate	Raw counts per second
+	 */
+	public void setReading(double raw, double rate)	{
+		m_zero = 0;
+		set(raw, rate);
+	}
+}
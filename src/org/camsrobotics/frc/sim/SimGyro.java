@@ -0,0 +1,121 @@
+package org.camsrobotics.frc.sim;
+
+import java.util.Random;
+
+import org.camsrobotics.frc.hal.NerdyIMU;
+
+/**
+ * Simulated IMU, turned and accelerated by the physics model. The robot stays
+ * level, and the world frame is the field frame.
+ * 
+ */
+public class SimGyro implements NerdyIMU {
+	private double m_heading = 0;
+	private double m_rate = 0;
+	private double m_zero = 0;
+	private double m_accelX = 0, m_accelY = 0, m_accelZ = 0;
+	private double m_biasX = 0, m_biasY = 0, m_noise = 0;
+	private Random m_random = new Random(687);
+	
+	public double getYaw()	{
+		return wrap(m_heading - m_zero);
+	}
+	
+	public double getRate()	{
+		return m_rate;
+	}
+	
+	public void zeroYaw()	{
+		m_zero = m_heading;
+	}
+	
+	public double getPitch()	{
+		return 0;
+	}
+	
+	public double getRoll()	{
+		return 0;
+	}
+	
+	public double getWorldLinearAccelX()	{
+		return m_accelX;
+	}
+	
+	public double getWorldLinearAccelY()	{
+		return m_accelY;
+	}
+	
+	public double getWorldLinearAccelZ()	{
+		return m_accelZ;
+	}
+	
+	/**
+	 * Sets the acceleration
+	 * 
+	 * @param x	g along the field X axis
+	 * @param y	g along the field Y axis
+	 * @param z	g up
+	 */
+	public void setWorldLinearAccel(double x, double y, double z)	{
+		m_accelX = x;
+		m_accelY = y;
+		m_accelZ = z;
+		if(m_noise != 0 || m_biasX != 0 || m_biasY != 0)	{
+			m_accelX += m_biasX + m_noise * m_random.nextGaussian();
+			m_accelY += m_biasY + m_noise * m_random.nextGaussian();
+		}
+	}
+	
+	/**
+	 * Adds errors to the X and Y acceleration the physics model sets, like a
+	 * real accelerometer's. The noise is repeatable.
+	 * 
+	 * @param biasX	g added along the field X axis
+	 * @param biasY	g added along the field Y axis
+	 * @param noise	Standard deviation of the noise, g
+	 */
+	public void setAccelError(double biasX, double biasY, double noise)	{
+		m_biasX = biasX;
+		m_biasY = biasY;
+		m_noise = noise;
+	}
+	
+	/**
+	 * Turns the gyro
+	 * 
+	 * @param rate	Degrees per second, clockwise positive
+	 * @param dt	Seconds
+	 */
+	public void step(double rate, double dt)	{
+		m_rate = rate;
+		m_heading = wrap(m_heading + rate * dt);
+	}
+	
+	/**
+	 * Sets the reading directly, e.g. from a recorded log, clearing any zeroing
+	 * 
+	 * @param yaw	Degrees, as getYaw() should report it
+	 * @param rate	Degrees per second, clockwise positive
+	 */
+	public void setReading(double yaw, double rate)	{
+		m_zero = 0;
+		m_heading = wrap(yaw);
+		m_rate = rate;
+	}
+	
+	/**
+	 * Wraps an angle to -180 to 180
+	 * 
+	 * @param degrees The angle
+	 * @return The wrapped angle
+	 */
+	static double wrap(double degrees)	{
+		while(degrees >= 180)	{
+			degrees -= 360;
+		}
+		while(degrees < -180)	{
+			degrees += 360;
+		}
+		return degrees;
+	}
+}
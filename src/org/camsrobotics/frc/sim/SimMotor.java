@@ -0,0 +1,35 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.hal.NerdyCurrentSensor;
+import org.camsrobotics.frc.hal.NerdyMotor;
+
+/**
+ * Simulated motor controller. Records the commanded output for the physics model,
+ * and reports the current the model sets.
+ * 
+ */
+public class SimMotor implements NerdyMotor, NerdyCurrentSensor {
+	private double m_power = 0;
+	private double m_current = 0;
+	
+	public void set(double power)	{
+		m_power = power;
+	}
+	
+	public double get()	{
+		return m_power;
+	}
+	
+	public double getCurrent()	{
+		return m_current;
+	}
+	
+	/**
+	 * Sets the current
+	 * 
+	 * @param current Amps
+	 */
+	public void setCurrent(double current)	{
+		m_current = current;
+	}
+}
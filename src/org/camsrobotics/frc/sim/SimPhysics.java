@@ -0,0 +1,263 @@
+package org.camsrobotics.frc.sim;
+
+/**
+ * Physics model of the robot: a mecanum drivebase and the elevator carriage.
+ * Each motor is modeled as a first order lag from its commanded output to its speed.
+ * 
+ * Field coordinates are in inches, with +y forward and +x right at zero heading.
+ * Headings are in degrees, clockwise positive, like the IMU.
+ * 
+ */
+public class SimPhysics {
+	// Drive model
+	public static final double kDriveMaxSpeed		= 144;		// Wheel surface speed at full power, in/s
+	public static final double kDriveTimeConstant	= 0.1;		// s
+	public static final double kDriveCountsPerInch	= 1440 / (6 * Math.PI);	// 360 CPR 4X, 6 in wheels
+	public static final double kDriveTurnRadius		= 14.5;		// Half track width plus half wheelbase, in
+	public static final double kGravity				= 386.09;	// in/s^2
+	
+	// Elevator model
+	public static final double kLiftMaxSpeed		= 40;		// in/s
+	public static final double kLiftTimeConstant	= 0.05;		// s
+	public static final double kLiftCountsPerInch	= 256;
+	public static final double kLiftMinHeight		= 8;		// in
+	public static final double kLiftMaxHeight		= 60;		// in
+	public static final double kLiftStallCurrent	= 60;		// A
+	
+	private final SimMotor m_ftLeft, m_ftRight, m_bkLeft, m_bkRight, m_lift;
+	private final SimEncoder m_ftLeftEncoder, m_ftRightEncoder, m_bkLeftEncoder, m_bkRightEncoder, m_liftEncoder;
+	private final SimGyro m_gyro;
+	private final SimTalon m_talon;
+	
+	// Wheel speeds in the motor's direction, in/s
+	private double m_ftLeftSpeed, m_ftRightSpeed, m_bkLeftSpeed, m_bkRightSpeed;
+	private double m_forward, m_strafe, m_rotation;
+	private double m_x, m_y, m_heading;
+	private double m_velocityX, m_velocityY;
+	
+	private double m_ftLeftEfficiency = 1, m_ftRightEfficiency = 1, m_bkLeftEfficiency = 1, m_bkRightEfficiency = 1;
+	private double m_traction = Double.POSITIVE_INFINITY;
+	
+	private double m_liftSpeed;
+	private double m_liftHeight = kLiftMinHeight;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param ftLeft
+	 * @param ftRight
+	 * @param bkLeft
+	 * @param bkRight
+	 * @param ftLeftEnc
+	 * @param ftRightEnc
+	 * @param bkLeftEnc
+	 * @param bkRightEnc
+	 * @param gyro
+	 * @param lift
+	 * @param liftEnc
+	 */
+	public SimPhysics(SimMotor ftLeft, SimMotor ftRight, SimMotor bkLeft, SimMotor bkRight,
+			SimEncoder ftLeftEnc, SimEncoder ftRightEnc, SimEncoder bkLeftEnc, SimEncoder bkRightEnc,
+			SimGyro gyro, SimMotor lift, SimEncoder liftEnc)	{
+		m_ftLeft			= ftLeft;
+		m_ftRight			= ftRight;
+		m_bkLeft			= bkLeft;
+		m_bkRight			= bkRight;
+		m_ftLeftEncoder		= ftLeftEnc;
+		m_ftRightEncoder	= ftRightEnc;
+		m_bkLeftEncoder		= bkLeftEnc;
+		m_bkRightEncoder	= bkRightEnc;
+		m_gyro				= gyro;
+		m_lift				= lift;
+		m_liftEncoder		= liftEnc;
+		m_talon				= lift instanceof SimTalon ? (SimTalon) lift : null;
+	}
+	
+	/**
+	 * Advances the model
+	 * 
+	 * @param dt Seconds
+	 */
+	public void step(double dt)	{
+		double driveLag = 1 - Math.exp(-dt / kDriveTimeConstant);
+		m_ftLeftSpeed += (m_ftLeft.get() * kDriveMaxSpeed * m_ftLeftEfficiency - m_ftLeftSpeed) * driveLag;
+		m_ftRightSpeed += (m_ftRight.get() * kDriveMaxSpeed * m_ftRightEfficiency - m_ftRightSpeed) * driveLag;
+		m_bkLeftSpeed += (m_bkLeft.get() * kDriveMaxSpeed * m_bkLeftEfficiency - m_bkLeftSpeed) * driveLag;
+		m_bkRightSpeed += (m_bkRight.get() * kDriveMaxSpeed * m_bkRightEfficiency - m_bkRightSpeed) * driveLag;
+		
+		m_ftLeftEncoder.step(m_ftLeftSpeed * kDriveCountsPerInch, dt);
+		m_ftRightEncoder.step(m_ftRightSpeed * kDriveCountsPerInch, dt);
+		m_bkLeftEncoder.step(m_bkLeftSpeed * kDriveCountsPerInch, dt);
+		m_bkRightEncoder.step(m_bkRightSpeed * kDriveCountsPerInch, dt);
+		
+		// The right side motors are mounted reversed
+		double fl = m_ftLeftSpeed;
+		double fr = -m_ftRightSpeed;
+		double bl = m_bkLeftSpeed;
+		double br = -m_bkRightSpeed;
+		
+		double forward	= (fl + fr + bl + br) / 4;
+		double strafe	= (fl - fr - bl + br) / 4;
+		
+		// Past the traction limit the wheels spin, and the robot lags them
+		double changeForward = forward - m_forward;
+		double changeStrafe = strafe - m_strafe;
+		double change = Math.sqrt(changeForward * changeForward + changeStrafe * changeStrafe);
+		double maxChange = m_traction * kGravity * dt;
+		if(change > maxChange)	{
+			forward = m_forward + changeForward * maxChange / change;
+			strafe = m_strafe + changeStrafe * maxChange / change;
+		}
+		m_forward	= forward;
+		m_strafe	= strafe;
+		m_rotation	= Math.toDegrees((fl - fr + bl - br) / (4 * kDriveTurnRadius));
+		
+		double heading = Math.toRadians(m_heading + m_rotation * dt / 2);
+		double sin = Math.sin(heading);
+		double cos = Math.cos(heading);
+		double velocityX = m_forward * sin + m_strafe * cos;
+		double velocityY = m_forward * cos - m_strafe * sin;
+		m_x += velocityX * dt;
+		m_y += velocityY * dt;
+		m_gyro.setWorldLinearAccel((velocityX - m_velocityX) / dt / kGravity,
+				(velocityY - m_velocityY) / dt / kGravity, 0);
+		m_velocityX = velocityX;
+		m_velocityY = velocityY;
+		m_heading = SimGyro.wrap(m_heading + m_rotation * dt);
+		m_gyro.step(m_rotation, dt);
+		
+		if(m_talon != null && m_talon.isClosedLoop())	{
+			// The Talon's own loop runs every millisecond
+			int steps = Math.max(1, (int) Math.round(dt / SimTalon.kLoopPeriod));
+			for(int i = 0; i < steps; i++)	{
+				m_talon.runLoop();
+				stepLift(dt / steps);
+			}
+		}	else	{
+			stepLift(dt);
+		}
+	}
+	
+	private void stepLift(double dt)	{
+		double liftLag = 1 - Math.exp(-dt / kLiftTimeConstant);
+		m_liftSpeed += (m_lift.get() * kLiftMaxSpeed - m_liftSpeed) * liftLag;
+		// Current follows the difference between the commanded and actual speed
+		m_lift.setCurrent(kLiftStallCurrent * Math.abs(m_lift.get() - m_liftSpeed / kLiftMaxSpeed));
+		m_liftHeight += m_liftSpeed * dt;
+		if(m_liftHeight < kLiftMinHeight)	{
+			m_liftHeight = kLiftMinHeight;
+			m_liftSpeed = 0;
+		}	else if(m_liftHeight > kLiftMaxHeight)	{
+			m_liftHeight = kLiftMaxHeight;
+			m_liftSpeed = 0;
+		}
+		m_liftEncoder.set((m_liftHeight - kLiftMinHeight) * kLiftCountsPerInch, m_liftSpeed * kLiftCountsPerInch);
+	}
+	
+	/**
+	 * Scales the speed each drive wheel reaches at a given power, e.g. for a
+	 * sagging battery or carpet dragging on one wheel
+	 * 
+	 * @param ftLeft	1 for full speed
+	 * @param ftRight	1 for full speed
+	 * @param bkLeft	1 for full speed
+	 * @param bkRight	1 for full speed
+	 */
+	public void setDriveEfficiency(double ftLeft, double ftRight, double bkLeft, double bkRight)	{
+		m_ftLeftEfficiency	= ftLeft;
+		m_ftRightEfficiency	= ftRight;
+		m_bkLeftEfficiency	= bkLeft;
+		m_bkRightEfficiency	= bkRight;
+	}
+	
+	/**
+	 * Limits how hard the wheels can accelerate the robot before they spin
+	 * on the carpet. The encoders still count the spinning wheels.
+	 * 
+	 * @param traction g, infinite for no limit
+	 */
+	public void setTraction(double traction)	{
+		m_traction = traction;
+	}
+	
+	/**
+	 * Gets the field X position
+	 * 
+	 * @return Inches
+	 */
+	public double getX()	{
+		return m_x;
+	}
+	
+	/**
+	 * Gets the field Y position
+	 * 
+	 * @return Inches
+	 */
+	public double getY()	{
+		return m_y;
+	}
+	
+	/**
+	 * Gets the heading
+	 * 
+	 * @return Degrees, -180 to 180
+	 */
+	public double getHeading()	{
+		return m_heading;
+	}
+	
+	/**
+	 * Gets the field X velocity
+	 * 
+	 * @return Inches per second
+	 */
+	public double getVelocityX()	{
+		return m_velocityX;
+	}
+	
+	/**
+	 * Gets the field Y velocity
+	 * 
+	 * @return Inches per second
+	 */
+	public double getVelocityY()	{
+		return m_velocityY;
+	}
+	
+	/**
+	 * Gets the robot centric forward speed
+	 * 
+	 * @return Inches per second
+	 */
+	public double getForwardSpeed()	{
+		return m_forward;
+	}
+	
+	/**
+	 * Gets the robot centric strafe speed
+	 * 
+	 * @return Inches per second, right positive
+	 */
+	public double getStrafeSpeed()	{
+		return m_strafe;
+	}
+	
+	/**
+	 * Gets the rotation rate
+	 * 
+	 * @return Degrees per second, clockwise positive
+	 */
+	public double getRotationRate()	{
+		return m_rotation;
+	}
+	
+	/**
+	 * Gets the height of the elevator arms
+	 * 
+	 * @return Inches off the floor
+	 */
+	public double getLiftHeight()	{
+		return m_liftHeight;
+	}
+}
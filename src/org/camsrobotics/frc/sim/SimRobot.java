@@ -0,0 +1,122 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.log.NerdyFlightRecorder;
+import org.camsrobotics.frc.subsystems.NerdyDrive;
+import org.camsrobotics.frc.subsystems.NerdyElevator;
+import org.camsrobotics.frc.subsystems.NerdyIntake;
+import org.camsrobotics.frc.util.NerdyControls;
+import org.camsrobotics.frc.util.NerdyDrivebase;
+import org.camsrobotics.frc.util.NerdyJoystick;
+import org.camsrobotics.frc.util.NerdyOdometry;
+import org.camsrobotics.frc.util.NerdyResources;
+import org.camsrobotics.frc.util.NerdyTimer;
+import org.usfirst.frc.team687.robot.NerdyBot;
+
+/**
+ * The robot code wired to simulated hardware. Constructing one makes the
+ * simulated clock the robot code's time source.
+ * 
+ */
+public class SimRobot {
+	// Driver station
+	public final SimStick leftStick		= new SimStick();
+	public final SimStick rightStick	= new SimStick();
+	public final SimStick articStick	= new SimStick();
+	
+	// Drive hardware
+	public final SimMotor ftLeftDrive		= new SimMotor();
+	public final SimMotor ftRightDrive		= new SimMotor();
+	public final SimMotor bkLeftDrive		= new SimMotor();
+	public final SimMotor bkRightDrive		= new SimMotor();
+	public final SimEncoder ftLeftEncoder	= new SimEncoder();
+	public final SimEncoder ftRightEncoder	= new SimEncoder();
+	public final SimEncoder bkLeftEncoder	= new SimEncoder();
+	public final SimEncoder bkRightEncoder	= new SimEncoder();
+	public final SimGyro gyro				= new SimGyro();
+	
+	// Articulation hardware
+	public final SimEncoder elevatorEncoder	= new SimEncoder();
+	public final SimTalon elevatorMotor		= new SimTalon(elevatorEncoder);
+	public final SimMotor leftIntake		= new SimMotor();
+	public final SimMotor rightIntake		= new SimMotor();
+	public final SimSolenoid leftSol		= new SimSolenoid();
+	public final SimSolenoid rightSol		= new SimSolenoid();
+	public final SimSolenoid intakeSol		= new SimSolenoid();
+	public final SimSolenoid canClaw		= new SimSolenoid();
+	
+	public final SimClock clock;
+	public final SimPhysics physics;
+	
+	// Robot code
+	public final NerdyJoystick leftJoy;
+	public final NerdyJoystick rightJoy;
+	public final NerdyJoystick articJoy;
+	public final NerdyDrivebase drivebase;
+	public final NerdyDrive drive;
+	public final NerdyOdometry odometry;
+	public final NerdyElevator elevator;
+	public final NerdyIntake intake;
+	public final NerdyBot robot;
+	public final NerdyControls controls;
+	
+	/**
+	 * Default constructor
+	 */
+	public SimRobot()	{
+		clock = new SimClock();
+		NerdyTimer.setClock(clock);
+		
+		physics = new SimPhysics(ftLeftDrive, ftRightDrive, bkLeftDrive, bkRightDrive,
+				ftLeftEncoder, ftRightEncoder, bkLeftEncoder, bkRightEncoder,
+				gyro, elevatorMotor, elevatorEncoder);
+		
+		leftJoy		= new NerdyJoystick(leftStick);
+		rightJoy	= new NerdyJoystick(rightStick);
+		articJoy	= new NerdyJoystick(articStick);
+		leftJoy.setCurves(NerdyResources.Constants.driveDeadband, NerdyResources.Constants.driveExpo,
+				NerdyResources.Constants.driveSlewRate);
+		rightJoy.setCurves(NerdyResources.Constants.driveDeadband, NerdyResources.Constants.driveExpo,
+				NerdyResources.Constants.driveSlewRate);
+		articJoy.setCurves(NerdyResources.Constants.articDeadband, NerdyResources.Constants.articExpo,
+				NerdyResources.Constants.articSlewRate);
+		
+		drivebase	= new NerdyDrivebase(ftLeftDrive, ftRightDrive, bkLeftDrive, bkRightDrive,
+				ftLeftEncoder, ftRightEncoder, bkLeftEncoder, bkRightEncoder);
+		drivebase.setVelocityMode(NerdyResources.Constants.driveVelocityMode);
+		drive		= new NerdyDrive(leftJoy, rightJoy, gyro, drivebase);
+		odometry	= new NerdyOdometry(drivebase, gyro);
+		elevator	= new NerdyElevator(articJoy, elevatorMotor, leftSol, rightSol, canClaw, elevatorEncoder);
+		intake		= new NerdyIntake(leftIntake, rightIntake, intakeSol);
+		robot		= new NerdyBot(drive, elevator, intake);
+		
+		controls	= new NerdyControls();
+		controls.addJoystick("left", leftJoy);
+		controls.addJoystick("right", rightJoy);
+		controls.addJoystick("artic", articJoy);
+		robot.bind(controls);
+		controls.compile(NerdyResources.Constants.controls);
+	}
+	
+	/**
+	 * Makes a flight recorder sample the simulated hardware
+	 * 
+	 * @param recorder The recorder
+	 */
+	public void record(NerdyFlightRecorder recorder)	{
+		recorder.setDrive(ftLeftDrive, ftRightDrive, bkLeftDrive, bkRightDrive,
+				ftLeftEncoder, ftRightEncoder, bkLeftEncoder, bkRightEncoder, gyro);
+		recorder.setElevator(elevatorMotor, elevatorMotor, elevatorEncoder, leftSol, rightSol, canClaw);
+		recorder.setIntake(leftIntake, rightIntake, intakeSol);
+		recorder.setJoysticks(leftJoy, rightJoy, articJoy);
+	}
+	
+	/**
+	 * Advances the physics model and the clock, after the robot code has run
+	 * 
+	 * @param dt Seconds
+	 */
+	public void step(double dt)	{
+		physics.step(dt);
+		clock.step(dt);
+	}
+}
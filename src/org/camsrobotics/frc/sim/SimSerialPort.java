@@ -0,0 +1,133 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.hal.NerdySerialPort;
+
+/**
+ * Simulated serial port. Bytes fed in by the simulator are returned by read(),
+ * and bytes written by the robot code are counted and discarded.
+ * 
+ */
+public class SimSerialPort implements NerdySerialPort {
+	private byte[] m_buffer = new byte[256];
+	private int m_readIndex = 0;
+	private int m_count = 0;
+	private long m_timeoutMs = 1000;
+	private boolean m_terminate = false;
+	private byte m_terminator = '\n';
+	private long m_bytesWritten = 0;
+	
+	/**
+	 * Makes bytes available to read(), as if they had been received
+	 * 
+	 * @param data		The source
+	 * @param offset	The index of the first byte
+	 * @param length	The number of bytes
+	 */
+	public synchronized void feed(byte[] data, int offset, int length)	{
+		if(m_count + length > m_buffer.length)	{
+			// Overflow drops the oldest bytes, like the hardware FIFO
+			int discard = Math.min(m_count, m_count + length - m_buffer.length);
+			m_readIndex = (m_readIndex + discard) % m_buffer.length;
+			m_count -= discard;
+			if(length > m_buffer.length)	{
+				offset += length - m_buffer.length;
+				length = m_buffer.length;
+			}
+		}
+		for(int i = 0; i < length; i++)	{
+			m_buffer[(m_readIndex + m_count + i) % m_buffer.length] = data[offset + i];
+		}
+		m_count += length;
+		notifyAll();
+	}
+	
+	/**
+	 * Gets the number of bytes the robot code has written
+	 * 
+	 * @return The number of bytes
+	 */
+	public synchronized long getBytesWritten()	{
+		return m_bytesWritten;
+	}
+	
+	public synchronized int read(byte[] buffer, int count)	{
+		long deadline = System.currentTimeMillis() + m_timeoutMs;
+		int available = readable(count);
+		while(available < 0)	{
+			long wait = deadline - System.currentTimeMillis();
+			if(wait <= 0)	{
+				available = Math.min(count, m_count);
+				break;
+			}
+			try	{
+				wait(wait);
+			}	catch(InterruptedException e)	{
+				Thread.currentThread().interrupt();
+				available = Math.min(count, m_count);
+				break;
+			}
+			available = readable(count);
+		}
+		for(int i = 0; i < available; i++)	{
+			buffer[i] = m_buffer[(m_readIndex + i) % m_buffer.length];
+		}
+		m_readIndex = (m_readIndex + available) % m_buffer.length;
+		m_count -= available;
+		return available;
+	}
+	
+	/**
+	 * Gets the number of bytes a read would return now
+	 * 
+	 * @param count The maximum number of bytes
+	 * @return The number of bytes, or -1 if the read has to wait
+	 */
+	private int readable(int count)	{
+		int length = Math.min(count, m_count);
+		if(m_terminate)	{
+			for(int i = 0; i < length; i++)	{
+				if(m_buffer[(m_readIndex + i) % m_buffer.length] == m_terminator)	{
+					return i + 1;
+				}
+			}
+		}
+		return (length == count) ? count : -1;
+	}
+	
+	public synchronized int write(byte[] buffer, int count)	{
+		m_bytesWritten += count;
+		return count;
+	}
+	
+	public synchronized int getBytesReceived()	{
+		return m_count;
+	}
+	
+	public synchronized void setReadBufferSize(int size)	{
+		byte[] buffer = new byte[size];
+		int kept = Math.min(size, m_count);
+		for(int i = 0; i < kept; i++)	{
+			buffer[i] = m_buffer[(m_readIndex + m_count - kept + i) % m_buffer.length];
+		}
+		m_buffer = buffer;
+		m_readIndex = 0;
+		m_count = kept;
+	}
+	
+	public synchronized void setTimeout(double timeout)	{
+		m_timeoutMs = (long) (timeout * 1000);
+	}
+	
+	public synchronized void enableTermination(char terminator)	{
+		m_terminate = true;
+		m_terminator = (byte) terminator;
+	}
+	
+	public void flush()	{
+	}
+	
+	public synchronized void reset()	{
+		m_readIndex = 0;
+		m_count = 0;
+	}
+}
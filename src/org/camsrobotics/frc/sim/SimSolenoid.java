@@ -0,0 +1,32 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.hal.NerdySolenoid;
+
+/**
+ * Simulated double solenoid
+ * 
+ */
+public class SimSolenoid implements NerdySolenoid {
+	private boolean m_forward = kReverse;
+	private int m_actuations = 0;
+	
+	public void set(boolean forward)	{
+		if(forward != m_forward)	{
+			m_actuations++;
+		}
+		m_forward = forward;
+	}
+	
+	public boolean get()	{
+		return m_forward;
+	}
+	
+	/**
+	 * Gets the number of times the solenoid has changed direction
+	 * 
+	 * @return The number of direction changes
+	 */
+	public int getActuations()	{
+		return m_actuations;
+	}
+}
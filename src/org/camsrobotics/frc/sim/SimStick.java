@@ -0,0 +1,60 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.hal.NerdyStick;
+
+/**
+ * Simulated joystick
+ * 
+ */
+public class SimStick implements NerdyStick {
+	public static final int kNumAxes	= 6;
+	public static final int kNumButtons	= 12;
+	
+	private double[] m_axes = new double[kNumAxes];
+	private int m_buttons = 0;
+	
+	public double getRawAxis(int axis)	{
+		return m_axes[axis];
+	}
+	
+	public boolean getRawButton(int button)	{
+		return (m_buttons & (1 << (button - 1))) != 0;
+	}
+	
+	public int getButtons()	{
+		return m_buttons;
+	}
+	
+	/**
+	 * Sets an axis value
+	 * 
+	 * @param axis	The axis number
+	 * @param value	-1 to 1
+	 */
+	public void setAxis(int axis, double value)	{
+		m_axes[axis] = value;
+	}
+	
+	/**
+	 * Sets a button state
+	 * 
+	 * @param button	The button number, starting at 1
+	 * @param pressed	True for pressed
+	 */
+	public void setButton(int button, boolean pressed)	{
+		if(pressed)	{
+			m_buttons |= 1 << (button - 1);
+		}	else	{
+			m_buttons &= ~(1 << (button - 1));
+		}
+	}
+	
+	/**
+	 * Sets every button state
+	 * 
+	 * @param buttons Bit n-1 set for button n pressed
+	 */
+	public void setButtons(int buttons)	{
+		m_buttons = buttons;
+	}
+}
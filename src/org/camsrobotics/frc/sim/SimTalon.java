@@ -0,0 +1,87 @@
+package org.camsrobotics.frc.sim;
+
+import org.camsrobotics.frc.hal.NerdyClosedLoopMotor;
+import org.camsrobotics.frc.hal.NerdyEncoder;
+
+/**
+ * Simulated Talon SRX with an encoder wired to it. Open loop it is a SimMotor.
+ * Closed loop, the physics model runs its position loop every millisecond,
+ * the way the Talon does: error in raw counts, output on a 1023 full scale.
+ * 
+ * Counts every set() and setPosition(), as the messages the robot code sent.
+ * 
+ */
+public class SimTalon extends SimMotor implements NerdyClosedLoopMotor {
+	public static final double kLoopPeriod	= 0.001;	// s
+	public static final double kFullScale	= 1023;
+	
+	private final SimEncoder m_sensor;
+	private double m_p, m_i, m_d;
+	private boolean m_closedLoop = false;
+	private double m_target;
+	private double m_accumulator, m_lastError;
+	private long m_messages = 0;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param sensor The encoder wired to the Talon
+	 */
+	public SimTalon(SimEncoder sensor)	{
+		m_sensor = sensor;
+	}
+	
+	public void set(double power)	{
+		m_closedLoop = false;
+		m_messages++;
+		super.set(power);
+	}
+	
+	public void setGains(double p, double i, double d)	{
+		m_p = p;
+		m_i = i;
+		m_d = d;
+		m_messages++;
+	}
+	
+	public void setPosition(double position)	{
+		if(!m_closedLoop)	{
+			m_closedLoop = true;
+			m_accumulator = 0;
+			m_lastError = position - m_sensor.getRaw();
+		}
+		m_target = position;
+		m_messages++;
+	}
+	
+	public boolean isClosedLoop()	{
+		return m_closedLoop;
+	}
+	
+	public NerdyEncoder getEncoder()	{
+		return m_sensor;
+	}
+	
+	/**
+	 * Runs one cycle of the position loop, if it is running
+	 */
+	public void runLoop()	{
+		if(!m_closedLoop)	{
+			return;
+		}
+		double error = m_target - m_sensor.getRaw();
+		m_accumulator += error;
+		double output = m_p * error + m_i * m_accumulator + m_d * (error - m_lastError);
+		m_lastError = error;
+		super.set(Math.max(-1, Math.min(1, output / kFullScale)));
+	}
+	
+	/**
+	 * Gets the number of messages the robot code sent
+	 * 
+	 * @return The number of set(), setPosition() and setGains() calls
+	 */
+	public long getMessages()	{
+		return m_messages;
+	}
+}
@@ -1,17 +1,17 @@
 package org.camsrobotics.frc.subsystems;
 
+import org.camsrobotics.frc.hal.NerdyGyro;
 import org.camsrobotics.frc.util.NerdyDrivebase;
 import org.camsrobotics.frc.util.NerdyJoystick;
 import org.camsrobotics.frc.util.NerdyMath;
 import org.camsrobotics.frc.util.NerdyStates;
-
-import com.kauailabs.nav6.frc.IMUAdvanced;
+import org.camsrobotics.frc.util.NerdyWheels;
 
 /**
  * Drive system for the robot. Drives a Mecanum base in both robot centric and field centric modes.
  * 
  * @author Wesley
- *
+ * 
  */
 
 public class NerdyDrive {
@@ -19,7 +19,7 @@ public class NerdyDrive {
 	 * Drive states
 	 * 
 	 * @author Wesley
-	 *
+	 * 
 	 */
 	public static class State	{
         public final int state;
@@ -37,11 +37,11 @@ public class NerdyDrive {
         
         public String toString()	{
         	switch(state)	{
-        	case 0:
+        	case -1:
         		return "Off";
-			case 1:
+			case 0:
         		return "Robot Centric Mode";
-			case 2:
+			case 1:
 				return "Field Centric Mode";
         	}
         	// Should never happen
@@ -49,11 +49,13 @@ public class NerdyDrive {
         }
 	}
 	
+	public static final NerdyStates.Key<State> kStateKey = NerdyStates.register("Drive", State.class);
+	
 	private NerdyJoystick m_leftJoy, m_rightJoy;
-	private IMUAdvanced m_imu;
+	private NerdyGyro m_imu;
 	private NerdyDrivebase m_drivebase;
 	private State m_state;
-	private double m_fl, m_fr, m_bl, m_br;
+	private NerdyWheels m_wheels = new NerdyWheels();
 	
 	/**
 	 * Default constructor
@@ -63,14 +65,14 @@ public class NerdyDrive {
 	 * @param imu
 	 * @param drivebase
 	 */
-	public NerdyDrive(NerdyJoystick leftJoy, NerdyJoystick rightJoy, IMUAdvanced imu, NerdyDrivebase drivebase){
+	public NerdyDrive(NerdyJoystick leftJoy, NerdyJoystick rightJoy, NerdyGyro imu, NerdyDrivebase drivebase){
 		m_leftJoy = leftJoy;
 		m_rightJoy = rightJoy;
 		m_imu = imu;
 		m_drivebase = drivebase;
-
+		
 		m_state = State.kFieldCentric;
-		NerdyStates.put("Drive", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -79,7 +81,7 @@ public class NerdyDrive {
 	public void disable()	{
 		m_state = State.kOff;
 		m_drivebase.disable();
-		NerdyStates.put("Drive", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -88,7 +90,7 @@ public class NerdyDrive {
 	public void enable()	{
 		m_state = State.kFieldCentric;
 		m_drivebase.enable();
-		NerdyStates.put("Drive", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -97,7 +99,7 @@ public class NerdyDrive {
 	public void robotCentric()	{
 		m_state = State.kRobotCentric;
 		m_drivebase.enable();
-		NerdyStates.put("Drive", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -106,7 +108,7 @@ public class NerdyDrive {
 	public void fieldCentric()	{
 		m_state = State.kFieldCentric;
 		m_drivebase.enable();
-		NerdyStates.put("Drive", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -125,61 +127,58 @@ public class NerdyDrive {
 		double forward = m_leftJoy.getTrueY();
 		double rotate = m_rightJoy.getX();
 		
-		m_fl = (forward + strafe) + rotate/2;
-        m_fr = (-forward + strafe) + rotate/2;
-        m_bl = (forward - strafe) + rotate/2;
-        m_br = (-forward - strafe) + rotate/2;
+		m_wheels.set((forward + strafe) + rotate/2,
+				(-forward + strafe) + rotate/2,
+				(forward - strafe) + rotate/2,
+				(-forward - strafe) + rotate/2);
 	}
 	
 	/**
 	 * Calculates the Field Centric function
+	 * 
+	 * The left stick is rotated from the field's frame into the robot's by
+	 * the gyro heading, one sin/cos pair, and scaled so its larger component
+	 * sets the speed: a stick all the way into a corner is full speed, the
+	 * same as one all the way forward.
 	 */
 	private void driveFieldCentric()    {
 		double leftX = m_leftJoy.getX();
 		double leftY = m_leftJoy.getTrueY();
 		double rightX = m_rightJoy.getX();
 		
-		double gyroAngle = -m_imu.getYaw();
-        double gyroAngleRads = NerdyMath.degToRads(gyroAngle);
-        
-        double desiredAngle = m_leftJoy.getAngleRad();
-        double relativeAngle = (-(gyroAngleRads) + (desiredAngle) + (Math.PI/2)) % (2*Math.PI);
-        
-        double forward = Math.sin(relativeAngle);
-        double strafe = Math.cos(relativeAngle);
-        
-        double unscaledJoy[] = {Math.sin(desiredAngle), Math.cos(desiredAngle)};
-        double maxJoy[] = NerdyMath.normalize(unscaledJoy, true);
-        double scalar = NerdyMath.threshold(((leftY * leftY) + (leftX * leftX)) / ((maxJoy[0] * maxJoy[0]) + (maxJoy[1] * maxJoy[1])), -1, 1);
-        double rotate = rightX/2;
-        double ftLeft = (forward + strafe)*scalar + rotate;
-        double ftRight = (-forward + strafe)*scalar + rotate;
-        double bkLeft = (forward - strafe)*scalar + rotate;
-        double bkRight = (-forward - strafe)*scalar + rotate;
-        double unnormalizedValues[] = {ftLeft, ftRight, bkLeft, bkRight};
-        double output[] = NerdyMath.normalize(unnormalizedValues, false);
-        
-        m_fl	= output[0];
-        m_fr	= output[1];
-        m_bl	= output[2];
-        m_br	= output[3];
-    }
+		double heading = NerdyMath.degToRads(m_imu.getYaw());
+		double sin = Math.sin(heading);
+		double cos = Math.cos(heading);
+		
+		// Speed over stick length, so the rotated stick needs no atan2 or normalizing
+		double length = Math.sqrt(leftX * leftX + leftY * leftY);
+		double max = Math.max(Math.abs(leftX), Math.abs(leftY));
+		double scalar = length == 0 ? 0 : Math.min(max * max, 1) / length;
+		double forward = (leftY * cos + leftX * sin) * scalar;
+		double strafe = (leftX * cos - leftY * sin) * scalar;
+		
+		double rotate = rightX/2;
+		m_wheels.set((forward + strafe) + rotate,
+				(-forward + strafe) + rotate,
+				(forward - strafe) + rotate,
+				(-forward - strafe) + rotate);
+		
+		// Scales down, never up, so no wheel is past full power
+		m_wheels.normalize(false);
+	}
 	
 	/**
 	 * Drives the robot. Run this every iteration
 	 */
 	public void run()	{
 		if(m_state == State.kOff)	{
-			m_fl = 0;
-			m_fr = 0;
-			m_bl = 0;
-			m_br = 0;
+			m_wheels.set(0, 0, 0, 0);
 		}	else if(m_state == State.kRobotCentric)	{
 			driveRobotCentric();
 		}	else if(m_state == State.kFieldCentric)	{
 			driveFieldCentric();
 		}
 		
-		m_drivebase.drive(m_fl, m_fr, m_bl, m_br);
+		m_drivebase.drive(m_wheels);
 	}
 }
@@ -1,20 +1,30 @@
 package org.camsrobotics.frc.subsystems;
 
+import org.camsrobotics.frc.hal.NerdyClosedLoopMotor;
+import org.camsrobotics.frc.hal.NerdyEncoder;
+import org.camsrobotics.frc.hal.NerdyMotor;
+import org.camsrobotics.frc.hal.NerdySolenoid;
+import org.camsrobotics.frc.pid.NerdyMotionProfile;
 import org.camsrobotics.frc.pid.NerdyPID;
 import org.camsrobotics.frc.util.NerdyJoystick;
 import org.camsrobotics.frc.util.NerdyMath;
 import org.camsrobotics.frc.util.NerdyResources;
 import org.camsrobotics.frc.util.NerdyStates;
+import org.camsrobotics.frc.util.NerdyTelemetry;
+import org.camsrobotics.frc.util.NerdyTimer;
 
-import edu.wpi.first.wpilibj.CANTalon;
-import edu.wpi.first.wpilibj.DoubleSolenoid;
-import edu.wpi.first.wpilibj.Encoder;
-import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  * Elevator controller
  * 
+ * Autostack and command moves follow a trapezoidal motion profile from the
+ * current height: the feedforward drives the planned velocity and
+ * acceleration, and the PID corrects toward the planned height.
+ * 
+ * With the onboard loop, the planned heights go to the Talon's position loop
+ * instead, and are only sent when they change. Between moves the Talon holds
+ * the last height, even if the robot code stalls.
+ * 
  * @author Wesley
  *
  */
@@ -25,7 +35,7 @@ public class NerdyElevator {
 	 * @author Wesley
 	 *
 	 */
-	private static class State	{
+	public static class State	{
         public final int state;
         private static final int kOff_val = -1;
         private static final int kManual_val = 0;
@@ -61,22 +71,55 @@ public class NerdyElevator {
         }
 	}
 	
+	public static final NerdyStates.Key<State> kStateKey = NerdyStates.register("Elevator", State.class);
+	
+	public static final double kCountsPerInch	= 256;
+	public static final double kBottomHeight	= 8;	// Inches off the floor at a count of 0
+	
 	// Hardware
 	private NerdyJoystick m_joy;
-	private CANTalon m_lift;
-	private DoubleSolenoid m_left, m_right, m_claw;
-	private Encoder m_encoder;
+	private NerdyMotor m_lift;
+	private NerdySolenoid m_left, m_right, m_claw;
+	private NerdyEncoder m_encoder;
 	
 	private State m_state;
 	private NerdyPID m_pid;
+	private NerdyMotionProfile m_profile = new NerdyMotionProfile(NerdyResources.Constants.articLiftMaxVelocity,
+			NerdyResources.Constants.articLiftMaxAccel);
+	private double m_moveStart;
+	private boolean m_profiled = true;
+	private NerdyClosedLoopMotor m_talon;
+	private double m_talonTarget;
 	
 	private boolean m_open = true, m_clawOpen = false;
 	private double m_encode = 8;
 	
+	// Telemetry
+	private NerdyTelemetry.Channel m_autoStackingChannel = NerdyTelemetry.addBoolean("AutoStacking?");
+	private NerdyTelemetry.Channel m_carriageChannel = NerdyTelemetry.addBoolean("Carriage");
+	
 	// For command mode
 	private double m_desired;
 	
-	private int m_autoStackState = -1;
+	// Autostack sequences
+	private NerdyStackSequence m_stackToStack = new NerdyStackSequence(new NerdyStackSequence.Step[] {
+			NerdyStackSequence.moveTo(NerdyResources.Constants.stackHeight1, 1),
+			NerdyStackSequence.arms(NerdySolenoid.kReverse),
+			NerdyStackSequence.moveTo(NerdyResources.Constants.stackHeight2, 1),
+			NerdyStackSequence.open(),
+			NerdyStackSequence.waitMs(NerdyResources.Constants.pauseMs),
+			NerdyStackSequence.moveTo(NerdyResources.Constants.stackHeight3, 1)
+	});
+	private NerdyStackSequence m_stackToDrive = new NerdyStackSequence(new NerdyStackSequence.Step[] {
+			NerdyStackSequence.moveTo(NerdyResources.Constants.stackHeight21, .1),
+			NerdyStackSequence.arms(NerdySolenoid.kReverse),
+			NerdyStackSequence.moveTo(NerdyResources.Constants.stackHeight22, .1),
+			NerdyStackSequence.arms(NerdySolenoid.kForward),
+			NerdyStackSequence.waitMs(NerdyResources.Constants.pauseMs),
+			NerdyStackSequence.moveTo(NerdyResources.Constants.stackHeight23, .1)
+	});
+	private NerdyStackSequence m_sequence = m_stackToStack;
+	private NerdyStackSequence.Step m_planned;
 	
 	/**
 	 * Default constructor
@@ -90,11 +133,11 @@ public class NerdyElevator {
 	 * @param upperLimit
 	 */
 	public NerdyElevator(NerdyJoystick joy,
-			CANTalon lift,
-			DoubleSolenoid leftSol,
-			DoubleSolenoid rightSol,
-			DoubleSolenoid claw,
-			Encoder encoder)	{
+			NerdyMotor lift,
+			NerdySolenoid leftSol,
+			NerdySolenoid rightSol,
+			NerdySolenoid claw,
+			NerdyEncoder encoder)	{
 		m_joy			= joy;
 		m_lift			= lift;
 		m_left			= leftSol;
@@ -107,7 +150,7 @@ public class NerdyElevator {
 						   NerdyResources.Constants.articLiftD);
 		
 		m_state = State.kManual;
-		NerdyStates.put("Elevator", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -115,7 +158,7 @@ public class NerdyElevator {
 	 */
 	public void disable()	{
 		m_state = State.kOff;
-		NerdyStates.put("Elevator", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -123,7 +166,7 @@ public class NerdyElevator {
 	 */
 	public void enable()	{
 		m_state = State.kManual;
-		NerdyStates.put("Elevator", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -131,7 +174,7 @@ public class NerdyElevator {
 	 */
 	public void manual()	{
 		m_state = State.kManual;
-		NerdyStates.put("Elevator", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -139,8 +182,10 @@ public class NerdyElevator {
 	 */
 	public void stackToStack()	{
 		m_state = State.kAutoStack;
-		m_autoStackState = 0;
-		NerdyStates.put("Articulation", m_state);
+		m_sequence = m_stackToStack;
+		m_sequence.start();
+		m_planned = null;
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -148,8 +193,10 @@ public class NerdyElevator {
 	 */
 	public void stackToStack2()	{
 		m_state = State.kAutoDrive;
-		m_autoStackState = 0;
-		NerdyStates.put("Articulation", m_state);
+		m_sequence = m_stackToDrive;
+		m_sequence.start();
+		m_planned = null;
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -159,12 +206,23 @@ public class NerdyElevator {
 	 * 
 	 */
 	public void command(double desired)	{
+		m_desired = desired;
+		startMove(desired);
 		if(m_state != State.kCommand)	{
 			m_state = State.kCommand;
-			NerdyStates.put("Articulation", m_state);
+			NerdyStates.put(kStateKey, m_state);
 		}
 	}
 	
+	/**
+	 * Is an autostack sequence running?
+	 * 
+	 * @return True while autostacking
+	 */
+	public boolean isAutoStacking()	{
+		return m_state == State.kAutoStack || m_state == State.kAutoDrive;
+	}
+	
 	/**
 	 * Opens the arms
 	 */
@@ -193,6 +251,49 @@ public class NerdyElevator {
 		m_clawOpen = false;
 	}
 	
+	/**
+	 * Turns the motion profiles on or off. Off, moves hand the PID the final
+	 * height at once, with no feedforward.
+	 * 
+	 * @param profiled True to follow motion profiles
+	 */
+	public void setProfiled(boolean profiled)	{
+		m_profiled = profiled;
+	}
+	
+	/**
+	 * Moves the position loop onto the lift's motor controller, or back onto
+	 * the roboRIO. The elevator encoder must be the one wired to the controller.
+	 * 
+	 * @param onboard True to run the loop on the controller
+	 * @throws IllegalStateException If the lift's controller has no loop of its own
+	 */
+	public void setOnboardLoop(boolean onboard)	{
+		if(!onboard)	{
+			m_talon = null;
+			return;
+		}
+		if(!(m_lift instanceof NerdyClosedLoopMotor))	{
+			throw new IllegalStateException("The lift motor has no onboard loop");
+		}
+		m_talon = (NerdyClosedLoopMotor) m_lift;
+		m_talon.setGains(NerdyResources.Constants.articTalonP,
+				NerdyResources.Constants.articTalonI,
+				NerdyResources.Constants.articTalonD);
+	}
+	
+	/**
+	 * Resets the position loop, and starts any move in progress again from
+	 * the current height. Call before the elevator runs again after a pause,
+	 * e.g. on enable, so the time in between isn't integrated or skipped.
+	 */
+	public void resetLoops()	{
+		m_pid.reset();
+		if(isAutoStacking() || m_state == State.kCommand)	{
+			startMove(m_profile.getGoal());
+		}
+	}
+	
 	/**
 	 * Calibrates the elevator
 	 */
@@ -200,6 +301,95 @@ public class NerdyElevator {
 		m_encoder.reset();
 	}
 	
+	/**
+	 * Plans a move from the current height
+	 * 
+	 * @param goal The height to end at
+	 */
+	private void startMove(double goal)	{
+		m_profile.plan(m_encode, goal);
+		m_moveStart = NerdyTimer.getTime();
+		m_pid.reset();
+	}
+	
+	/**
+	 * Follows the current move
+	 * 
+	 * @return The lift power
+	 */
+	private double trackMove()	{
+		if(m_talon != null)	{
+			double t = NerdyTimer.getTime() - m_moveStart;
+			double height = m_profiled ? m_profile.getPosition(t) : m_profile.getGoal();
+			double target = Math.round((height - kBottomHeight) * kCountsPerInch);
+			if(!m_talon.isClosedLoop() || target != m_talonTarget)	{
+				m_talon.setPosition(target);
+				m_talonTarget = target;
+			}
+			return 0;
+		}
+		if(!m_profiled)	{
+			return m_pid.setDesired(m_profile.getGoal()).calculate(m_encode);
+		}
+		double t = NerdyTimer.getTime() - m_moveStart;
+		double feedforward = NerdyResources.Constants.articLiftV * m_profile.getVelocity(t)
+				+ NerdyResources.Constants.articLiftA * m_profile.getAcceleration(t)
+				+ NerdyResources.Constants.articLiftG;
+		return feedforward + m_pid.setDesired(m_profile.getPosition(t)).calculate(m_encode);
+	}
+	
+	/**
+	 * Carries out the current step of the autostack sequence, and returns to
+	 * manual mode when the sequence is done
+	 * 
+	 * @return The lift power
+	 */
+	private double runSequence()	{
+		NerdyStackSequence.Step step = m_sequence.current();
+		double pow = 0;
+		
+		if(step == null)	{
+			manual();
+			return 0;
+		}
+		
+		switch(step.type)	{
+		case NerdyStackSequence.Step.kMoveTo:
+			if(step != m_planned)	{
+				startMove(step.height);
+				m_planned = step;
+			}
+			pow = trackMove();
+			if(Math.abs(m_encode - step.height) < step.tolerance)	{
+				m_pid.reset();
+				m_sequence.advance();
+				m_planned = null;
+			}
+			break;
+		case NerdyStackSequence.Step.kOpen:
+			m_open = true;
+			m_left.set(step.direction);
+			m_right.set(step.direction);
+			m_sequence.advance();
+			break;
+		case NerdyStackSequence.Step.kArms:
+			m_left.set(step.direction);
+			m_right.set(step.direction);
+			m_sequence.advance();
+			break;
+		case NerdyStackSequence.Step.kWait:
+			if(m_sequence.getStepTime() >= step.duration)	{
+				m_sequence.advance();
+			}
+			break;
+		}
+		
+		if(!m_sequence.isRunning())	{
+			manual();
+		}
+		return pow;
+	}
+	
 	/**
 	 * Runs the motors with the calculated values. Run this function every iteration.
 	 */
@@ -207,106 +397,18 @@ public class NerdyElevator {
 		double pow = 0;
 		
 		// Sets m_encode to the height (inches) of the arms off the ground
-		m_encode = m_encoder.getRaw()/256 + 8;
+		m_encode = m_encoder.getRaw()/kCountsPerInch + kBottomHeight;
 		
 		if(m_state != State.kOff)	{
 			if(m_state == State.kManual)	{
-				SmartDashboard.putBoolean("AutoStacking?", false);
+				m_autoStackingChannel.set(false);
 				pow = m_joy.getTrueY();
-			}	else if(m_state == State.kAutoStack)	{
-				SmartDashboard.putBoolean("AutoStacking?", true);
-				double[] heights = {NerdyResources.Constants.stackHeight1,
-						NerdyResources.Constants.stackHeight2, 
-						NerdyResources.Constants.stackHeight3};
-				switch(m_autoStackState)	{
-				case 0:
-					pow = m_pid.setDesired(heights[0]).calculate(m_encode);
-					if(Math.abs(m_encode - heights[0])<1)	{
-						m_autoStackState = 1;
-						m_pid.reset();
-					}
-					break;
-				case 1:
-					m_left.set(DoubleSolenoid.Value.kReverse);
-					m_right.set(DoubleSolenoid.Value.kReverse);
-						m_autoStackState = 2;
-					break;
-				case 2:
-					pow = m_pid.setDesired(heights[1]).calculate(m_encode);
-					if(Math.abs(m_encode - heights[1])<1)	{
-						m_autoStackState = 3;
-						m_pid.reset();
-						pow = 0;
-					}
-					break;
-				case 3:
-					pow = 0;
-					m_left.set(DoubleSolenoid.Value.kForward);
-					m_right.set(DoubleSolenoid.Value.kForward);
-					Timer.delay(NerdyResources.Constants.pause);
-					m_autoStackState = 4;
-					m_open = true;
-					break;
-				case 4:
-					pow = m_pid.setDesired(heights[2]).calculate(m_encode);
-					if(Math.abs(m_encode - heights[2])<1)	{
-						m_autoStackState = -1;
-						manual();
-						m_pid.reset();
-					}
-					break;
-				default:
-					manual();
-					break;
-				}
-			}	else if(m_state == State.kAutoDrive)	{
-				SmartDashboard.putBoolean("AutoStacking?", true);
-				double[] heights = {NerdyResources.Constants.stackHeight21,
-						NerdyResources.Constants.stackHeight22, 
-						NerdyResources.Constants.stackHeight23};
-				switch(m_autoStackState)	{
-				case 0:
-					pow = m_pid.setDesired(heights[0]).calculate(m_encode);
-					if(Math.abs(m_encode - heights[0])<.1)	{
-						m_autoStackState = 1;
-						m_pid.reset();
-					}
-					break;
-				case 1:
-					m_left.set(DoubleSolenoid.Value.kReverse);
-					m_right.set(DoubleSolenoid.Value.kReverse);
-						m_autoStackState = 2;
-					break;
-				case 2:
-					pow = m_pid.setDesired(heights[1]).calculate(m_encode);
-					if(Math.abs(m_encode - heights[1])<.1)	{
-						m_autoStackState = 3;
-						m_pid.reset();
-						pow = 0;
-					}
-					break;
-				case 3:
-					pow = 0;
-					m_left.set(DoubleSolenoid.Value.kForward);
-					m_right.set(DoubleSolenoid.Value.kForward);
-					Timer.delay(NerdyResources.Constants.pause);
-					m_autoStackState = 4;
-					break;
-				case 4:
-					pow = m_pid.setDesired(heights[2]).calculate(m_encode);
-					if(Math.abs(m_encode - heights[2])<.1)	{
-						m_autoStackState = -1;
-						manual();
-						m_pid.reset();
-					}
-					break;
-				default:
-					manual();
-					break;
-				}
+			}	else if(m_state == State.kAutoStack || m_state == State.kAutoDrive)	{
+				m_autoStackingChannel.set(true);
+				pow = runSequence();
 			}	else if(m_state == State.kCommand)	{
-				SmartDashboard.putBoolean("AutoStacking?", true);
-				pow = m_pid.setDesired(m_desired).calculate(m_encode);
+				m_autoStackingChannel.set(true);
+				pow = trackMove();
 				if(Math.abs(m_encode - m_desired)<.1)	{
 					m_pid.reset();
 				}
@@ -314,22 +416,25 @@ public class NerdyElevator {
 		}
 		
 		if(m_state == State.kManual)	{
-			SmartDashboard.putBoolean("Carriage", m_open);
+			m_carriageChannel.set(m_open);
 			if(m_open)	{
-				m_left.set(DoubleSolenoid.Value.kForward);
-				m_right.set(DoubleSolenoid.Value.kForward);
+				m_left.set(NerdySolenoid.kForward);
+				m_right.set(NerdySolenoid.kForward);
 			}	else	{
-				m_left.set(DoubleSolenoid.Value.kReverse);
-				m_right.set(DoubleSolenoid.Value.kReverse);
+				m_left.set(NerdySolenoid.kReverse);
+				m_right.set(NerdySolenoid.kReverse);
 			}
 			
 			if(m_clawOpen)	{
-				m_claw.set(DoubleSolenoid.Value.kForward);
+				m_claw.set(NerdySolenoid.kForward);
 			}	else	{
-				m_claw.set(DoubleSolenoid.Value.kReverse);
+				m_claw.set(NerdySolenoid.kReverse);
 			}
 		}
 		
-		m_lift.set((m_joy.getThrottle()+1)/2*NerdyMath.threshold(pow, -1, 1));
+		// The onboard loop drives the lift through moves, and holds it between steps
+		if(m_talon == null || !(isAutoStacking() || m_state == State.kCommand))	{
+			m_lift.set((m_joy.getThrottle()+1)/2*NerdyMath.threshold(pow, -1, 1));
+		}
 	}
 }
\ No newline at end of file
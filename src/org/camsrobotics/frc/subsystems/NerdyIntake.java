@@ -1,10 +1,9 @@
 package org.camsrobotics.frc.subsystems;
 
+import org.camsrobotics.frc.hal.NerdyMotor;
+import org.camsrobotics.frc.hal.NerdySolenoid;
 import org.camsrobotics.frc.util.NerdyStates;
 
-import edu.wpi.first.wpilibj.DoubleSolenoid;
-import edu.wpi.first.wpilibj.Talon;
-
 /**
  * Intake Controller
  * 
@@ -18,7 +17,7 @@ public class NerdyIntake {
 	 * @author Wesley
 	 *
 	 */
-	private static class State	{
+	public static class State	{
         public final int state;
         private static final int kOff_val = -1;
         private static final int kOn_val = 0;
@@ -32,9 +31,9 @@ public class NerdyIntake {
         
         public String toString()	{
         	switch(state)	{
-        	case 0:
+        	case -1:
         		return "Off";
-			case 1:
+			case 0:
         		return "On";
         	}
         	// Should never happen
@@ -42,8 +41,10 @@ public class NerdyIntake {
         }
 	}
 	
-	private Talon m_leftIntake, m_rightIntake;
-	private DoubleSolenoid m_solenoid;
+	public static final NerdyStates.Key<State> kStateKey = NerdyStates.register("Intake", State.class);
+	
+	private NerdyMotor m_leftIntake, m_rightIntake;
+	private NerdySolenoid m_solenoid;
 	private double power = .75;
 	private int m_spinMode = 0;
 	private boolean m_solMode = true;
@@ -56,12 +57,12 @@ public class NerdyIntake {
 	 * @param rightIntake
 	 * @param sol
 	 */
-	public NerdyIntake(Talon leftIntake, Talon rightIntake, DoubleSolenoid sol)	{
+	public NerdyIntake(NerdyMotor leftIntake, NerdyMotor rightIntake, NerdySolenoid sol)	{
 		m_leftIntake	= leftIntake;
 		m_rightIntake	= rightIntake;
 		m_solenoid		= sol;
 		m_state			= State.kOn;
-		NerdyStates.put("Intake", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -69,7 +70,7 @@ public class NerdyIntake {
 	 */
 	public void disable()	{
 		m_state = State.kOff;
-		NerdyStates.put("Intake", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -77,7 +78,7 @@ public class NerdyIntake {
 	 */
 	public void enable()	{
 		m_state = State.kOn;
-		NerdyStates.put("Intake", m_state);
+		NerdyStates.put(kStateKey, m_state);
 	}
 	
 	/**
@@ -132,9 +133,9 @@ public class NerdyIntake {
 			}
 			
 			if(m_solMode)	{
-				m_solenoid.set(DoubleSolenoid.Value.kForward);
+				m_solenoid.set(NerdySolenoid.kForward);
 			}	else	{
-				m_solenoid.set(DoubleSolenoid.Value.kReverse);
+				m_solenoid.set(NerdySolenoid.kReverse);
 			}
 		}
 	}
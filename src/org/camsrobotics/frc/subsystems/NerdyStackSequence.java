@@ -0,0 +1,169 @@
+package org.camsrobotics.frc.subsystems;
+
+import org.camsrobotics.frc.util.NerdyTimer;
+
+/**
+ * A list of autostack steps, run one step at a time without blocking.
+ * The elevator carries out the current step every iteration, and advances
+ * when the step is done.
+ * 
+ */
+public class NerdyStackSequence {
+	/**
+	 * A single step of a sequence
+	 * 
+	 */
+	public static class Step	{
+		public static final int kMoveTo		= 0;
+		public static final int kArms		= 1;
+		public static final int kOpen		= 2;
+		public static final int kWait		= 3;
+		
+		public final int type;
+		public final double height;
+		public final double tolerance;
+		public final boolean direction;
+		public final double duration;
+		
+		private Step(int type, double height, double tolerance, boolean direction, double duration)	{
+			this.type		= type;
+			this.height		= height;
+			this.tolerance	= tolerance;
+			this.direction	= direction;
+			this.duration	= duration;
+		}
+		
+		public String toString()	{
+			switch(type)	{
+			case kMoveTo:
+				return "Move to " + height;
+			case kArms:
+				return "Arms " + (direction ? "forward" : "reverse");
+			case kOpen:
+				return "Open arms";
+			case kWait:
+				return "Wait " + duration;
+			}
+			// Should never happen
+			return null;
+		}
+	}
+	
+	/**
+	 * Moves the arms to a height
+	 * 
+	 * @param height	Inches off the floor
+	 * @param tolerance	Inches either side of the height that count as there
+	 * @return			The step
+	 */
+	public static Step moveTo(double height, double tolerance)	{
+		return new Step(Step.kMoveTo, height, tolerance, false, 0);
+	}
+	
+	/**
+	 * Actuates the arm solenoids
+	 * 
+	 * @param direction	NerdySolenoid.kForward or NerdySolenoid.kReverse
+	 * @return			The step
+	 */
+	public static Step arms(boolean direction)	{
+		return new Step(Step.kArms, 0, 0, direction, 0);
+	}
+	
+	/**
+	 * Opens the arms, and leaves them open when the elevator returns to manual mode
+	 * 
+	 * @return The step
+	 */
+	public static Step open()	{
+		return new Step(Step.kOpen, 0, 0, true, 0);
+	}
+	
+	/**
+	 * Holds the elevator still
+	 * 
+	 * @param ms	Milliseconds
+	 * @return		The step
+	 */
+	public static Step waitMs(long ms)	{
+		return new Step(Step.kWait, 0, 0, false, ms / 1000.0);
+	}
+	
+	private final Step[] m_steps;
+	private int m_index = -1;
+	private double m_stepStart;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param steps The steps, in order
+	 */
+	public NerdyStackSequence(Step[] steps)	{
+		m_steps = steps;
+	}
+	
+	/**
+	 * Starts the sequence from the first step
+	 */
+	public void start()	{
+		m_index = 0;
+		m_stepStart = NerdyTimer.getTime();
+	}
+	
+	/**
+	 * Stops the sequence
+	 */
+	public void stop()	{
+		m_index = -1;
+	}
+	
+	/**
+	 * Is the sequence running?
+	 * 
+	 * @return True if there is a current step
+	 */
+	public boolean isRunning()	{
+		return m_index >= 0;
+	}
+	
+	/**
+	 * Gets the current step
+	 * 
+	 * @return The step, or null if the sequence is not running
+	 */
+	public Step current()	{
+		return m_index >= 0 ? m_steps[m_index] : null;
+	}
+	
+	/**
+	 * Gets the number of the current step
+	 * 
+	 * @return The step number, or -1 if the sequence is not running
+	 */
+	public int getIndex()	{
+		return m_index;
+	}
+	
+	/**
+	 * Gets how long the current step has been running
+	 * 
+	 * @return Seconds
+	 */
+	public double getStepTime()	{
+		return NerdyTimer.getTime() - m_stepStart;
+	}
+	
+	/**
+	 * Moves on to the next step. The sequence stops after the last step.
+	 */
+	public void advance()	{
+		if(m_index < 0)	{
+			return;
+		}
+		m_index++;
+		m_stepStart = NerdyTimer.getTime();
+		if(m_index >= m_steps.length)	{
+			m_index = -1;
+		}
+	}
+}
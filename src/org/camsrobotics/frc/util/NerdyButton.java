@@ -1,18 +1,15 @@
 package org.camsrobotics.frc.util;
 
-import edu.wpi.first.wpilibj.Joystick;
-
 /**
- * Button monitoring system
+ * Button monitoring system. Reads its bit of the button state the joystick
+ * sampled in its last NerdyJoystick.update().
  * 
  * @author Wesley
  *
  */
 public class NerdyButton {
-	private int m_buttonPort;
-	private boolean m_current = false;
-	private boolean m_last = false;
-	private Joystick m_joy;
+	private int m_mask;
+	private NerdyJoystick m_joy;
 	
 	/**
 	 * Default constructor
@@ -20,8 +17,8 @@ public class NerdyButton {
 	 * @param joy The joystick the button is located on
 	 * @param buttonPort The port of the button
 	 */
-	public NerdyButton(Joystick joy, int buttonPort) {
-		m_buttonPort = buttonPort;
+	public NerdyButton(NerdyJoystick joy, int buttonPort) {
+		m_mask = 1 << (buttonPort - 1);
 		m_joy = joy;
 	}
 	
@@ -31,7 +28,7 @@ public class NerdyButton {
 	 * @return True for pressed, false for not pressed
 	 */
 	public boolean wasPressed() {
-		return m_current && !m_last;
+		return (m_joy.getPressed() & m_mask) != 0;
 	}
 	
 	/**
@@ -40,7 +37,7 @@ public class NerdyButton {
 	 * @return True for released, false for not released
 	 */
 	public boolean wasReleased() {
-		return !m_current && m_last;
+		return (m_joy.getReleased() & m_mask) != 0;
 	}
 	
 	/**
@@ -49,7 +46,7 @@ public class NerdyButton {
 	 * @return True for held, else false
 	 */
 	public boolean wasHeld()	{
-		return m_current && m_last;
+		return (m_joy.getHeld() & m_mask) != 0;
 	}
 	
 	/**
@@ -58,14 +55,6 @@ public class NerdyButton {
 	 * @return True for pressed, false for not pressed
 	 */
 	public boolean get() {
-		return m_current;
-	}
-	
-	/**
-	 * Updated the values. Run every time getting a value
-	 */
-	public void update() {
-		m_last = m_current;
-		m_current = m_joy.getRawButton(m_buttonPort);
+		return (m_joy.getButtons() & m_mask) != 0;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,300 @@
+package org.camsrobotics.frc.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Table driven operator controls. Each binding is one line of text:
+ * 
+ *   [joystick] [buttons] [trigger] [action] [second action]
+ * 
+ * e.g. "artic 3 press openElevator". Buttons are one number, or a chord of
+ * numbers joined by '+' that must all be down, e.g. "artic 9+10 press stackToStack".
+ * The triggers are press, release, hold (runs every cycle while down) and
+ * toggle (runs the action and the second action on alternate presses).
+ * Joysticks and actions are registered by name, so the controls can be
+ * remapped by editing the table alone.
+ * 
+ * compile() turns the table into a list of the bindings on each button. Every
+ * cycle, run() samples each joystick once and only looks at the bindings on
+ * buttons that changed or are held by a hold binding. Bindings that fire in
+ * the same cycle run in table order.
+ * 
+ */
+public class NerdyControls implements Runnable {
+	public static final int kPress		= 0;
+	public static final int kRelease	= 1;
+	public static final int kHold		= 2;
+	public static final int kToggle		= 3;
+	public static final String[] kTriggerNames = {"press", "release", "hold", "toggle"};
+	
+	private static final int kMaxButtons = 32;
+	
+	// Names, before compiling
+	private ArrayList<String> m_stickNames = new ArrayList<String>();
+	private ArrayList<NerdyJoystick> m_stickList = new ArrayList<NerdyJoystick>();
+	private HashMap<String, Runnable> m_actions = new HashMap<String, Runnable>();
+	
+	// Compiled table, indexed by binding
+	private NerdyJoystick[] m_sticks = new NerdyJoystick[0];
+	private int[] m_stick = new int[0];
+	private int[] m_mask = new int[0];
+	private int[] m_trigger = new int[0];
+	private Runnable[] m_action = new Runnable[0];
+	private Runnable[] m_secondAction = new Runnable[0];
+	private boolean[] m_toggled = new boolean[0];
+	
+	// Bindings on each button, indexed by joystick and bit
+	private int[][][] m_byButton = new int[0][][];
+	private int[] m_holdMask = new int[0];
+	
+	// Per cycle scratch
+	private int[] m_due = new int[0];
+	private int[] m_stamp = new int[0];
+	private int m_cycle = 0;
+	
+	/**
+	 * Registers a joystick. Must be called before compile().
+	 * 
+	 * @param name	The name bindings use, e.g. "artic"
+	 * @param joy	The joystick
+	 */
+	public void addJoystick(String name, NerdyJoystick joy)	{
+		m_stickNames.add(name);
+		m_stickList.add(joy);
+	}
+	
+	/**
+	 * Registers an action. Must be called before compile().
+	 * 
+	 * @param name		The name bindings use, e.g. "openElevator"
+	 * @param action	The action
+	 */
+	public void addAction(String name, Runnable action)	{
+		m_actions.put(name, action);
+	}
+	
+	/**
+	 * Compiles a binding table, replacing any earlier one
+	 * 
+	 * @param bindings One binding per entry. Blank entries and entries starting with '#' are skipped.
+	 * @throws IllegalArgumentException If a binding names an unknown joystick, trigger or action
+	 */
+	public void compile(String[] bindings)	{
+		int sticks = m_stickList.size();
+		ArrayList<int[]> parsed = new ArrayList<int[]>();
+		ArrayList<Runnable[]> actions = new ArrayList<Runnable[]>();
+		
+		for(int i = 0; i < bindings.length; i++)	{
+			String line = bindings[i].trim();
+			if(line.length() == 0 || line.startsWith("#"))	{
+				continue;
+			}
+			String[] fields = line.split("\\s+");
+			if(fields.length < 4)	{
+				throw new IllegalArgumentException("Expected joystick, buttons, trigger and action: " + line);
+			}
+			
+			int stick = m_stickNames.indexOf(fields[0]);
+			if(stick < 0)	{
+				throw new IllegalArgumentException("Unknown joystick " + fields[0] + ": " + line);
+			}
+			
+			int mask = 0;
+			String[] buttons = fields[1].split("\\+");
+			for(int b = 0; b < buttons.length; b++)	{
+				int button;
+				try	{
+					button = Integer.parseInt(buttons[b]);
+				}	catch(NumberFormatException e)	{
+					button = 0;
+				}
+				if(button < 1 || button > kMaxButtons)	{
+					throw new IllegalArgumentException("Bad button " + buttons[b] + ": " + line);
+				}
+				mask |= 1 << (button - 1);
+			}
+			
+			int trigger = -1;
+			for(int t = 0; t < kTriggerNames.length; t++)	{
+				if(kTriggerNames[t].equals(fields[2]))	{
+					trigger = t;
+				}
+			}
+			if(trigger < 0)	{
+				throw new IllegalArgumentException("Unknown trigger " + fields[2] + ": " + line);
+			}
+			
+			Runnable action = findAction(fields[3], line);
+			Runnable second = null;
+			if(trigger == kToggle)	{
+				if(fields.length < 5)	{
+					throw new IllegalArgumentException("Toggle needs a second action: " + line);
+				}
+				second = findAction(fields[4], line);
+			}
+			
+			parsed.add(new int[] {stick, mask, trigger});
+			actions.add(new Runnable[] {action, second});
+		}
+		
+		int count = parsed.size();
+		m_sticks		= m_stickList.toArray(new NerdyJoystick[sticks]);
+		m_stick			= new int[count];
+		m_mask			= new int[count];
+		m_trigger		= new int[count];
+		m_action		= new Runnable[count];
+		m_secondAction	= new Runnable[count];
+		m_toggled		= new boolean[count];
+		m_due			= new int[count];
+		m_stamp			= new int[count];
+		m_holdMask		= new int[sticks];
+		for(int i = 0; i < count; i++)	{
+			m_stick[i]			= parsed.get(i)[0];
+			m_mask[i]			= parsed.get(i)[1];
+			m_trigger[i]		= parsed.get(i)[2];
+			m_action[i]			= actions.get(i)[0];
+			m_secondAction[i]	= actions.get(i)[1];
+			if(m_trigger[i] == kHold)	{
+				m_holdMask[m_stick[i]] |= m_mask[i];
+			}
+		}
+		
+		// Lists the bindings on each button, in table order
+		m_byButton = new int[sticks][kMaxButtons][];
+		for(int s = 0; s < sticks; s++)	{
+			for(int bit = 0; bit < kMaxButtons; bit++)	{
+				int n = 0;
+				for(int i = 0; i < count; i++)	{
+					if(m_stick[i] == s && (m_mask[i] & (1 << bit)) != 0)	{
+						n++;
+					}
+				}
+				m_byButton[s][bit] = new int[n];
+				n = 0;
+				for(int i = 0; i < count; i++)	{
+					if(m_stick[i] == s && (m_mask[i] & (1 << bit)) != 0)	{
+						m_byButton[s][bit][n++] = i;
+					}
+				}
+			}
+		}
+	}
+	
+	private Runnable findAction(String name, String line)	{
+		Runnable action = m_actions.get(name);
+		if(action == null)	{
+			throw new IllegalArgumentException("Unknown action " + name + ": " + line);
+		}
+		return action;
+	}
+	
+	/**
+	 * Reads a binding table from a file, one binding per line
+	 * 
+	 * @param file The file
+	 * @return The bindings
+	 * @throws IOException If the file cannot be read
+	 */
+	public static String[] load(File file) throws IOException	{
+		ArrayList<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try	{
+			String line;
+			while((line = reader.readLine()) != null)	{
+				lines.add(line);
+			}
+		}	finally	{
+			reader.close();
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+	
+	/**
+	 * Gets the number of compiled bindings
+	 * 
+	 * @return The number of bindings
+	 */
+	public int getBindingCount()	{
+		return m_stick.length;
+	}
+	
+	/**
+	 * Samples the joysticks and runs the bindings that fire. Call once per control cycle.
+	 */
+	public void run()	{
+		int cycle = ++m_cycle;
+		int[] due = m_due;
+		int count = 0;
+		
+		for(int s = 0; s < m_sticks.length; s++)	{
+			NerdyJoystick joy = m_sticks[s];
+			joy.update();
+			int candidates = joy.getPressed() | joy.getReleased() | (joy.getButtons() & m_holdMask[s]);
+			int[][] byButton = m_byButton[s];
+			while(candidates != 0)	{
+				int[] bindings = byButton[Integer.numberOfTrailingZeros(candidates)];
+				candidates &= candidates - 1;
+				for(int i = 0; i < bindings.length; i++)	{
+					int b = bindings[i];
+					if(m_stamp[b] != cycle)	{
+						m_stamp[b] = cycle;
+						due[count++] = b;
+					}
+				}
+			}
+		}
+		
+		// Back into table order; only a handful of bindings are ever due at once
+		for(int i = 1; i < count; i++)	{
+			int b = due[i];
+			int j = i - 1;
+			while(j >= 0 && due[j] > b)	{
+				due[j + 1] = due[j];
+				j--;
+			}
+			due[j + 1] = b;
+		}
+		
+		for(int i = 0; i < count; i++)	{
+			fire(due[i]);
+		}
+	}
+	
+	private void fire(int b)	{
+		NerdyJoystick joy = m_sticks[m_stick[b]];
+		int mask = m_mask[b];
+		int now = joy.getButtons() & mask;
+		int before = (joy.getButtons() ^ (joy.getPressed() | joy.getReleased())) & mask;
+		boolean down = now == mask;
+		boolean wasDown = before == mask;
+		
+		switch(m_trigger[b])	{
+		case kPress:
+			if(down && !wasDown)	{
+				m_action[b].run();
+			}
+			break;
+		case kRelease:
+			if(!down && wasDown)	{
+				m_action[b].run();
+			}
+			break;
+		case kHold:
+			if(down)	{
+				m_action[b].run();
+			}
+			break;
+		case kToggle:
+			if(down && !wasDown)	{
+				m_toggled[b] = !m_toggled[b];
+				(m_toggled[b] ? m_action[b] : m_secondAction[b]).run();
+			}
+			break;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package org.camsrobotics.frc.util;
+
+/**
+ * Response curve for a joystick axis: a deadband, an exponential expo curve
+ * and a slew rate limit.
+ * 
+ * Outside the deadband the remaining travel u, from 0 to 1, maps to
+ * (e^(expo*u) - 1) / (e^expo - 1), which is linear for an expo of 0 and
+ * gives finer control near the center as the expo grows. The curve is
+ * precomputed into a table when the curve is made, so shaping a value is a
+ * table lookup and a linear interpolation.
+ * 
+ * Each axis needs its own instance, because the slew limit remembers the
+ * last output.
+ * 
+ */
+public class NerdyCurve {
+	public static final int kTableSize = 1024;
+	
+	private final double m_deadband;
+	private final double m_expo;
+	private final double m_slewRate;
+	private final double[] m_table = new double[kTableSize + 2];
+	
+	private double m_last = 0;
+	private double m_lastTime = Double.NaN;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param deadband	Magnitudes below this read as 0, 0 to 1
+	 * @param expo		0 for linear, higher for a softer center
+	 * @param slewRate	The fastest the output can change, in full scales per second,
+	 * 					or 0 for no limit
+	 */
+	public NerdyCurve(double deadband, double expo, double slewRate)	{
+		m_deadband = deadband;
+		m_expo = expo;
+		m_slewRate = slewRate;
+		for(int i = 0; i <= kTableSize; i++)	{
+			m_table[i] = compute((double) i / kTableSize);
+		}
+		// Lets an input of exactly 1 interpolate without a bounds check
+		m_table[kTableSize + 1] = m_table[kTableSize];
+	}
+	
+	/**
+	 * Computes the curve directly, without the table or the slew limit
+	 * 
+	 * @param value -1 to 1
+	 * @return The shaped value
+	 */
+	public double compute(double value)	{
+		double magnitude = Math.min(Math.abs(value), 1);
+		if(magnitude <= m_deadband)	{
+			return 0;
+		}
+		double u = (magnitude - m_deadband) / (1 - m_deadband);
+		double shaped = m_expo == 0 ? u : (Math.exp(m_expo * u) - 1) / (Math.exp(m_expo) - 1);
+		return value < 0 ? -shaped : shaped;
+	}
+	
+	/**
+	 * Shapes a value through the table, without the slew limit
+	 * 
+	 * @param value -1 to 1
+	 * @return The shaped value
+	 */
+	public double shape(double value)	{
+		double position = Math.min(Math.abs(value), 1) * kTableSize;
+		int i = (int) position;
+		double low = m_table[i];
+		double shaped = low + (m_table[i + 1] - low) * (position - i);
+		return value < 0 ? -shaped : shaped;
+	}
+	
+	/**
+	 * Shapes a value and applies the slew limit, using the time since the last call
+	 * 
+	 * @param value -1 to 1
+	 * @return The output
+	 */
+	public double apply(double value)	{
+		double shaped = shape(value);
+		if(m_slewRate > 0)	{
+			double now = NerdyTimer.getTime();
+			if(m_lastTime == m_lastTime)	{
+				double step = m_slewRate * (now - m_lastTime);
+				shaped = NerdyMath.threshold(shaped, m_last - step, m_last + step);
+			}
+			m_lastTime = now;
+		}
+		m_last = shaped;
+		return shaped;
+	}
+	
+	public double getDeadband()	{
+		return m_deadband;
+	}
+	
+	public double getExpo()	{
+		return m_expo;
+	}
+	
+	public double getSlewRate()	{
+		return m_slewRate;
+	}
+}
@@ -1,8 +1,20 @@
 package org.camsrobotics.frc.util;
 
-import edu.wpi.first.wpilibj.Encoder;
-import edu.wpi.first.wpilibj.SpeedController;
+import org.camsrobotics.frc.hal.NerdyEncoder;
+import org.camsrobotics.frc.hal.NerdyMotor;
+import org.camsrobotics.frc.pid.NerdyPID;
 
+/**
+ * The four Mecanum wheels, each with a motor and an encoder
+ * 
+ * Open loop, drive() sets each motor's power. In velocity mode, drive() sets
+ * each wheel's speed as a fraction of driveMaxSpeed, and each wheel tracks
+ * it from its encoder rate with a feedforward plus a PID. That keeps the
+ * wheels at the commanded speeds as the battery sags or the carpet drags on
+ * one of them. The I term is limited to driveVelocityIMax, so a wheel held
+ * back at full power doesn't wind it up.
+ * 
+ */
 public class NerdyDrivebase {
 	/**
 	 * Drivebase States
@@ -24,18 +36,20 @@ public class NerdyDrivebase {
         
         public String toString()	{
         	switch(state)	{
-        	case 0:
+        	case -1:
         		return "Off";
-			case 1:
+			case 0:
         		return "On";
         	}
         	// Should never happen
 			return null;
         }
 	}
-	private SpeedController m_ftLeft, m_ftRight, m_bkLeft, m_bkRight;
-	private Encoder m_ftLeftEncoder, m_ftRightEncoder, m_bkLeftEncoder, m_bkRightEncoder;
+	private NerdyMotor m_ftLeft, m_ftRight, m_bkLeft, m_bkRight;
+	private NerdyEncoder m_ftLeftEncoder, m_ftRightEncoder, m_bkLeftEncoder, m_bkRightEncoder;
 	private State m_state;
+	private boolean m_velocityMode = false;
+	private NerdyPID m_ftLeftPID, m_ftRightPID, m_bkLeftPID, m_bkRightPID;
 	
 	/**
 	 * Default constructor
@@ -49,8 +63,8 @@ public class NerdyDrivebase {
 	 * @param bkLeftEnc
 	 * @param bkRightEnc
 	 */
-	public NerdyDrivebase(SpeedController ftLeft, SpeedController ftRight, SpeedController bkLeft, SpeedController bkRight,
-			Encoder ftLeftEnc, Encoder ftRightEnc, Encoder bkLeftEnc, Encoder bkRightEnc)	{
+	public NerdyDrivebase(NerdyMotor ftLeft, NerdyMotor ftRight, NerdyMotor bkLeft, NerdyMotor bkRight,
+			NerdyEncoder ftLeftEnc, NerdyEncoder ftRightEnc, NerdyEncoder bkLeftEnc, NerdyEncoder bkRightEnc)	{
 		m_ftLeft = ftLeft;
 		m_ftRight = ftRight;
 		m_bkLeft = bkLeft;
@@ -60,6 +74,18 @@ public class NerdyDrivebase {
 		m_bkLeftEncoder = bkLeftEnc;
 		m_bkRightEncoder = bkRightEnc;
 		m_state = State.kOn;
+		
+		m_ftLeftPID		= newVelocityPID();
+		m_ftRightPID	= newVelocityPID();
+		m_bkLeftPID		= newVelocityPID();
+		m_bkRightPID	= newVelocityPID();
+	}
+	
+	private static NerdyPID newVelocityPID()	{
+		return new NerdyPID(NerdyResources.Constants.driveVelocityP,
+				NerdyResources.Constants.driveVelocityI,
+				NerdyResources.Constants.driveVelocityD)
+				.setIntegralLimit(NerdyResources.Constants.driveVelocityIMax);
 	}
 	
 	/**
@@ -76,6 +102,50 @@ public class NerdyDrivebase {
 		m_state = State.kOn;
 	}
 	
+	/**
+	 * Switches between open loop power and wheel velocity loops
+	 * 
+	 * @param velocityMode True for velocity loops
+	 */
+	public void setVelocityMode(boolean velocityMode)	{
+		m_velocityMode = velocityMode;
+		resetVelocityLoops();
+	}
+	
+	/**
+	 * Is the drivebase in velocity mode?
+	 * 
+	 * @return True for velocity loops
+	 */
+	public boolean isVelocityMode()	{
+		return m_velocityMode;
+	}
+	
+	/**
+	 * Resets the wheel velocity loops. Call before the loops start running
+	 * again after a pause, e.g. on enable, so the time in between isn't
+	 * integrated.
+	 */
+	public void resetVelocityLoops()	{
+		m_ftLeftPID.reset();
+		m_ftRightPID.reset();
+		m_bkLeftPID.reset();
+		m_bkRightPID.reset();
+	}
+	
+	/**
+	 * Gets each wheel's speed, in the direction its motor drives it
+	 * 
+	 * @param dest Where to put the speeds, in inches per second
+	 * @return dest
+	 */
+	public NerdyWheels getSpeeds(NerdyWheels dest)	{
+		return dest.set(m_ftLeftEncoder.getRate() / NerdyResources.Constants.driveCountsPerInch,
+				m_ftRightEncoder.getRate() / NerdyResources.Constants.driveCountsPerInch,
+				m_bkLeftEncoder.getRate() / NerdyResources.Constants.driveCountsPerInch,
+				m_bkRightEncoder.getRate() / NerdyResources.Constants.driveCountsPerInch);
+	}
+	
 	/**
 	 * Resets the encoder values
 	 */
@@ -102,8 +172,30 @@ public class NerdyDrivebase {
 		return m_bkRightEncoder.get();
 	}
 	
+	/**
+	 * Drives each wheel, thresholded to -1 to 1
+	 * 
+	 * @param wheels The wheel powers
+	 */
+	public void drive(NerdyWheels wheels)	{
+		drive(wheels.getFtLeft(), wheels.getFtRight(), wheels.getBkLeft(), wheels.getBkRight());
+	}
+	
+	/**
+	 * Drives each wheel
+	 * 
+	 * @param ftLeft	Power, or a fraction of driveMaxSpeed in velocity mode, -1 to 1
+	 * @param ftRight	Power, or a fraction of driveMaxSpeed in velocity mode, -1 to 1
+	 * @param bkLeft	Power, or a fraction of driveMaxSpeed in velocity mode, -1 to 1
+	 * @param bkRight	Power, or a fraction of driveMaxSpeed in velocity mode, -1 to 1
+	 */
 	public void drive(double ftLeft, double ftRight, double bkLeft, double bkRight)	{
-		if(m_state == State.kOn)	{
+		if(m_state == State.kOn && m_velocityMode)	{
+			m_ftLeft.set(trackSpeed(m_ftLeftPID, m_ftLeftEncoder, ftLeft));
+			m_ftRight.set(trackSpeed(m_ftRightPID, m_ftRightEncoder, ftRight));
+			m_bkLeft.set(trackSpeed(m_bkLeftPID, m_bkLeftEncoder, bkLeft));
+			m_bkRight.set(trackSpeed(m_bkRightPID, m_bkRightEncoder, bkRight));
+		}	else if(m_state == State.kOn)	{
 			m_ftLeft.set(NerdyMath.threshold(ftLeft, -1, 1));
 			m_ftRight.set(NerdyMath.threshold(ftRight, -1, 1));
 			m_bkLeft.set(NerdyMath.threshold(bkLeft, -1, 1));
@@ -113,6 +205,22 @@ public class NerdyDrivebase {
 			m_ftRight.set(0);
 			m_bkLeft.set(0);
 			m_bkRight.set(0);
+			resetVelocityLoops();
 		}
 	}
+	
+	/**
+	 * Runs one wheel's velocity loop
+	 * 
+	 * @param pid		The wheel's loop
+	 * @param encoder	The wheel's encoder
+	 * @param command	Fraction of driveMaxSpeed, -1 to 1
+	 * @return			The power
+	 */
+	private static double trackSpeed(NerdyPID pid, NerdyEncoder encoder, double command)	{
+		double desired = NerdyMath.threshold(command, -1, 1) * NerdyResources.Constants.driveMaxSpeed;
+		double speed = encoder.getRate() / NerdyResources.Constants.driveCountsPerInch;
+		double power = desired * NerdyResources.Constants.driveVelocityF + pid.setDesired(desired).calculate(speed);
+		return NerdyMath.threshold(power, -1, 1);
+	}
 }
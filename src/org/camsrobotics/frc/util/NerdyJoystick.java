@@ -1,14 +1,32 @@
 package org.camsrobotics.frc.util;
 
-import edu.wpi.first.wpilibj.Joystick;
+import org.camsrobotics.frc.hal.NerdyStick;
+import org.camsrobotics.frc.hal.WPIStick;
 
 /**
  * An improved Joystick class
  * 
+ * update() samples every button at once, once per cycle. The buttons that
+ * were pressed, released or held since the previous sample are then bit
+ * masks, with bit n-1 for button n, and NerdyButton reads single bits of them.
+ * 
+ * Each axis can have a NerdyCurve, which getX(), getY(), getZ() and
+ * getThrottle() apply. getRawAxis() always reads the unshaped value.
+ * 
  * @author Wesley
- *
+ * 
  */
-public class NerdyJoystick extends Joystick{
+public class NerdyJoystick {
+	// Axis numbers of a standard joystick
+	public static final int kXAxis			= 0;
+	public static final int kYAxis			= 1;
+	public static final int kZAxis			= 2;
+	public static final int kThrottleAxis	= 3;
+	
+	private NerdyStick m_stick;
+	private int m_buttons = 0;
+	private int m_lastButtons = 0;
+	private NerdyCurve[] m_curves = new NerdyCurve[kThrottleAxis + 1];
 	
 	/**
 	 * Default constructor
@@ -16,7 +34,164 @@ public class NerdyJoystick extends Joystick{
 	 * @param port The port on driverstation
 	 */
 	public NerdyJoystick(int port) {
-		super(port);
+		this(new WPIStick(port));
+	}
+	
+	/**
+	 * Constructs a joystick that reads from any input device
+	 * 
+	 * @param stick The input device
+	 */
+	public NerdyJoystick(NerdyStick stick)	{
+		m_stick = stick;
+	}
+	
+	/**
+	 * Gets the X position
+	 * 
+	 * @return +1 for all the way right, -1 for all the way left
+	 */
+	public double getX()	{
+		return getShaped(kXAxis);
+	}
+	
+	/**
+	 * Gets the Y position, as reported by the joystick (up is negative)
+	 * 
+	 * @return -1 for all the way up, +1 for all the way down
+	 */
+	public double getY()	{
+		return getShaped(kYAxis);
+	}
+	
+	/**
+	 * Gets the twist
+	 * 
+	 * @return -1 to 1
+	 */
+	public double getZ()	{
+		return getShaped(kZAxis);
+	}
+	
+	/**
+	 * Gets the throttle
+	 * 
+	 * @return -1 to 1
+	 */
+	public double getThrottle()	{
+		return getShaped(kThrottleAxis);
+	}
+	
+	/**
+	 * Shapes an axis. Each axis needs a curve of its own.
+	 * 
+	 * @param axis	The axis number, kXAxis to kThrottleAxis
+	 * @param curve	The curve, or null for the raw value
+	 */
+	public void setCurve(int axis, NerdyCurve curve)	{
+		m_curves[axis] = curve;
+	}
+	
+	/**
+	 * Gives the X, Y and Z axes the same shaping, each with a curve of its own
+	 * 
+	 * @param deadband	See NerdyCurve
+	 * @param expo		See NerdyCurve
+	 * @param slewRate	See NerdyCurve
+	 */
+	public void setCurves(double deadband, double expo, double slewRate)	{
+		setCurve(kXAxis, new NerdyCurve(deadband, expo, slewRate));
+		setCurve(kYAxis, new NerdyCurve(deadband, expo, slewRate));
+		setCurve(kZAxis, new NerdyCurve(deadband, expo, slewRate));
+	}
+	
+	/**
+	 * Gets an axis's curve
+	 * 
+	 * @param axis The axis number
+	 * @return The curve, or null if the axis is unshaped
+	 */
+	public NerdyCurve getCurve(int axis)	{
+		return m_curves[axis];
+	}
+	
+	private double getShaped(int axis)	{
+		double value = m_stick.getRawAxis(axis);
+		NerdyCurve curve = m_curves[axis];
+		return curve == null ? value : curve.apply(value);
+	}
+	
+	/**
+	 * Gets an unshaped axis value
+	 * 
+	 * @param axis The axis number
+	 * @return -1 to 1
+	 */
+	public double getRawAxis(int axis)	{
+		return m_stick.getRawAxis(axis);
+	}
+	
+	/**
+	 * Gets a button state
+	 * 
+	 * @param button The button number
+	 * @return True for pressed
+	 */
+	public boolean getRawButton(int button)	{
+		return m_stick.getRawButton(button);
+	}
+	
+	/**
+	 * Gets every button state now, rather than as of the last update()
+	 * 
+	 * @return Bit n-1 is set if button n is pressed
+	 */
+	public int getRawButtons()	{
+		return m_stick.getButtons();
+	}
+	
+	/**
+	 * Samples the buttons. Call once per cycle, before reading them.
+	 */
+	public void update()	{
+		m_lastButtons = m_buttons;
+		m_buttons = m_stick.getButtons();
+	}
+	
+	/**
+	 * Gets the buttons down at the last update()
+	 * 
+	 * @return Bit n-1 is set if button n is down
+	 */
+	public int getButtons()	{
+		return m_buttons;
+	}
+	
+	/**
+	 * Gets the buttons that went down at the last update()
+	 * 
+	 * @return Bit n-1 is set if button n was just pressed
+	 */
+	public int getPressed()	{
+		return m_buttons & ~m_lastButtons;
+	}
+	
+	/**
+	 * Gets the buttons that came up at the last update()
+	 * 
+	 * @return Bit n-1 is set if button n was just released
+	 */
+	public int getReleased()	{
+		return ~m_buttons & m_lastButtons;
+	}
+	
+	/**
+	 * Gets the buttons that were down at both of the last two updates
+	 * 
+	 * @return Bit n-1 is set if button n was held
+	 */
+	public int getHeld()	{
+		return m_buttons & m_lastButtons;
 	}
 	
 	/**
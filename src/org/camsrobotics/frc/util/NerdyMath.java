@@ -29,29 +29,81 @@ public class NerdyMath {
     	return Math.min(max, Math.max(min, val));
     }
     
+    /**
+     * Thresholds every value between a upper and lower limit
+     * 
+     * @param values	The values
+     * @param dest		Where to put the thresholded values, at least as long as values. May be values.
+     * @param min		The lower limit
+     * @param max		The upper limit
+     * @return			dest
+     */
+    public static double[] threshold(double[] values, double[] dest, double min, double max)	{
+    	for(int i = 0; i < values.length; i++)	{
+    		dest[i] = threshold(values[i], min, max);
+    	}
+    	return dest;
+    }
+    
+    /**
+     * Gets the largest magnitude in the array
+     * 
+     * @param values	The values
+     * @return			The largest absolute value, or 0 for an empty array
+     */
+    public static double maxAbs(double[] values)	{
+    	double max = 0;
+    	for(int i = 0; i < values.length; i++)	{
+    		max = Math.max(Math.abs(values[i]), max);
+    	}
+    	return max;
+    }
+    
+    /**
+     * Scales every value by the same factor
+     * 
+     * @param values	The values
+     * @param dest		Where to put the scaled values, at least as long as values. May be values.
+     * @param scalar	The factor
+     * @return			dest
+     */
+    public static double[] scale(double[] values, double[] dest, double scalar)	{
+    	for(int i = 0; i < values.length; i++)	{
+    		dest[i] = values[i] * scalar;
+    	}
+    	return dest;
+    }
+    
     /**
      * Normalizes the array to -1 or 1
      * 
      * @param values	The values
      * @param scaleUp	True makes the values scale no matter what
-     * @return			The normalized values
+     * @return			The normalized values, in a new array
      */
     public static double[] normalize(double[] values, boolean scaleUp){
-        double[] normalizedValues = new double[values.length];
-        double max = Math.max(Math.abs(values[0]), Math.abs(values[1]));
-        for(int i = 2; i < values.length; i++){
-            max = Math.max(Math.abs(values[i]), max);
-        }
-        if(max < 1 && scaleUp == false) {
-            for(int i = 0; i < values.length; i++){
-                normalizedValues[i] = values[i];
-            }
-        }   else    {
-            for(int i = 0; i < values.length; i++){
-                normalizedValues[i] = values[i] / max;
+        return normalize(values, new double[values.length], scaleUp);
+    }
+    
+    /**
+     * Normalizes the array to -1 or 1, without allocating
+     * 
+     * @param values	The values
+     * @param dest		Where to put the normalized values, at least as long as values. May be values.
+     * @param scaleUp	True makes the values scale no matter what. All zeros stay zeros.
+     * @return			dest
+     */
+    public static double[] normalize(double[] values, double[] dest, boolean scaleUp)	{
+        double max = maxAbs(values);
+        if((max < 1 && scaleUp == false) || max == 0) {
+            if(dest != values)	{
+            	System.arraycopy(values, 0, dest, 0, values.length);
             }
+            return dest;
+        }
+        for(int i = 0; i < values.length; i++){
+            dest[i] = values[i] / max;
         }
-        
-        return normalizedValues;
+        return dest;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,276 @@
+package org.camsrobotics.frc.util;
+
+import org.camsrobotics.frc.hal.NerdyIMU;
+
+/**
+ * Where the robot is on the field, from the four drive encoders and the IMU
+ * 
+ * Each update turns the wheels' travel since the last one into forward and
+ * strafe travel with the Mecanum forward kinematics, rotates it into the
+ * field frame at the heading halfway through the step, and adds it to the
+ * pose. The heading comes from the IMU rather than the wheels, which slip on
+ * their rollers most when turning.
+ * 
+ * The velocity is the wheels' travel over the last update, or with fusion
+ * on, a NerdyVelocityFilter combining that with the IMU's acceleration. The
+ * filter's estimate lags less, and while it finds the wheels slipping, the
+ * pose moves by the estimate instead of by the wheels.
+ * 
+ * The field frame is the IMU's: Y is forward at a yaw of zero, X is to the
+ * right, and headings are degrees, clockwise positive. Fusion needs the
+ * IMU's world axes to be the same. Zeroing the yaw turns the frame with it,
+ * so reset the pose after calibrating, and after resetting the drive
+ * encoders.
+ * 
+ * Updates run on one thread and are allocation free. Other threads copy the
+ * pose with getPose(), which retries until it gets a copy no update was in
+ * progress during, the same as IMUOrientationState. The pose fields are
+ * volatile, which keeps them ordered between the two version reads.
+ * 
+ */
+public class NerdyOdometry implements Runnable {
+	/**
+	 * A timestamped pose, for another thread to read
+	 * 
+	 */
+	public static final class Pose	{
+		private double m_x, m_y, m_heading, m_time;
+		private double m_velocityX, m_velocityY;
+		private boolean m_slipping;
+		
+		/**
+		 * @return Inches along the field X axis
+		 */
+		public double getX()	{
+			return m_x;
+		}
+		
+		/**
+		 * @return Inches along the field Y axis
+		 */
+		public double getY()	{
+			return m_y;
+		}
+		
+		/**
+		 * @return Degrees, clockwise positive, -180 to 180
+		 */
+		public double getHeading()	{
+			return m_heading;
+		}
+		
+		/**
+		 * @return When the pose was measured, in NerdyTimer seconds
+		 */
+		public double getTime()	{
+			return m_time;
+		}
+		
+		/**
+		 * @return Inches per second along the field X axis
+		 */
+		public double getVelocityX()	{
+			return m_velocityX;
+		}
+		
+		/**
+		 * @return Inches per second along the field Y axis
+		 */
+		public double getVelocityY()	{
+			return m_velocityY;
+		}
+		
+		/**
+		 * @return True if the wheels were slipping
+		 */
+		public boolean isSlipping()	{
+			return m_slipping;
+		}
+		
+		public String toString()	{
+			return "(" + m_x + " in, " + m_y + " in, " + m_heading + " deg), moving (" + m_velocityX + ", "
+					+ m_velocityY + ") in/s" + (m_slipping ? ", slipping," : "") + " at " + m_time + " s";
+		}
+	}
+	
+	private final NerdyDrivebase m_drivebase;
+	private final NerdyIMU m_imu;
+	private final NerdyVelocityFilter m_filter;
+	private boolean m_fusion = NerdyResources.Constants.driveFusion;
+	private int m_ftLeft, m_ftRight, m_bkLeft, m_bkRight;
+	private volatile double m_x, m_y, m_heading, m_time;
+	private volatile double m_velocityX, m_velocityY;
+	private volatile boolean m_slipping;
+	private volatile int m_version = 0;
+	
+	private NerdyTelemetry.Channel m_xChannel = NerdyTelemetry.addNumber("Pose X", 0.5);
+	private NerdyTelemetry.Channel m_yChannel = NerdyTelemetry.addNumber("Pose Y", 0.5);
+	private NerdyTelemetry.Channel m_headingChannel = NerdyTelemetry.addNumber("Pose Heading", 0.1);
+	private NerdyTelemetry.Channel m_slippingChannel = NerdyTelemetry.addBoolean("Slipping");
+	
+	/**
+	 * Default constructor. Starts at the origin.
+	 * 
+	 * @param drivebase	The drivebase, for its encoders
+	 * @param imu		The IMU
+	 */
+	public NerdyOdometry(NerdyDrivebase drivebase, NerdyIMU imu)	{
+		m_drivebase = drivebase;
+		m_imu = imu;
+		m_filter = new NerdyVelocityFilter(NerdyResources.Constants.driveFusionTimeConstant,
+				NerdyResources.Constants.driveFusionBiasTimeConstant, NerdyResources.Constants.driveSlipThreshold,
+				NerdyResources.Constants.driveSlipLimit);
+		reset(0, 0);
+	}
+	
+	/**
+	 * Switches between the wheels' velocity and the velocity filter
+	 * 
+	 * @param fusion True to fuse the IMU's acceleration
+	 */
+	public void setFusion(boolean fusion)	{
+		m_fusion = fusion;
+		m_filter.reset();
+	}
+	
+	/**
+	 * Is the velocity filter on?
+	 * 
+	 * @return True if the IMU's acceleration is fused
+	 */
+	public boolean isFusion()	{
+		return m_fusion;
+	}
+	
+	/**
+	 * Moves the pose, keeping the IMU heading. Call from the thread that
+	 * updates it, or while nothing does.
+	 * 
+	 * @param x	Inches along the field X axis
+	 * @param y	Inches along the field Y axis
+	 */
+	public void reset(double x, double y)	{
+		m_ftLeft	= m_drivebase.getFtLeft();
+		m_ftRight	= m_drivebase.getFtRight();
+		m_bkLeft	= m_drivebase.getBkLeft();
+		m_bkRight	= m_drivebase.getBkRight();
+		m_filter.reset();
+		
+		m_version++;
+		m_x = x;
+		m_y = y;
+		m_heading = m_imu.getYaw();
+		m_time = NerdyTimer.getTime();
+		m_velocityX = 0;
+		m_velocityY = 0;
+		m_slipping = false;
+		m_version++;
+	}
+	
+	/**
+	 * Updates the pose. Should be called every drive iteration.
+	 */
+	public void run()	{
+		int ftLeft	= m_drivebase.getFtLeft();
+		int ftRight	= m_drivebase.getFtRight();
+		int bkLeft	= m_drivebase.getBkLeft();
+		int bkRight	= m_drivebase.getBkRight();
+		double heading = m_imu.getYaw();
+		double time = NerdyTimer.getTime();
+		double dt = time - m_time;
+		
+		// Travel in inches, with the right side motors mounted reversed
+		double fl = (ftLeft - m_ftLeft) / NerdyResources.Constants.driveCountsPerInch;
+		double fr = -(ftRight - m_ftRight) / NerdyResources.Constants.driveCountsPerInch;
+		double bl = (bkLeft - m_bkLeft) / NerdyResources.Constants.driveCountsPerInch;
+		double br = -(bkRight - m_bkRight) / NerdyResources.Constants.driveCountsPerInch;
+		m_ftLeft	= ftLeft;
+		m_ftRight	= ftRight;
+		m_bkLeft	= bkLeft;
+		m_bkRight	= bkRight;
+		
+		double forward	= (fl + fr + bl + br) / 4;
+		double strafe	= (fl - fr - bl + br) / 4;
+		// Zero unless the wheels slip or scrub, there are only three ways to move
+		double scrub	= (fl + fr - bl - br) / 4;
+		
+		double midpoint = NerdyMath.degToRads(m_heading + wrap(heading - m_heading) / 2);
+		double sin = Math.sin(midpoint);
+		double cos = Math.cos(midpoint);
+		double travelX = forward * sin + strafe * cos;
+		double travelY = forward * cos - strafe * sin;
+		
+		double velocityX = m_velocityX;
+		double velocityY = m_velocityY;
+		boolean slipping = false;
+		if(dt > 0)	{
+			velocityX = travelX / dt;
+			velocityY = travelY / dt;
+			if(m_fusion)	{
+				slipping = m_filter.update(velocityX, velocityY, scrub / dt,
+						m_imu.getWorldLinearAccelX() * NerdyResources.Constants.gravity,
+						m_imu.getWorldLinearAccelY() * NerdyResources.Constants.gravity, dt);
+				velocityX = m_filter.getVelocityX();
+				velocityY = m_filter.getVelocityY();
+				if(slipping)	{
+					travelX = velocityX * dt;
+					travelY = velocityY * dt;
+				}
+			}
+		}
+		
+		double x = m_x + travelX;
+		double y = m_y + travelY;
+		m_version++;
+		m_x = x;
+		m_y = y;
+		m_heading = heading;
+		m_time = time;
+		m_velocityX = velocityX;
+		m_velocityY = velocityY;
+		m_slipping = slipping;
+		m_version++;
+		
+		m_xChannel.set(x);
+		m_yChannel.set(y);
+		m_headingChannel.set(heading);
+		m_slippingChannel.set(slipping);
+	}
+	
+	/**
+	 * Copies the pose, without blocking the thread that updates it
+	 * 
+	 * @param dest The copy to update
+	 * @return dest
+	 */
+	public Pose getPose(Pose dest)	{
+		int version;
+		do	{
+			version = m_version;
+			dest.m_x = m_x;
+			dest.m_y = m_y;
+			dest.m_heading = m_heading;
+			dest.m_time = m_time;
+			dest.m_velocityX = m_velocityX;
+			dest.m_velocityY = m_velocityY;
+			dest.m_slipping = m_slipping;
+		}	while((version & 1) != 0 || version != m_version);
+		return dest;
+	}
+	
+	/**
+	 * Wraps an angle to -180 to 180
+	 * 
+	 * @param degrees The angle
+	 * @return The wrapped angle
+	 */
+	private static double wrap(double degrees)	{
+		while(degrees >= 180)	{
+			degrees -= 360;
+		}
+		while(degrees < -180)	{
+			degrees += 360;
+		}
+		return degrees;
+	}
+}
@@ -1,5 +1,7 @@
 package org.camsrobotics.frc.util;
 
+import org.camsrobotics.frc.hal.WPISerialPort;
+
 import com.kauailabs.nav6.frc.IMUAdvanced;
 
 import edu.wpi.first.wpilibj.CANTalon;
@@ -9,7 +11,6 @@ import edu.wpi.first.wpilibj.Encoder;
 import edu.wpi.first.wpilibj.SerialPort;
 import edu.wpi.first.wpilibj.Talon;
 import edu.wpi.first.wpilibj.VictorSP;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  * Resources and Constants for the robot
@@ -31,33 +32,7 @@ public class NerdyResources {
 		// Joysticks
 		public static NerdyJoystick leftJoy			= new NerdyJoystick(0);
 		public static NerdyJoystick rightJoy		= new NerdyJoystick(1);
-		public static NerdyJoystick articJoy		= new NerdyJoystick(2);	
-		
-		/*
-		 * Drive Buttons
-		 */
-		public static NerdyButton driveMode			= leftJoy.getButton(7);
-		public static NerdyButton calibrateDrive	= leftJoy.getButton(4);
-		
-		/*
-		 * Articulation Buttons
-		 */
-		// Manual Buttons
-		public static NerdyButton openElevator		= articJoy.getButton(3);
-		public static NerdyButton closeElevator		= articJoy.getButton(4);
-		public static NerdyButton openIntake		= articJoy.getButton(5);
-		public static NerdyButton closeIntake		= articJoy.getButton(6);
-		public static NerdyButton intake			= articJoy.getButton(11);
-		public static NerdyButton outake			= articJoy.getButton(12);
-		public static NerdyButton stopIntakes		= articJoy.getButton(2); 
-		public static NerdyButton calibrateArtic	= articJoy.getButton(1);
-		public static NerdyButton openClaw			= articJoy.getButton(7);
-		public static NerdyButton closeClaw 		= articJoy.getButton(8);
-		// Automated Buttons
-		public static NerdyButton stackToStack		= articJoy.getButton(10);
-		
-		// Override
-		public static NerdyButton articOverride		= articJoy.getButton(9);
+		public static NerdyJoystick articJoy		= new NerdyJoystick(2);
 	}
 	
 	/**
@@ -80,7 +55,7 @@ public class NerdyResources {
 		public static Encoder bkRightEncoder	= new Encoder(6,7);
 		
 		// Nav
-		public static IMUAdvanced imu			= new IMUAdvanced(new SerialPort(57600,SerialPort.Port.kMXP));
+		public static IMUAdvanced imu			= new IMUAdvanced(new WPISerialPort(new SerialPort(57600,SerialPort.Port.kMXP)));
 	}
 	
 	/**
@@ -119,13 +94,97 @@ public class NerdyResources {
 		public final static double driveRotationP	= 0.00444444;
 		public final static double driveRotationI	= 0.00004444;
 		public final static double driveRotationD	= 0.00000000;
+		// Wheel velocity loops, see NerdyDrivebase.setVelocityMode. Needs each encoder to
+		// count up when its motor is driven forward.
+		public final static boolean driveVelocityMode	= false;
+		public final static double driveMaxSpeed		= 144;		// Wheel surface speed at full power, in/s
+		public final static double driveCountsPerInch	= 360 / (6 * Math.PI);	// 360 CPR, 6 in wheels
+		public final static double driveVelocityF		= 1 / driveMaxSpeed;	// Power per in/s
+		public final static double driveVelocityP		= 0.05;		// Power per in/s of error
+		public final static double driveVelocityI		= 2;		// Power per inch of error
+		public final static double driveVelocityD		= 0;
+		public final static double driveVelocityIMax	= 0.5;		// Most power the I term can add
+		// Odometry velocity filter, see NerdyOdometry.setFusion. Needs the IMU's world X and
+		// Y axes checked against the field frame.
+		public final static boolean driveFusion				= false;
+		public final static double driveFusionTimeConstant	= 0.05;		// s
+		public final static double driveFusionBiasTimeConstant	= 2;	// s
+		public final static double driveSlipThreshold		= 15;		// in/s
+		public final static double driveSlipLimit			= 1;			// s
+		public final static double gravity					= 386.09;	// in/s^2
+		
+		/*
+		 * 	Loop rates (Hz)
+		 */
+		public final static double driveRate		= 200;
+		public final static double articRate		= 100;
+		public final static double controlRate		= 50;
+		public final static double telemetryRate	= 10;
+		
+		/*
+		 * 	Joystick shaping, see NerdyCurve. Applies to the X, Y and Z axes.
+		 */
+		public final static double driveDeadband	= 0.08;
+		public final static double driveExpo		= 0;
+		public final static double driveSlewRate	= 0;	// Full scales per second, 0 for none
+		public final static double articDeadband	= 0.08;
+		public final static double articExpo		= 0;
+		public final static double articSlewRate	= 0;
+		
+		/*
+		 * 	Button bindings, see NerdyControls. Actions are the NerdyBot
+		 * 	methods of the same name. Replaced by controlsFile if it exists.
+		 */
+		public final static String controlsFile		= "/home/lvuser/controls.txt";
+		public final static String[] controls		= {
+			// Drive Buttons
+			"left 7 press toggleDriveMode",
+			"left 4 press calibrateDrive",
+			// Manual Buttons
+			"artic 3 press openElevator",
+			"artic 4 press closeElevator",
+			"artic 5 press openIntakes",
+			"artic 6 press closeIntakes",
+			"artic 1 press calibrateElevator",
+			"artic 7 press openClaw",
+			"artic 8 press closeClaw",
+			// Held intake buttons, in increasing priority
+			"artic 2 hold idleIntakes",
+			"artic 12 hold outake",
+			"artic 11 hold intake",
+			// Automated Buttons
+			"artic 10 press stackToStack",
+			// Override
+			"artic 9 press enableArtic"
+		};
+		
+		/*
+		 * 	Flight recorder
+		 */
+		public final static String flightLogDirectory	= "/home/lvuser/logs";
+		public final static int flightRecorderRing		= 1024;	// Records
+		public final static int flightLogsKept			= 20;	// Oldest are deleted as teleop starts new ones
+		public final static boolean logTransitions		= false;	// Print every state change, see NerdyStateLogger
 		
 		/*
 		 * 	Articulation constants
 		 */
 		public final static double articLiftP		= 0.05;
-		public final static double articLiftI		= 0.004;
+		public final static double articLiftI		= 0.004;	// Power per inch-second of error
 		public final static double articLiftD		= 1;
+		// Elevator motion profiles and feedforward, see NerdyMotionProfile
+		public final static double articLiftMaxVelocity	= 30;		// in/s
+		public final static double articLiftMaxAccel	= 150;		// in/s^2
+		public final static double articLiftV		= 0.025;	// Power per in/s
+		public final static double articLiftA		= 0.00125;	// Power per in/s^2
+		public final static double articLiftG		= 0;		// Power to hold the carriage up
+		// Onboard elevator loop on the Talon, see NerdyElevator.setOnboardLoop. Needs the
+		// elevator encoder wired to the Talon. Gains are in Talon units: 1023 is full
+		// output, error is in encoder counts, and the loop runs every millisecond.
+		public final static boolean articTalonLoop	= false;
+		public final static double articTalonP		= 4.0;
+		public final static double articTalonI		= 0;
+		public final static double articTalonD		= 40;
 		//Autostack Heights
 		public final static double stackHeight1		= 20.0;
 		public final static double stackHeight2		= 8.0;
@@ -137,23 +196,33 @@ public class NerdyResources {
 		public final static double stackHeight22	= 18.0;
 		public final static double stackHeight23	= 38.0;
 		//Autostack Pause
-		public final static double pause			= .5;
+		public final static long pauseMs			= 500;
 	}
 	
+	// Sensor telemetry
+	private static NerdyTelemetry.Channel ftLeftEncoderChannel		= NerdyTelemetry.addNumber("Front Left Encoder Value", 4);
+	private static NerdyTelemetry.Channel ftRightEncoderChannel		= NerdyTelemetry.addNumber("Front Right Encoder Value", 4);
+	private static NerdyTelemetry.Channel bkLeftEncoderChannel		= NerdyTelemetry.addNumber("Back Left Encoder Value", 4);
+	private static NerdyTelemetry.Channel bkRightEncoderChannel		= NerdyTelemetry.addNumber("Back Right Encoder Value", 4);
+	private static NerdyTelemetry.Channel yawChannel				= NerdyTelemetry.addNumber("Yaw", 0.1);
+	private static NerdyTelemetry.Channel elevatorCurrentChannel	= NerdyTelemetry.addNumber("Elevator Current", 0.1);
+	private static NerdyTelemetry.Channel elevatorVoltageChannel	= NerdyTelemetry.addNumber("Elevator Voltage", 0.1);
+	private static NerdyTelemetry.Channel articEncoderChannel		= NerdyTelemetry.addNumber("Articulation Encoder", 0);
+	
 	/**
-	 * Reports the sensors to the SmartDashboard
+	 * Reports the sensors to the SmartDashboard. Sent by the next NerdyTelemetry.publish().
 	 */
 	public static void reportSensors()	{
-		SmartDashboard.putNumber("Front Left Encoder Value", Drive.ftLeftEncoder.getRaw());
-		SmartDashboard.putNumber("Front Right Encoder Value", Drive.ftRightEncoder.getRaw());
-		SmartDashboard.putNumber("Back Left Encoder Value", Drive.bkLeftEncoder.getRaw());
-		SmartDashboard.putNumber("Back Right Encoder Value", Drive.bkRightEncoder.getRaw());
+		ftLeftEncoderChannel.set(Drive.ftLeftEncoder.getRaw());
+		ftRightEncoderChannel.set(Drive.ftRightEncoder.getRaw());
+		bkLeftEncoderChannel.set(Drive.bkLeftEncoder.getRaw());
+		bkRightEncoderChannel.set(Drive.bkRightEncoder.getRaw());
 		
-		SmartDashboard.putNumber("Yaw", Drive.imu.getYaw());
+		yawChannel.set(Drive.imu.getYaw());
 
-		SmartDashboard.putNumber("Elevator Current", Articulation.elevator.getOutputCurrent());
-		SmartDashboard.putNumber("Elevator Voltage", Articulation.elevator.getOutputVoltage());
+		elevatorCurrentChannel.set(Articulation.elevator.getOutputCurrent());
+		elevatorVoltageChannel.set(Articulation.elevator.getOutputVoltage());
 		
-		SmartDashboard.putNumber("Articulation Encoder", Articulation.elevatorEncoder.getRaw()/256+8);
+		articEncoderChannel.set(Articulation.elevatorEncoder.getRaw()/256+8);
 	}
-}
+}
\ No newline at end of file
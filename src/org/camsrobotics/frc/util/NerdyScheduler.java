@@ -0,0 +1,364 @@
+package org.camsrobotics.frc.util;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed rate scheduler. Each task is registered with its own rate and runs on
+ * a fixed grid of release times counted from when the scheduler starts, so its
+ * timing does not depend on when the driver station packets arrive.
+ * 
+ * Tasks due at the same time run in the order they were added. A task overruns
+ * when it finishes after its next release time; releases it missed are skipped
+ * rather than run back to back, and are counted as overruns.
+ * 
+ * Time comes from NerdyTimer, so the scheduler can be stepped deterministically
+ * with poll() on a simulated clock, or run on its own thread with start().
+ * 
+ * A task that throws stops the scheduler: the exception is counted against
+ * the task and kept for getFailure(), the failsafe runs, and no task runs
+ * again until the scheduler is started again. Whoever started it should
+ * check isAlive() and report the failure.
+ * 
+ */
+public class NerdyScheduler implements Runnable {
+	/**
+	 * A scheduled task and its timing statistics
+	 * 
+	 */
+	public static class Task	{
+		private final String m_name;
+		private final Runnable m_runnable;
+		private final double m_period;
+		private long m_releases = 0;
+		private double m_nextRelease;
+		
+		private int m_runs = 0;
+		private int m_overruns = 0;
+		private int m_failures = 0;
+		private double m_lastDuration = 0;
+		private double m_maxDuration = 0;
+		private double m_maxLatency = 0;
+		
+		private Task(String name, Runnable runnable, double hz)	{
+			m_name = name;
+			m_runnable = runnable;
+			m_period = 1 / hz;
+		}
+		
+		public String getName()	{
+			return m_name;
+		}
+		
+		/**
+		 * @return Seconds between releases
+		 */
+		public double getPeriod()	{
+			return m_period;
+		}
+		
+		/**
+		 * @return The number of times the task has run
+		 */
+		public int getRuns()	{
+			return m_runs;
+		}
+		
+		/**
+		 * @return The number of overruns, including skipped releases
+		 */
+		public int getOverruns()	{
+			return m_overruns;
+		}
+		
+		/**
+		 * @return The number of runs that threw
+		 */
+		public int getFailures()	{
+			return m_failures;
+		}
+		
+		/**
+		 * @return Seconds the last run took
+		 */
+		public double getLastDuration()	{
+			return m_lastDuration;
+		}
+		
+		/**
+		 * @return Seconds the longest run took
+		 */
+		public double getMaxDuration()	{
+			return m_maxDuration;
+		}
+		
+		/**
+		 * @return The longest delay from a release time to the start of its run, in seconds
+		 */
+		public double getMaxLatency()	{
+			return m_maxLatency;
+		}
+		
+		/**
+		 * Clears the statistics
+		 */
+		public void resetStatistics()	{
+			m_runs = 0;
+			m_overruns = 0;
+			m_failures = 0;
+			m_lastDuration = 0;
+			m_maxDuration = 0;
+			m_maxLatency = 0;
+		}
+		
+		public String toString()	{
+			return m_name + ": " + m_runs + " runs, " + m_overruns + " overruns, max "
+					+ (m_maxDuration * 1000) + " ms";
+		}
+	}
+	
+	private ArrayList<Task> m_tasks = new ArrayList<Task>();
+	private Task[] m_schedule = new Task[0];
+	private double m_start;
+	private boolean m_started = false;
+	private volatile boolean m_running = false;
+	private volatile RuntimeException m_failure = null;
+	private Runnable m_failsafe;
+	private Thread m_thread;
+	
+	/**
+	 * Adds a task. Tasks cannot be added once the scheduler has started.
+	 * 
+	 * @param name		The name, for reports
+	 * @param runnable	The task
+	 * @param hz		Runs per second
+	 * @return			The task, for its statistics
+	 */
+	public synchronized Task add(String name, Runnable runnable, double hz)	{
+		if(m_started)	{
+			throw new IllegalStateException("Tasks must be added before the scheduler starts");
+		}
+		Task task = new Task(name, runnable, hz);
+		m_tasks.add(task);
+		m_schedule = m_tasks.toArray(new Task[m_tasks.size()]);
+		return task;
+	}
+	
+	/**
+	 * Sets what to run when a task throws, e.g. stopping every motor. Runs on
+	 * the thread that ran the task, before the scheduler stops.
+	 * 
+	 * @param failsafe The failsafe
+	 */
+	public synchronized void setFailsafe(Runnable failsafe)	{
+		m_failsafe = failsafe;
+	}
+	
+	/**
+	 * Gets the exception that stopped the scheduler
+	 * 
+	 * @return The exception, or null if no task has thrown since the scheduler started
+	 */
+	public RuntimeException getFailure()	{
+		return m_failure;
+	}
+	
+	/**
+	 * Is the thread started by start() still running the tasks?
+	 * 
+	 * @return False if it was never started, was stopped, or a task failed
+	 */
+	public synchronized boolean isAlive()	{
+		return m_thread != null && m_thread.isAlive() && m_failure == null;
+	}
+	
+	/**
+	 * Gets the tasks, in the order they were added
+	 * 
+	 * @return The tasks
+	 */
+	public Task[] getTasks()	{
+		return m_schedule;
+	}
+	
+	/**
+	 * Makes the current time the first release time of every task
+	 */
+	public void reset()	{
+		reset(NerdyTimer.getTime());
+	}
+	
+	/**
+	 * Sets the first release time of every task. A start slightly before the
+	 * current time lets a replay on recorded timestamps tolerate their jitter.
+	 * 
+	 * @param start NerdyTimer seconds
+	 */
+	public synchronized void reset(double start)	{
+		m_start = start;
+		for(int i = 0; i < m_schedule.length; i++)	{
+			m_schedule[i].m_releases = 0;
+			m_schedule[i].m_nextRelease = m_start;
+		}
+		m_started = true;
+	}
+	
+	/**
+	 * Runs every task that is due. Starts the schedule if this is the first call.
+	 * Does nothing once a task has failed.
+	 * 
+	 * @return The time of the next release, in NerdyTimer seconds
+	 */
+	public double poll()	{
+		if(!m_started)	{
+			reset();
+		}
+		if(m_failure != null)	{
+			return Double.MAX_VALUE;
+		}
+		
+		Task[] schedule = m_schedule;
+		double next = Double.MAX_VALUE;
+		for(int i = 0; i < schedule.length; i++)	{
+			Task task = schedule[i];
+			double now = NerdyTimer.getTime();
+			if(now >= task.m_nextRelease)	{
+				double latency = now - task.m_nextRelease;
+				try	{
+					task.m_runnable.run();
+				}	catch(RuntimeException e)	{
+					fail(task, e);
+					return Double.MAX_VALUE;
+				}
+				double end = NerdyTimer.getTime();
+				
+				task.m_runs++;
+				task.m_lastDuration = end - now;
+				task.m_maxDuration = Math.max(task.m_maxDuration, task.m_lastDuration);
+				task.m_maxLatency = Math.max(task.m_maxLatency, latency);
+				
+				// Releases are counted from the start, so they never drift
+				long releases = task.m_releases + 1;
+				double release = m_start + releases * task.m_period;
+				if(end > release)	{
+					long missed = (long) ((end - release) / task.m_period) + 1;
+					task.m_overruns += missed;
+					releases += missed;
+					release = m_start + releases * task.m_period;
+				}
+				task.m_releases = releases;
+				task.m_nextRelease = release;
+			}
+			next = Math.min(next, task.m_nextRelease);
+		}
+		return next;
+	}
+	
+	/**
+	 * Stops the scheduler after a task threw, and runs the failsafe
+	 * 
+	 * @param task	The task
+	 * @param e		What it threw
+	 */
+	private void fail(Task task, RuntimeException e)	{
+		task.m_failures++;
+		m_failure = e;
+		m_running = false;
+		System.err.println("NerdyScheduler: " + task.m_name + " failed, stopping");
+		e.printStackTrace();
+		
+		Runnable failsafe;
+		synchronized(this)	{
+			failsafe = m_failsafe;
+		}
+		if(failsafe != null)	{
+			try	{
+				failsafe.run();
+			}	catch(RuntimeException failsafeException)	{
+				failsafeException.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Runs the tasks on the calling thread until stop() is called or a task fails
+	 */
+	public void run()	{
+		m_running = true;
+		m_failure = null;
+		loop();
+	}
+	
+	private void loop()	{
+		reset();
+		while(m_running)	{
+			double next = poll();
+			double wait;
+			while(m_running && (wait = next - NerdyTimer.getTime()) > 0)	{
+				LockSupport.parkNanos((long) (wait * 1e9));
+			}
+		}
+	}
+	
+	/**
+	 * Starts running the tasks on a new thread, unless they already are. Clears
+	 * any failure.
+	 * 
+	 * @param priority The thread priority
+	 */
+	public void start(int priority)	{
+		if(isAlive())	{
+			return;
+		}
+		// Joins the thread a failed task stopped, so it can't see the new run
+		stop();
+		synchronized(this)	{
+			if(m_thread != null)	{
+				return;
+			}
+			m_running = true;
+			m_failure = null;
+			m_thread = new Thread(new Runnable()	{
+				public void run()	{
+					loop();
+				}
+			}, "NerdyScheduler");
+			m_thread.setPriority(priority);
+			m_thread.setDaemon(true);
+			m_thread.start();
+		}
+	}
+	
+	/**
+	 * Stops the thread started by start(), and waits for the running task to finish
+	 */
+	public void stop()	{
+		Thread thread;
+		synchronized(this)	{
+			thread = m_thread;
+			m_thread = null;
+		}
+		m_running = false;
+		if(thread != null && thread != Thread.currentThread())	{
+			LockSupport.unpark(thread);
+			try	{
+				thread.join();
+			}	catch(InterruptedException e)	{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Gets the total number of overruns across all tasks
+	 * 
+	 * @return The number of overruns
+	 */
+	public int getOverruns()	{
+		int overruns = 0;
+		for(int i = 0; i < m_schedule.length; i++)	{
+			overruns += m_schedule[i].m_overruns;
+		}
+		return overruns;
+	}
+}
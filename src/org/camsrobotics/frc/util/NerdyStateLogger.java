@@ -0,0 +1,26 @@
+package org.camsrobotics.frc.util;
+
+import java.io.PrintStream;
+
+/**
+ * Prints every state transition, one per line, e.g. to the driver station's
+ * console. Runs on the NerdyStates dispatcher thread, so a slow stream never
+ * holds up put().
+ * 
+ */
+public class NerdyStateLogger implements NerdyStates.Listener {
+	private final PrintStream m_out;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param out Where to print the transitions
+	 */
+	public NerdyStateLogger(PrintStream out)	{
+		m_out = out;
+	}
+	
+	public void stateChanged(NerdyStates.Transition transition)	{
+		m_out.println(transition);
+	}
+}
@@ -1,24 +1,219 @@
 package org.camsrobotics.frc.util;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Static class to hold robot states
  * 
+ * Each state is registered once, at startup, and gets a typed key holding
+ * its slot in an array, so reads and writes are an index with no lookup,
+ * cast or allocation.
+ * 
+ * Every put() that changes a state bumps the version number. Other threads,
+ * e.g. telemetry, copy the states with read(), which holds the same lock as
+ * put() so the copy is never part way through a write.
+ * 
+ * Each change is also a timestamped transition. Listeners are told about
+ * transitions on a dispatcher thread of their own, so put() only queues
+ * them and never waits for a listener.
+ * 
  * @author Wesley
- *
+ * 
  */
 public class NerdyStates {
-	private static HashMap<String, Object> m_states = new HashMap<String, Object>();
+	/**
+	 * A registered state
+	 * 
+	 * @param <T> The state's type
+	 */
+	public static final class Key<T>	{
+		private final String m_name;
+		private final Class<T> m_type;
+		private final int m_slot;
+		
+		private Key(String name, Class<T> type, int slot)	{
+			m_name = name;
+			m_type = type;
+			m_slot = slot;
+		}
+		
+		public String getName()	{
+			return m_name;
+		}
+		
+		public String toString()	{
+			return m_name;
+		}
+	}
 	
 	/**
-	 * Adds a value
+	 * A copy of every state, for another thread to read
+	 * 
+	 */
+	public static final class Snapshot	{
+		private Object[] m_values = new Object[0];
+		private int m_version = -1;
+		
+		/**
+		 * Gets a value
+		 * 
+		 * @param key The value's key
+		 * @return The value when the snapshot was taken
+		 */
+		@SuppressWarnings("unchecked")
+		public <T> T get(Key<T> key)	{
+			return key.m_slot < m_values.length ? (T) m_values[key.m_slot] : null;
+		}
+		
+		/**
+		 * @return The version of the states the snapshot holds
+		 */
+		public int getVersion()	{
+			return m_version;
+		}
+	}
+	
+	/**
+	 * A state change. Listeners are passed the same instance every time, so
+	 * copy anything that needs to outlive the call.
+	 * 
+	 */
+	public static final class Transition	{
+		private Key<?> m_key;
+		private Object m_previous, m_value;
+		private double m_time, m_previousTime;
+		
+		public Key<?> getKey()	{
+			return m_key;
+		}
+		
+		/**
+		 * @return The value before the change, or null if it was the first
+		 */
+		public Object getPrevious()	{
+			return m_previous;
+		}
+		
+		/**
+		 * @return The value after the change
+		 */
+		public Object getValue()	{
+			return m_value;
+		}
+		
+		/**
+		 * @return When the state changed, in NerdyTimer seconds
+		 */
+		public double getTime()	{
+			return m_time;
+		}
+		
+		/**
+		 * @return Seconds spent in the previous value
+		 */
+		public double getDuration()	{
+			return m_time - m_previousTime;
+		}
+		
+		public String toString()	{
+			return m_key + ": " + m_previous + " -> " + m_value + " at " + m_time + " s, after " + getDuration() + " s";
+		}
+	}
+	
+	/**
+	 * Receives state transitions, on the dispatcher thread
+	 * 
+	 */
+	public interface Listener	{
+		public void stateChanged(Transition transition);
+	}
+	
+	public static final int kTransitionQueue = 64;
+	
+	private static ArrayList<Key<?>> m_keys = new ArrayList<Key<?>>();
+	private static volatile Key<?>[] m_keyArray = new Key<?>[0];
+	private static Object[] m_values = new Object[0];
+	private static double[] m_changed = new double[0];
+	private static volatile int m_version = 0;
+	
+	// Transitions waiting for the dispatcher, written by put() under the lock
+	private static final int[] m_queueSlots				= new int[kTransitionQueue];
+	private static final Object[] m_queuePrevious		= new Object[kTransitionQueue];
+	private static final Object[] m_queueValues			= new Object[kTransitionQueue];
+	private static final double[] m_queueTimes			= new double[kTransitionQueue];
+	private static final double[] m_queuePreviousTimes	= new double[kTransitionQueue];
+	private static volatile long m_queueHead = 0;
+	private static volatile long m_queueTail = 0;
+	private static volatile int m_dropped = 0;
+	
+	private static volatile Listener[] m_listeners = new Listener[0];
+	private static Thread m_dispatcher;
+	
+	/**
+	 * Registers a state. Registering a name again returns the same key.
+	 * 
+	 * @param name	The name, for reports
+	 * @param type	The type of its values
+	 * @return		The key
+	 */
+	@SuppressWarnings("unchecked")
+	public static synchronized <T> Key<T> register(String name, Class<T> type)	{
+		for(int i = 0; i < m_keys.size(); i++)	{
+			Key<?> key = m_keys.get(i);
+			if(key.m_name.equals(name))	{
+				if(key.m_type != type)	{
+					throw new IllegalArgumentException(name + " is already registered as " + key.m_type.getName());
+				}
+				return (Key<T>) key;
+			}
+		}
+		Key<T> key = new Key<T>(name, type, m_keys.size());
+		m_keys.add(key);
+		m_keyArray = m_keys.toArray(new Key<?>[m_keys.size()]);
+		
+		Object[] values = new Object[m_keys.size()];
+		System.arraycopy(m_values, 0, values, 0, m_values.length);
+		double[] changed = new double[m_keys.size()];
+		System.arraycopy(m_changed, 0, changed, 0, m_changed.length);
+		m_values = values;
+		m_changed = changed;
+		m_version++;
+		return key;
+	}
+	
+	/**
+	 * Sets a value. Does nothing if it is equal to the current value.
 	 * 
 	 * @param key
 	 * @param value
 	 */
-	public static void put(String key, Object value)	{
-		m_states.put(key, value);
+	public static synchronized <T> void put(Key<T> key, T value)	{
+		int slot = key.m_slot;
+		Object previous = m_values[slot];
+		if(value == previous || (value != null && value.equals(previous)))	{
+			return;
+		}
+		m_values[slot] = value;
+		m_version++;
+		
+		double now = NerdyTimer.getTime();
+		if(m_dispatcher != null)	{
+			long head = m_queueHead;
+			if(head - m_queueTail >= kTransitionQueue)	{
+				m_dropped++;
+			}	else	{
+				int i = (int) (head % kTransitionQueue);
+				m_queueSlots[i]			= slot;
+				m_queuePrevious[i]		= previous;
+				m_queueValues[i]		= value;
+				m_queueTimes[i]			= now;
+				m_queuePreviousTimes[i]	= m_changed[slot];
+				m_queueHead = head + 1;
+				LockSupport.unpark(m_dispatcher);
+			}
+		}
+		m_changed[slot] = now;
 	}
 	
 	/**
@@ -27,16 +222,118 @@ public class NerdyStates {
 	 * @param key The value's key
 	 * @return The value
 	 */
-	public static Object get(String key)	{
-		return m_states.get(key);
+	@SuppressWarnings("unchecked")
+	public static <T> T get(Key<T> key)	{
+		return (T) m_values[key.m_slot];
+	}
+	
+	/**
+	 * Copies every state. Only allocates when states have been registered
+	 * since the last copy.
+	 * 
+	 * @param dest The copy to update
+	 * @return True if any state changed since dest was last updated
+	 */
+	public static synchronized boolean read(Snapshot dest)	{
+		if(dest.m_values.length != m_values.length)	{
+			dest.m_values = new Object[m_values.length];
+		}
+		System.arraycopy(m_values, 0, dest.m_values, 0, m_values.length);
+		
+		boolean changed = m_version != dest.m_version;
+		dest.m_version = m_version;
+		return changed;
+	}
+	
+	/**
+	 * Gets when a state last changed
+	 * 
+	 * @param key The state's key
+	 * @return NerdyTimer seconds, or 0 if it was never set
+	 */
+	public static double getChangeTime(Key<?> key)	{
+		return m_changed[key.m_slot];
+	}
+	
+	/**
+	 * Adds a listener for every state's transitions. Starts the dispatcher
+	 * thread; transitions before the first listener are not queued.
+	 * 
+	 * @param listener The listener
+	 */
+	public static synchronized void addListener(Listener listener)	{
+		Listener[] listeners = new Listener[m_listeners.length + 1];
+		System.arraycopy(m_listeners, 0, listeners, 0, m_listeners.length);
+		listeners[m_listeners.length] = listener;
+		m_listeners = listeners;
+		
+		if(m_dispatcher == null)	{
+			m_dispatcher = new Thread(new Runnable()	{
+				public void run()	{
+					dispatch();
+				}
+			}, "NerdyStates");
+			m_dispatcher.setDaemon(true);
+			m_dispatcher.start();
+		}
+	}
+	
+	/**
+	 * Dispatcher thread. Passes each queued transition to every listener.
+	 */
+	private static void dispatch()	{
+		Transition transition = new Transition();
+		while(true)	{
+			long tail = m_queueTail;
+			while(tail < m_queueHead)	{
+				int i = (int) (tail % kTransitionQueue);
+				Listener[] listeners = m_listeners;
+				transition.m_key			= m_keyArray[m_queueSlots[i]];
+				transition.m_previous		= m_queuePrevious[i];
+				transition.m_value			= m_queueValues[i];
+				transition.m_time			= m_queueTimes[i];
+				transition.m_previousTime	= m_queuePreviousTimes[i];
+				m_queuePrevious[i] = null;
+				m_queueValues[i] = null;
+				// Frees the slot for put()
+				m_queueTail = ++tail;
+				
+				for(int l = 0; l < listeners.length; l++)	{
+					try	{
+						listeners[l].stateChanged(transition);
+					}	catch(RuntimeException e)	{
+						e.printStackTrace();
+					}
+				}
+			}
+			LockSupport.park();
+		}
+	}
+	
+	/**
+	 * Gets the number of transitions listeners missed because the dispatcher fell behind
+	 * 
+	 * @return The number of transitions
+	 */
+	public static int getDropped()	{
+		return m_dropped;
+	}
+	
+	/**
+	 * Gets the version, which changes every time a state changes
+	 * 
+	 * @return The version
+	 */
+	public static int getVersion()	{
+		return m_version;
 	}
 	
 	/**
-	 * Gets the key set
+	 * Gets the registered states
 	 * 
-	 * @return A string array
+	 * @return The keys, in slot order
 	 */
-	public static String[] keySet()	{
-		return (String[]) m_states.keySet().toArray();
+	public static Key<?>[] keySet()	{
+		return m_keyArray.clone();
 	}
 }
@@ -0,0 +1,178 @@
+package org.camsrobotics.frc.util;
+
+import java.util.ArrayList;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Static class to publish values to the SmartDashboard.
+ * 
+ * Channels are registered once, and setting a channel only records the value.
+ * publish() sends every channel whose value changed since it was last sent
+ * (by more than the channel's epsilon, for numbers) in one batch, so unchanged
+ * values cost neither a key lookup nor network bandwidth.
+ * 
+ */
+public class NerdyTelemetry {
+	/**
+	 * A dashboard value
+	 * 
+	 */
+	public static class Channel	{
+		private static final int kNumber	= 0;
+		private static final int kBoolean	= 1;
+		private static final int kString	= 2;
+		
+		private final String m_key;
+		private final int m_type;
+		private final double m_epsilon;
+		
+		private double m_number, m_publishedNumber;
+		private boolean m_boolean, m_publishedBoolean;
+		private String m_string, m_publishedString;
+		private boolean m_dirty = true;
+		
+		private Channel(String key, int type, double epsilon)	{
+			m_key = key;
+			m_type = type;
+			m_epsilon = epsilon;
+		}
+		
+		/**
+		 * Sets a number channel. Sent if it differs from the last value sent by more than epsilon.
+		 * 
+		 * @param value The value
+		 */
+		public void set(double value)	{
+			m_number = value;
+			if(Math.abs(value - m_publishedNumber) > m_epsilon)	{
+				m_dirty = true;
+			}
+		}
+		
+		/**
+		 * Sets a boolean channel. Sent if it differs from the last value sent.
+		 * 
+		 * @param value The value
+		 */
+		public void set(boolean value)	{
+			m_boolean = value;
+			if(value != m_publishedBoolean)	{
+				m_dirty = true;
+			}
+		}
+		
+		/**
+		 * Sets a string channel. Sent if it differs from the last value sent.
+		 * 
+		 * @param value The value
+		 */
+		public void set(String value)	{
+			m_string = value;
+			if(value != m_publishedString && (value == null || !value.equals(m_publishedString)))	{
+				m_dirty = true;
+			}
+		}
+		
+		public String getKey()	{
+			return m_key;
+		}
+		
+		/**
+		 * Sends the value if it changed
+		 * 
+		 * @return True if the value was sent
+		 */
+		boolean publish()	{
+			if(!m_dirty)	{
+				return false;
+			}
+			m_dirty = false;
+			switch(m_type)	{
+			case kNumber:
+				m_publishedNumber = m_number;
+				SmartDashboard.putNumber(m_key, m_number);
+				break;
+			case kBoolean:
+				m_publishedBoolean = m_boolean;
+				SmartDashboard.putBoolean(m_key, m_boolean);
+				break;
+			case kString:
+				m_publishedString = m_string;
+				SmartDashboard.putString(m_key, m_string == null ? "" : m_string);
+				break;
+			}
+			return true;
+		}
+	}
+	
+	private static ArrayList<Channel> m_list = new ArrayList<Channel>();
+	private static Channel[] m_channels = new Channel[0];
+	private static int m_published = 0;
+	
+	//Prevents this class from being initialized
+	private NerdyTelemetry(){}
+	
+	private static synchronized Channel add(Channel channel)	{
+		m_list.add(channel);
+		m_channels = m_list.toArray(new Channel[m_list.size()]);
+		return channel;
+	}
+	
+	/**
+	 * Registers a number channel
+	 * 
+	 * @param key		The SmartDashboard key
+	 * @param epsilon	The smallest change worth sending
+	 * @return			The channel
+	 */
+	public static Channel addNumber(String key, double epsilon)	{
+		return add(new Channel(key, Channel.kNumber, epsilon));
+	}
+	
+	/**
+	 * Registers a boolean channel
+	 * 
+	 * @param key	The SmartDashboard key
+	 * @return		The channel
+	 */
+	public static Channel addBoolean(String key)	{
+		return add(new Channel(key, Channel.kBoolean, 0));
+	}
+	
+	/**
+	 * Registers a string channel
+	 * 
+	 * @param key	The SmartDashboard key
+	 * @return		The channel
+	 */
+	public static Channel addString(String key)	{
+		return add(new Channel(key, Channel.kString, 0));
+	}
+	
+	/**
+	 * Sends every changed channel. Call once per telemetry cycle.
+	 * 
+	 * @return The number of values sent
+	 */
+	public static int publish()	{
+		Channel[] channels = m_channels;
+		int published = 0;
+		for(int i = 0; i < channels.length; i++)	{
+			if(channels[i].publish())	{
+				published++;
+			}
+		}
+		m_published += published;
+		return published;
+	}
+	
+	/**
+	 * Gets the total number of values sent
+	 * 
+	 * @return The number of values
+	 */
+	public static int getPublished()	{
+		return m_published;
+	}
+}
@@ -0,0 +1,51 @@
+package org.camsrobotics.frc.util;
+
+import org.camsrobotics.frc.hal.NerdyClock;
+
+/**
+ * Static time source for the robot code. Defaults to the JVM's monotonic clock,
+ * and can be replaced with a simulated clock.
+ * 
+ */
+public class NerdyTimer {
+	/**
+	 * The JVM's monotonic clock
+	 */
+	public static final NerdyClock kSystemClock = new NerdyClock()	{
+		public double getTime()	{
+			return System.nanoTime() / 1e9;
+		}
+	};
+	
+	private static volatile NerdyClock m_clock = kSystemClock;
+	
+	//Prevents this class from being initialized
+	private NerdyTimer(){}
+	
+	/**
+	 * Sets the time source
+	 * 
+	 * @param clock The clock
+	 */
+	public static void setClock(NerdyClock clock)	{
+		m_clock = clock;
+	}
+	
+	/**
+	 * Gets the time source
+	 * 
+	 * @return The clock
+	 */
+	public static NerdyClock getClock()	{
+		return m_clock;
+	}
+	
+	/**
+	 * Gets the current time
+	 * 
+	 * @return Seconds
+	 */
+	public static double getTime()	{
+		return m_clock.getTime();
+	}
+}
@@ -0,0 +1,133 @@
+package org.camsrobotics.frc.util;
+
+/**
+ * Field frame velocity from the IMU's acceleration and the wheels' travel
+ * 
+ * A complementary filter: each update integrates the acceleration, which has
+ * no lag but drifts, then pulls the estimate toward the velocity measured by
+ * the wheels, which doesn't drift but is quantized to whole encoder counts.
+ * A second, much slower correction learns the accelerometer's bias, so that
+ * brief disagreements, e.g. a slip too small to detect, barely move it.
+ * 
+ * The wheels can't be trusted while they slip, e.g. spinning on the carpet
+ * under hard acceleration or scrubbing on their rollers. An update is a slip
+ * when the wheels disagree with each other, or with the estimate, by more
+ * than the slip threshold. Slips coast on the acceleration alone. A slip
+ * that lasts longer than the slip limit is more likely a bad estimate, so
+ * the filter takes the wheels' velocity and starts again from there.
+ * 
+ * update() is allocation free.
+ * 
+ */
+public class NerdyVelocityFilter {
+	private final double m_gain, m_biasGain;
+	private final double m_slipThreshold, m_slipLimit;
+	private double m_velocityX, m_velocityY;
+	private double m_biasX, m_biasY;
+	private double m_slipTime = 0;
+	private boolean m_started = false;
+	
+	/**
+	 * Default constructor
+	 * 
+	 * @param timeConstant		Seconds for the estimate to settle on the wheels' velocity
+	 * @param biasTimeConstant	Seconds for the bias to settle, much longer
+	 * @param slipThreshold		Disagreement that makes a slip, in/s
+	 * @param slipLimit			Longest slip to coast through, in seconds
+	 */
+	public NerdyVelocityFilter(double timeConstant, double biasTimeConstant, double slipThreshold, double slipLimit)	{
+		m_gain = 1 / timeConstant;
+		m_biasGain = 1 / (timeConstant * biasTimeConstant);
+		m_slipThreshold = slipThreshold;
+		m_slipLimit = slipLimit;
+	}
+	
+	/**
+	 * Updates the estimate. The first update after a reset takes the wheels'
+	 * velocity as it is.
+	 * 
+	 * @param wheelX	Velocity the wheels measured along the field X axis, in/s
+	 * @param wheelY	Velocity the wheels measured along the field Y axis, in/s
+	 * @param scrub		How far the wheels disagree with each other, in/s
+	 * @param accelX	Acceleration along the field X axis, in/s^2
+	 * @param accelY	Acceleration along the field Y axis, in/s^2
+	 * @param dt		Seconds since the last update
+	 * @return True if the wheels are slipping
+	 */
+	public boolean update(double wheelX, double wheelY, double scrub, double accelX, double accelY, double dt)	{
+		if(!m_started)	{
+			m_velocityX = wheelX;
+			m_velocityY = wheelY;
+			m_started = true;
+			return false;
+		}
+		
+		m_velocityX += (accelX - m_biasX) * dt;
+		m_velocityY += (accelY - m_biasY) * dt;
+		
+		double errorX = wheelX - m_velocityX;
+		double errorY = wheelY - m_velocityY;
+		double threshold = m_slipThreshold * m_slipThreshold;
+		if(scrub * scrub > threshold || errorX * errorX + errorY * errorY > threshold)	{
+			m_slipTime += dt;
+			if(m_slipTime <= m_slipLimit)	{
+				return true;
+			}
+			// Slipped too long to still be coasting right
+			m_velocityX = wheelX;
+			m_velocityY = wheelY;
+			m_slipTime = 0;
+			return false;
+		}
+		
+		m_slipTime = 0;
+		m_velocityX += m_gain * errorX * dt;
+		m_velocityY += m_gain * errorY * dt;
+		m_biasX -= m_biasGain * errorX * dt;
+		m_biasY -= m_biasGain * errorY * dt;
+		return false;
+	}
+	
+	/**
+	 * Starts again from the next update, keeping the learned bias
+	 */
+	public void reset()	{
+		m_started = false;
+		m_slipTime = 0;
+	}
+	
+	/**
+	 * @return Inches per second along the field X axis
+	 */
+	public double getVelocityX()	{
+		return m_velocityX;
+	}
+	
+	/**
+	 * @return Inches per second along the field Y axis
+	 */
+	public double getVelocityY()	{
+		return m_velocityY;
+	}
+	
+	/**
+	 * @return The accelerometer's learned bias along the field X axis, in/s^2
+	 */
+	public double getBiasX()	{
+		return m_biasX;
+	}
+	
+	/**
+	 * @return The accelerometer's learned bias along the field Y axis, in/s^2
+	 */
+	public double getBiasY()	{
+		return m_biasY;
+	}
+	
+	/**
+	 * @return True if the last update was a slip
+	 */
+	public boolean isSlipping()	{
+		return m_slipTime > 0;
+	}
+}
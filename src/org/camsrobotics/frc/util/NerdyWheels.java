@@ -0,0 +1,103 @@
+package org.camsrobotics.frc.util;
+
+/**
+ * One value per wheel of the Mecanum base, e.g. the powers of a drive
+ * iteration. Mutable and operated on in place, so a loop can keep one and
+ * reuse it instead of allocating arrays.
+ * 
+ */
+public class NerdyWheels {
+	private double m_ftLeft, m_ftRight, m_bkLeft, m_bkRight;
+	
+	/**
+	 * Sets every wheel
+	 * 
+	 * @param ftLeft
+	 * @param ftRight
+	 * @param bkLeft
+	 * @param bkRight
+	 * @return This
+	 */
+	public NerdyWheels set(double ftLeft, double ftRight, double bkLeft, double bkRight)	{
+		m_ftLeft	= ftLeft;
+		m_ftRight	= ftRight;
+		m_bkLeft	= bkLeft;
+		m_bkRight	= bkRight;
+		return this;
+	}
+	
+	/**
+	 * Copies every wheel from another
+	 * 
+	 * @param wheels The values to copy
+	 * @return This
+	 */
+	public NerdyWheels set(NerdyWheels wheels)	{
+		return set(wheels.m_ftLeft, wheels.m_ftRight, wheels.m_bkLeft, wheels.m_bkRight);
+	}
+	
+	public double getFtLeft()	{
+		return m_ftLeft;
+	}
+	
+	public double getFtRight()	{
+		return m_ftRight;
+	}
+	
+	public double getBkLeft()	{
+		return m_bkLeft;
+	}
+	
+	public double getBkRight()	{
+		return m_bkRight;
+	}
+	
+	/**
+	 * Gets the largest magnitude
+	 * 
+	 * @return The largest absolute value of the four
+	 */
+	public double getMaxAbs()	{
+		return Math.max(Math.max(Math.abs(m_ftLeft), Math.abs(m_ftRight)), Math.max(Math.abs(m_bkLeft), Math.abs(m_bkRight)));
+	}
+	
+	/**
+	 * Multiplies every wheel by the same factor
+	 * 
+	 * @param scalar The factor
+	 * @return This
+	 */
+	public NerdyWheels scale(double scalar)	{
+		return set(m_ftLeft * scalar, m_ftRight * scalar, m_bkLeft * scalar, m_bkRight * scalar);
+	}
+	
+	/**
+	 * Normalizes to -1 or 1, the same as NerdyMath.normalize
+	 * 
+	 * @param scaleUp True makes the values scale no matter what. All zeros stay zeros.
+	 * @return This
+	 */
+	public NerdyWheels normalize(boolean scaleUp)	{
+		double max = getMaxAbs();
+		if((max < 1 && scaleUp == false) || max == 0)	{
+			return this;
+		}
+		return set(m_ftLeft / max, m_ftRight / max, m_bkLeft / max, m_bkRight / max);
+	}
+	
+	/**
+	 * Thresholds every wheel between a upper and lower limit
+	 * 
+	 * @param min	The lower limit
+	 * @param max	The upper limit
+	 * @return		This
+	 */
+	public NerdyWheels threshold(double min, double max)	{
+		return set(NerdyMath.threshold(m_ftLeft, min, max), NerdyMath.threshold(m_ftRight, min, max),
+				NerdyMath.threshold(m_bkLeft, min, max), NerdyMath.threshold(m_bkRight, min, max));
+	}
+	
+	public String toString()	{
+		return "[" + m_ftLeft + ", " + m_ftRight + ", " + m_bkLeft + ", " + m_bkRight + "]";
+	}
+}
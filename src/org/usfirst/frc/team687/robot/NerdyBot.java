@@ -3,9 +3,10 @@ package org.usfirst.frc.team687.robot;
 import org.camsrobotics.frc.subsystems.NerdyDrive;
 import org.camsrobotics.frc.subsystems.NerdyElevator;
 import org.camsrobotics.frc.subsystems.NerdyIntake;
+import org.camsrobotics.frc.util.NerdyControls;
 import org.camsrobotics.frc.util.NerdyResources;
-
-import edu.wpi.first.wpilibj.Compressor;
+import org.camsrobotics.frc.util.NerdyScheduler;
+import org.camsrobotics.frc.util.NerdyStates;
 
 /**
  * Wrapper for all three subsystems
@@ -18,7 +19,6 @@ public class NerdyBot {
 	private NerdyDrive m_drive;
 	private NerdyElevator m_elevator;
 	private NerdyIntake m_intake;
-	private Compressor m_compressor;
 	private boolean m_inToggle = false;
 	private boolean m_outToggle = false;
 	
@@ -33,8 +33,6 @@ public class NerdyBot {
 		m_drive			= drive;
 		m_elevator		= elevator;
 		m_intake		= intake;
-		m_compressor	= NerdyResources.Articulation.compressor;
-		m_compressor.start();
 	}
 	
 	// Drive functions
@@ -48,6 +46,173 @@ public class NerdyBot {
 		m_intake.run();
 	}
 	
+	/**
+	 * Registers the subsystems with a scheduler, each at its own rate.
+	 * Use this instead of run().
+	 * 
+	 * @param scheduler The scheduler
+	 */
+	public void schedule(NerdyScheduler scheduler)	{
+		scheduler.add("Drive", new Runnable()	{
+			public void run()	{
+				m_drive.run();
+			}
+		}, NerdyResources.Constants.driveRate);
+		scheduler.add("Elevator", new Runnable()	{
+			public void run()	{
+				m_elevator.run();
+			}
+		}, NerdyResources.Constants.articRate);
+		scheduler.add("Intake", new Runnable()	{
+			public void run()	{
+				m_intake.run();
+			}
+		}, NerdyResources.Constants.articRate);
+	}
+	
+	/**
+	 * Registers every command below with the controls, under its method name
+	 * 
+	 * @param controls The controls
+	 */
+	public void bind(NerdyControls controls)	{
+		controls.addAction("disableDrive", new Runnable()	{
+			public void run()	{
+				disableDrive();
+			}
+		});
+		controls.addAction("enableDrive", new Runnable()	{
+			public void run()	{
+				enableDrive();
+			}
+		});
+		controls.addAction("robotCentric", new Runnable()	{
+			public void run()	{
+				robotCentric();
+			}
+		});
+		controls.addAction("fieldCentric", new Runnable()	{
+			public void run()	{
+				fieldCentric();
+			}
+		});
+		controls.addAction("toggleDriveMode", new Runnable()	{
+			public void run()	{
+				toggleDriveMode();
+			}
+		});
+		controls.addAction("calibrateDrive", new Runnable()	{
+			public void run()	{
+				calibrateDrive();
+			}
+		});
+		controls.addAction("disableElevator", new Runnable()	{
+			public void run()	{
+				disableElevator();
+			}
+		});
+		controls.addAction("enableElevator", new Runnable()	{
+			public void run()	{
+				enableElevator();
+			}
+		});
+		controls.addAction("manualElevator", new Runnable()	{
+			public void run()	{
+				manualElevator();
+			}
+		});
+		controls.addAction("stackToStack", new Runnable()	{
+			public void run()	{
+				stackToStack();
+			}
+		});
+		controls.addAction("stackToStack2", new Runnable()	{
+			public void run()	{
+				stackToStack2();
+			}
+		});
+		controls.addAction("openElevator", new Runnable()	{
+			public void run()	{
+				openElevator();
+			}
+		});
+		controls.addAction("closeElevator", new Runnable()	{
+			public void run()	{
+				closeElevator();
+			}
+		});
+		controls.addAction("calibrateElevator", new Runnable()	{
+			public void run()	{
+				calibrateElevator();
+			}
+		});
+		controls.addAction("disableIntakes", new Runnable()	{
+			public void run()	{
+				disableIntakes();
+			}
+		});
+		controls.addAction("enableIntakes", new Runnable()	{
+			public void run()	{
+				enableIntakes();
+			}
+		});
+		controls.addAction("intake", new Runnable()	{
+			public void run()	{
+				intake();
+			}
+		});
+		controls.addAction("outake", new Runnable()	{
+			public void run()	{
+				outake();
+			}
+		});
+		controls.addAction("intakeToggle", new Runnable()	{
+			public void run()	{
+				intakeToggle();
+			}
+		});
+		controls.addAction("outakeToggle", new Runnable()	{
+			public void run()	{
+				outakeToggle();
+			}
+		});
+		controls.addAction("idleIntakes", new Runnable()	{
+			public void run()	{
+				idleIntakes();
+			}
+		});
+		controls.addAction("openIntakes", new Runnable()	{
+			public void run()	{
+				openIntakes();
+			}
+		});
+		controls.addAction("closeIntakes", new Runnable()	{
+			public void run()	{
+				closeIntakes();
+			}
+		});
+		controls.addAction("openClaw", new Runnable()	{
+			public void run()	{
+				openClaw();
+			}
+		});
+		controls.addAction("closeClaw", new Runnable()	{
+			public void run()	{
+				closeClaw();
+			}
+		});
+		controls.addAction("disableArtic", new Runnable()	{
+			public void run()	{
+				disableArtic();
+			}
+		});
+		controls.addAction("enableArtic", new Runnable()	{
+			public void run()	{
+				enableArtic();
+			}
+		});
+	}
+	
 	/**
 	 * Disables the drivebase
 	 */
@@ -76,6 +241,17 @@ public class NerdyBot {
 		m_drive.fieldCentric();
 	}
 	
+	/**
+	 * Switches between field centric and robot centric drive
+	 */
+	public void toggleDriveMode()	{
+		if(NerdyStates.get(NerdyDrive.kStateKey) == NerdyDrive.State.kFieldCentric)	{
+			robotCentric();
+		}	else if(NerdyStates.get(NerdyDrive.kStateKey) == NerdyDrive.State.kRobotCentric)	{
+			fieldCentric();
+		}
+	}
+	
 	/**
 	 * Calibrates the drive. Should be facing forward when called.
 	 */
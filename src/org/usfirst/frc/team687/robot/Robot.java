@@ -1,14 +1,32 @@
 
 package org.usfirst.frc.team687.robot;
 
+import java.io.File;
+import java.io.IOException;
+
+import org.camsrobotics.frc.hal.IMUGyro;
+import org.camsrobotics.frc.hal.NerdyEncoder;
+import org.camsrobotics.frc.hal.NerdyIMU;
+import org.camsrobotics.frc.hal.NerdyMotor;
+import org.camsrobotics.frc.hal.NerdySolenoid;
+import org.camsrobotics.frc.hal.WPICurrentSensor;
+import org.camsrobotics.frc.hal.WPIEncoder;
+import org.camsrobotics.frc.hal.WPIMotor;
+import org.camsrobotics.frc.hal.WPISolenoid;
+import org.camsrobotics.frc.hal.WPITalon;
+import org.camsrobotics.frc.log.NerdyFlightRecorder;
 import org.camsrobotics.frc.subsystems.NerdyElevator;
 import org.camsrobotics.frc.subsystems.NerdyDrive;
 import org.camsrobotics.frc.subsystems.NerdyIntake;
-import org.camsrobotics.frc.util.NerdyButton;
 import org.camsrobotics.frc.util.NerdyDrivebase;
+import org.camsrobotics.frc.util.NerdyControls;
 import org.camsrobotics.frc.util.NerdyJoystick;
+import org.camsrobotics.frc.util.NerdyOdometry;
 import org.camsrobotics.frc.util.NerdyResources;
+import org.camsrobotics.frc.util.NerdyScheduler;
+import org.camsrobotics.frc.util.NerdyStateLogger;
 import org.camsrobotics.frc.util.NerdyStates;
+import org.camsrobotics.frc.util.NerdyTelemetry;
 
 import com.kauailabs.nav6.frc.IMUAdvanced;
 
@@ -16,17 +34,22 @@ import edu.wpi.first.wpilibj.CANTalon;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.Encoder;
 import edu.wpi.first.wpilibj.IterativeRobot;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  * This is where the magic happens!
  */
 public class Robot extends IterativeRobot {
 	
+	public static final NerdyStates.Key<String> kStateKey = NerdyStates.register("Robot", String.class);
+	
 	// The Bot
 	NerdyBot			robot;
+	NerdyScheduler		scheduler;
+	NerdyFlightRecorder	recorder;
 	
 	NerdyDrivebase		drivebase;
+	NerdyOdometry		odometry;
+	NerdyMotor[]		motors;
 
 	//	Subsystems
 	NerdyDrive			drive;
@@ -38,23 +61,8 @@ public class Robot extends IterativeRobot {
 	NerdyJoystick		rightJoy;
 	NerdyJoystick		articJoy;
 	
-	// Drive Buttons
-	NerdyButton			driveMode;
-	NerdyButton			calibrateDrive;
-	
-	// Artic Buttons
-	NerdyButton			openElevator;
-	NerdyButton			closeElevator;
-	NerdyButton			stackToStack;
-	NerdyButton			articOverride;
-	NerdyButton			openIntake;
-	NerdyButton			closeIntake;
-	NerdyButton			in;
-	NerdyButton			out;
-	NerdyButton			stopIntakes;
-	NerdyButton			openClaw;
-	NerdyButton			closeClaw;
-	NerdyButton			calibrateArtic;
+	// Button bindings
+	NerdyControls		controls;
 	
 	// Sensors
 	Encoder				ftLeftDriveEncoder;
@@ -67,53 +75,133 @@ public class Robot extends IterativeRobot {
 	IMUAdvanced			imu;
 	CANTalon			elevatorMotor;
 	
+	// Telemetry
+	NerdyTelemetry.Channel		robotStateChannel		= NerdyTelemetry.addString("Robot State");
+	NerdyTelemetry.Channel		driveStateChannel		= NerdyTelemetry.addString("Drive State");
+	NerdyTelemetry.Channel		elevatorStateChannel	= NerdyTelemetry.addString("Elevator");
+	NerdyTelemetry.Channel		intakeStateChannel		= NerdyTelemetry.addString("Intake State");
+	NerdyStates.Snapshot		states					= new NerdyStates.Snapshot();
+	NerdyTelemetry.Channel[]	overrunChannels;
+	NerdyTelemetry.Channel[]	taskTimeChannels;
+	
     /**
      * Initializes the subsystems
      */
     public void robotInit() {
+    	// Logs every mode change, off the control thread
+    	if(NerdyResources.Constants.logTransitions)	{
+    		NerdyStates.addListener(new NerdyStateLogger(System.out));
+    	}
+    	
     	leftJoy			= NerdyResources.Control.leftJoy;
     	rightJoy		= NerdyResources.Control.rightJoy;
     	articJoy		= NerdyResources.Control.articJoy;
+    	leftJoy.setCurves(NerdyResources.Constants.driveDeadband, NerdyResources.Constants.driveExpo,
+    			NerdyResources.Constants.driveSlewRate);
+    	rightJoy.setCurves(NerdyResources.Constants.driveDeadband, NerdyResources.Constants.driveExpo,
+    			NerdyResources.Constants.driveSlewRate);
+    	articJoy.setCurves(NerdyResources.Constants.articDeadband, NerdyResources.Constants.articExpo,
+    			NerdyResources.Constants.articSlewRate);
+    	
+    	// Hardware, through the HAL
+    	NerdyMotor ftLeft		= new WPIMotor(NerdyResources.Drive.ftLeftDrive);
+    	NerdyMotor ftRight		= new WPIMotor(NerdyResources.Drive.ftRightDrive);
+    	NerdyMotor bkLeft		= new WPIMotor(NerdyResources.Drive.bkLeftDrive);
+    	NerdyMotor bkRight		= new WPIMotor(NerdyResources.Drive.bkRightDrive);
+    	NerdyEncoder ftLeftEnc	= new WPIEncoder(NerdyResources.Drive.ftLeftEncoder);
+    	NerdyEncoder ftRightEnc	= new WPIEncoder(NerdyResources.Drive.ftRightEncoder);
+    	NerdyEncoder bkLeftEnc	= new WPIEncoder(NerdyResources.Drive.bkLeftEncoder);
+    	NerdyEncoder bkRightEnc	= new WPIEncoder(NerdyResources.Drive.bkRightEncoder);
+    	NerdyIMU navIMU			= new IMUGyro(NerdyResources.Drive.imu);
     	
-    	driveMode		= NerdyResources.Control.driveMode;
-    	calibrateDrive	= NerdyResources.Control.calibrateDrive;
+    	WPITalon lift			= new WPITalon(NerdyResources.Articulation.elevator);
+    	// With the onboard loop, the elevator encoder is wired to the Talon
+    	NerdyEncoder liftEnc	= NerdyResources.Constants.articTalonLoop ? lift.getEncoder()
+    							: new WPIEncoder(NerdyResources.Articulation.elevatorEncoder);
+    	NerdySolenoid leftSol	= new WPISolenoid(NerdyResources.Articulation.leftSol);
+    	NerdySolenoid rightSol	= new WPISolenoid(NerdyResources.Articulation.rightSol);
+    	NerdySolenoid clawSol	= new WPISolenoid(NerdyResources.Articulation.canClaw);
+    	NerdyMotor leftIntake	= new WPIMotor(NerdyResources.Articulation.leftIntake);
+    	NerdyMotor rightIntake	= new WPIMotor(NerdyResources.Articulation.rightIntake);
+    	NerdySolenoid intakeSol	= new WPISolenoid(NerdyResources.Articulation.intakeSol);
     	
-    	openElevator	= NerdyResources.Control.openElevator;
-    	closeElevator	= NerdyResources.Control.closeElevator;
-    	stackToStack	= NerdyResources.Control.stackToStack;
-    	articOverride = NerdyResources.Control.articOverride;
-    	openIntake		= NerdyResources.Control.openIntake;
-    	closeIntake		= NerdyResources.Control.closeIntake;
-    	in				= NerdyResources.Control.intake;
-    	out				= NerdyResources.Control.outake;
-    	stopIntakes		= NerdyResources.Control.stopIntakes;
-    	openClaw		= NerdyResources.Control.openClaw;
-    	closeClaw		= NerdyResources.Control.closeClaw;
-    	calibrateArtic	= NerdyResources.Control.calibrateArtic;
+    	// Every motor, for the scheduler's failsafe
+    	motors					= new NerdyMotor[] {ftLeft, ftRight, bkLeft, bkRight, lift, leftIntake, rightIntake};
     	
-    	drivebase		= new NerdyDrivebase(NerdyResources.Drive.ftLeftDrive,
-    						  NerdyResources.Drive.ftRightDrive,
-    						  NerdyResources.Drive.bkLeftDrive,
-    						  NerdyResources.Drive.bkRightDrive,
-    						  NerdyResources.Drive.ftLeftEncoder,
-    						  NerdyResources.Drive.ftRightEncoder,
-    						  NerdyResources.Drive.bkLeftEncoder,
-    						  NerdyResources.Drive.bkRightEncoder);
+    	drivebase		= new NerdyDrivebase(ftLeft, ftRight, bkLeft, bkRight,
+    						  ftLeftEnc, ftRightEnc, bkLeftEnc, bkRightEnc);
+    	drivebase.setVelocityMode(NerdyResources.Constants.driveVelocityMode);
     	
-    	drive			= new NerdyDrive(leftJoy, rightJoy, NerdyResources.Drive.imu, drivebase);
+    	drive			= new NerdyDrive(leftJoy, rightJoy, navIMU, drivebase);
+    	odometry		= new NerdyOdometry(drivebase, navIMU);
     	
-    	elevator 		= new NerdyElevator(articJoy, 
-							  NerdyResources.Articulation.elevator,
-							  NerdyResources.Articulation.leftSol,
-							  NerdyResources.Articulation.rightSol,
-							  NerdyResources.Articulation.canClaw,
-							  NerdyResources.Articulation.elevatorEncoder);
+    	elevator 		= new NerdyElevator(articJoy, lift, leftSol, rightSol, clawSol, liftEnc);
+    	elevator.setOnboardLoop(NerdyResources.Constants.articTalonLoop);
     	
-    	intake 			= new NerdyIntake(NerdyResources.Articulation.leftIntake,
-			    			  NerdyResources.Articulation.rightIntake,
-			    			  NerdyResources.Articulation.intakeSol);
+    	intake 			= new NerdyIntake(leftIntake, rightIntake, intakeSol);
     	
     	robot			= new NerdyBot(drive, elevator, intake);
+    	
+    	// Button bindings, from the robot's controls file if there is one
+    	controls		= new NerdyControls();
+    	controls.addJoystick("left", leftJoy);
+    	controls.addJoystick("right", rightJoy);
+    	controls.addJoystick("artic", articJoy);
+    	robot.bind(controls);
+    	controls.compile(NerdyResources.Constants.controls);
+    	File controlsFile = new File(NerdyResources.Constants.controlsFile);
+    	if(controlsFile.exists())	{
+    		try	{
+    			controls.compile(NerdyControls.load(controlsFile));
+    		}	catch(IOException e)	{
+    			e.printStackTrace();
+    		}	catch(IllegalArgumentException e)	{
+    			// Keeps the default bindings
+    			e.printStackTrace();
+    		}
+    	}
+    	
+    	NerdyResources.Articulation.compressor.start();
+    	
+    	// Teleop runs on the scheduler's thread, at fixed rates
+    	scheduler		= new NerdyScheduler();
+    	scheduler.add("Controls", controls, NerdyResources.Constants.controlRate);
+    	robot.schedule(scheduler);
+    	scheduler.add("Odometry", odometry, NerdyResources.Constants.driveRate);
+    	scheduler.setFailsafe(new Runnable()	{
+    		public void run()	{
+    			stopMotors();
+    		}
+    	});
+    	
+    	// Flight recorder, sampling after the subsystems run. Each teleop period gets a log.
+    	recorder		= new NerdyFlightRecorder(NerdyResources.Constants.flightRecorderRing);
+    	recorder.setDrive(ftLeft, ftRight, bkLeft, bkRight, ftLeftEnc, ftRightEnc, bkLeftEnc, bkRightEnc, navIMU);
+    	recorder.setElevator(lift, new WPICurrentSensor(NerdyResources.Articulation.elevator), liftEnc,
+    			leftSol, rightSol, clawSol);
+    	recorder.setIntake(leftIntake, rightIntake, intakeSol);
+    	recorder.setJoysticks(leftJoy, rightJoy, articJoy);
+    	scheduler.add("Recorder", new Runnable()	{
+    		public void run()	{
+    			recorder.sample();
+    		}
+    	}, NerdyResources.Constants.driveRate);
+    	scheduler.add("Telemetry", new Runnable()	{
+    		public void run()	{
+    			reportStates();
+    			NerdyResources.reportSensors();
+    			reportScheduler();
+    			NerdyTelemetry.publish();
+    		}
+    	}, NerdyResources.Constants.telemetryRate);
+    	
+    	NerdyScheduler.Task[] tasks = scheduler.getTasks();
+    	overrunChannels	= new NerdyTelemetry.Channel[tasks.length];
+    	taskTimeChannels	= new NerdyTelemetry.Channel[tasks.length];
+    	for(int i = 0; i < tasks.length; i++)	{
+    		overrunChannels[i]	= NerdyTelemetry.addNumber(tasks[i].getName() + " Overruns", 0);
+    		taskTimeChannels[i]	= NerdyTelemetry.addNumber(tasks[i].getName() + " Max ms", 0.01);
+    	}
 
     	ftLeftDriveEncoder  = NerdyResources.Drive.ftLeftEncoder;
     	ftRightDriveEncoder = NerdyResources.Drive.ftRightEncoder;
@@ -124,15 +212,25 @@ public class Robot extends IterativeRobot {
     	imu                 = NerdyResources.Drive.imu;
     	elevatorMotor       = NerdyResources.Articulation.elevator;
     	
-    	NerdyStates.put("Robot", "Initializing");
+    	NerdyStates.put(kStateKey, "Initializing");
     }
     
     /**
      * Initializes Disabled mode
      */
     public void disabledInit()	{
+    	scheduler.stop();
+    	// Trims the log, nothing is recorded while disabled
+    	try	{
+    		recorder.close();
+    	}	catch(IOException e)	{
+    		e.printStackTrace();
+    	}
+    	drivebase.resetVelocityLoops();
+    	elevator.resetLoops();
     	drive.calibrate();
-    	NerdyStates.put("Robot", "Disabled");
+    	odometry.reset(0, 0);
+    	NerdyStates.put(kStateKey, "Disabled");
     }
     
     /**
@@ -140,124 +238,88 @@ public class Robot extends IterativeRobot {
      */
     public void disabledPeriodic()	{
     	reportStates();
+    	NerdyTelemetry.publish();
     }
 
     /**
      * Initializes Autonomous mode
      */
     public void autonomousInit()	{
-    	NerdyStates.put("Robot", "Autonomous Mode");
+    	scheduler.stop();
+    	odometry.reset(0, 0);
+    	NerdyStates.put(kStateKey, "Autonomous Mode");
     }
     
     /**
      * Autonomous Mode
      */
     public void autonomousPeriodic() {
+    	odometry.run();
     	reportStates();
+    	NerdyTelemetry.publish();
     }
 
     /**
      * Initializes Teleoperated Mode
      */
     public void teleopInit()	{
-    	NerdyStates.put("Robot", "Initializing");
+    	NerdyStates.put(kStateKey, "Initializing");
+    	// Nothing ran the loops while disabled
+    	drivebase.resetVelocityLoops();
+    	elevator.resetLoops();
+    	if(!recorder.isOpen())	{
+    		try	{
+    			recorder.open(NerdyFlightRecorder.newLog(new File(NerdyResources.Constants.flightLogDirectory),
+    					NerdyResources.Constants.flightLogsKept));
+    		}	catch(IOException e)	{
+    			e.printStackTrace();
+    		}
+    	}
+    	scheduler.start(Thread.MAX_PRIORITY);
     }
     
     /**
-     * Teleoperated Mode
+     * Teleoperated Mode. The scheduler runs the robot, so this only checks that
+     * it still is, and otherwise stops the motors and throws what stopped it.
      */
     public void teleopPeriodic() {
-    	updateButtons();
-    	
-    	// Drive functions
-        if(driveMode.wasPressed())	{
-        	switchDriveMode();
-        }
-        if(calibrateDrive.wasPressed())	{
-        	robot.calibrateDrive();
-        }
-        
-        // Artic Functions
-        if(openElevator.wasPressed())	{
-        	robot.openElevator();
-        }	else if(closeElevator.wasPressed())	{
-        	robot.closeElevator();
-        }
-        
-        if(stackToStack.wasPressed())	{
-        	robot.stackToStack();
-        }
-        
-        if(articOverride.wasPressed())	{
-        	robot.enableArtic();
-        }
-        
-    	if(openIntake.wasPressed())	{
-    		robot.openIntakes();
-    	}	else if(closeIntake.wasPressed())	{
-    		robot.closeIntakes();
-    	}
-    	
-    	if(openClaw.wasPressed()) robot.openClaw();
-    	if(closeClaw.wasPressed()) robot.closeClaw();
-    	
-    	if(in.get())	{
-    		robot.intake();
-    	}	else if(out.get())	{
-    		robot.outake();
-    	}	else if(stopIntakes.get())	{
-    		robot.idleIntakes();
+    	if(!scheduler.isAlive())	{
+    		stopMotors();
+    		throw new IllegalStateException("The scheduler stopped", scheduler.getFailure());
     	}
-    	
-    	if(calibrateArtic.wasPressed())	{
-        	robot.calibrateElevator();
-        }
-        
-    	reportStates();
-    	NerdyResources.reportSensors();
-    	robot.run();
     }
     
     /**
-     * Updates all the buttons
+     * Stops every motor. The scheduler's failsafe, so a failed task can't leave
+     * the motors at their last power.
      */
-    void updateButtons()	{
-    	driveMode.update();
-    	calibrateDrive.update();
-    	
-    	openElevator.update();
-    	closeElevator.update();
-    	stackToStack.update();
-    	articOverride.update();
-    	openIntake.update();
-    	closeIntake.update();
-    	in.update();
-    	out.update();
-    	stopIntakes.update();
-    	openClaw.update();
-    	closeClaw.update();
-    	calibrateArtic.update();
+    void stopMotors()	{
+    	for(int i = 0; i < motors.length; i++)	{
+    		motors[i].set(0);
+    	}
     }
     
     /**
-     * Switches drive modes
+     * Reports the scheduler's overruns and task times. Sent by the next NerdyTelemetry.publish().
      */
-    void switchDriveMode()	{
-    	if(NerdyStates.get("Drive") == NerdyDrive.State.kFieldCentric)	{
-    		robot.robotCentric();
-    	}	else if(NerdyStates.get("Drive") == NerdyDrive.State.kRobotCentric)	{
-    		robot.fieldCentric();
+    void reportScheduler()	{
+    	NerdyScheduler.Task[] tasks = scheduler.getTasks();
+    	for(int i = 0; i < tasks.length; i++)	{
+    		overrunChannels[i].set(tasks[i].getOverruns());
+    		taskTimeChannels[i].set(tasks[i].getMaxDuration() * 1000);
     	}
     }
     
     /**
-     * Reports the subsystem states to the SmartDashboard
+     * Reports the subsystem states, if any changed. Sent by the next NerdyTelemetry.publish().
      */
     void reportStates()	{
-    	SmartDashboard.putString("Robot State", NerdyStates.get("Robot").toString());
-    	SmartDashboard.putString("Drive State", NerdyStates.get("Drive").toString());
-    	SmartDashboard.putString("Elevator", NerdyStates.get("Elevator").toString());
-    	SmartDashboard.putString("Intake State", NerdyStates.get("Intake").toString());
+    	if(NerdyStates.read(states))	{
+    		robotStateChannel.set(String.valueOf(states.get(kStateKey)));
+    		driveStateChannel.set(String.valueOf(states.get(NerdyDrive.kStateKey)));
+    		elevatorStateChannel.set(String.valueOf(states.get(NerdyElevator.kStateKey)));
+    		intakeStateChannel.set(String.valueOf(states.get(NerdyIntake.kStateKey)));
+    	}
     }
     
 }